@@ -0,0 +1,78 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.benchmarks;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.Checks;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.check.Rule;
+import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.rules.CheckClasses;
+import org.sonar.plugins.html.rules.HtmlRulesDefinition;
+import org.sonar.plugins.html.rules.SonarWayProfile;
+import org.sonarsource.analyzer.commons.BuiltInQualityProfileJsonLoader;
+
+/**
+ * Instantiates the checks the way the sensor does, with the default values of their parameters.
+ */
+final class ActiveChecks {
+
+  private ActiveChecks() {
+  }
+
+  static List<AbstractPageCheck> sonarWay() {
+    return create(BuiltInQualityProfileJsonLoader.loadActiveKeysFromJsonProfile(SonarWayProfile.JSON_PROFILE_PATH));
+  }
+
+  /**
+   * @param simpleName simple name of one of the {@link CheckClasses}
+   */
+  static AbstractPageCheck bySimpleName(String simpleName) {
+    for (Class<?> checkClass : CheckClasses.getCheckClasses()) {
+      if (checkClass.getSimpleName().equals(simpleName)) {
+        return create(Set.of(checkClass.getAnnotation(Rule.class).key())).get(0);
+      }
+    }
+    throw new IllegalArgumentException("Unknown check: " + simpleName);
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static List<AbstractPageCheck> create(Collection<String> ruleKeys) {
+    ActiveRulesBuilder activeRules = new ActiveRulesBuilder();
+    for (String ruleKey : ruleKeys) {
+      activeRules.addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(HtmlRulesDefinition.REPOSITORY_KEY, ruleKey))
+        .build());
+    }
+    Checks<Object> checks = new CheckFactory(activeRules.build())
+      .create(HtmlRulesDefinition.REPOSITORY_KEY)
+      .addAnnotatedChecks((Iterable) CheckClasses.getCheckClasses());
+    return checks.all().stream()
+      .map(check -> {
+        AbstractPageCheck pageCheck = (AbstractPageCheck) check;
+        pageCheck.setRuleKey(checks.ruleKey(check));
+        return pageCheck;
+      })
+      .toList();
+  }
+
+}
@@ -0,0 +1,45 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.benchmarks;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.sonar.plugins.html.rules.CheckClasses;
+
+/**
+ * Launches the benchmarks like {@link Main}. {@link CheckBenchmark} runs on every one of the {@link CheckClasses},
+ * reported per check, unless some are selected with {@code -p check=Name1,Name2}.
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (!new CommandLineOptions(args).getParameter(CheckBenchmark.CHECK).hasValue()) {
+      String checks = CheckClasses.getCheckClasses().stream()
+        .map(Class::getSimpleName)
+        .collect(Collectors.joining(","));
+      args = Stream.concat(Arrays.stream(args), Stream.of("-p", CheckBenchmark.CHECK + "=" + checks)).toArray(String[]::new);
+    }
+    Main.main(args);
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.measures.Metric;
+import org.sonar.plugins.html.analyzers.ComplexityVisitor;
+import org.sonar.plugins.html.analyzers.PageCountLines;
+import org.sonar.plugins.html.benchmarks.Documents.Document;
+import org.sonar.plugins.html.benchmarks.Documents.LexedDocument;
+import org.sonar.plugins.html.visitor.HtmlAstScanner;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+/**
+ * Scan of already lexed inputs by a single check. The measures of the documents are computed once beforehand, so that
+ * the checks reading them do not include the cost of the metric visitors.
+ * <p>
+ * All the checks are run, one at a time, unless a subset is selected with {@code -p check=Name1,Name2}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class CheckBenchmark {
+
+  @Param({Documents.RESOURCES, Documents.NESTED, Documents.TABLE, Documents.SCRIPT, Documents.ATTRIBUTES})
+  public String input;
+
+  static final String CHECK = "check";
+
+  /**
+   * Simple name of one of the {@link org.sonar.plugins.html.rules.CheckClasses}, all of them being set by
+   * {@link BenchmarkMain} when none is given.
+   */
+  @Param
+  public String check;
+
+  private final List<LexedDocument> documents = new ArrayList<>();
+  private final List<Map<Metric<Integer>, Integer>> measures = new ArrayList<>();
+  private HtmlAstScanner scanner;
+
+  @Setup
+  public void setUp() {
+    scanner = new HtmlAstScanner(List.of(new PageCountLines(), new ComplexityVisitor()));
+    for (Document document : Documents.load(input)) {
+      LexedDocument lexedDocument = document.lex();
+      HtmlSourceCode sourceCode = lexedDocument.newSourceCode();
+      scanner.scan(lexedDocument.nodes(), sourceCode, lexedDocument.summary());
+      documents.add(lexedDocument);
+      measures.add(sourceCode.getMeasures());
+    }
+    scanner.addVisitor(ActiveChecks.bySimpleName(check));
+  }
+
+  @Benchmark
+  public void scan(Blackhole blackhole) {
+    for (int i = 0; i < documents.size(); i++) {
+      LexedDocument document = documents.get(i);
+      HtmlSourceCode sourceCode = document.newSourceCode();
+      measures.get(i).forEach(sourceCode::addMeasure);
+      scanner.scan(document.nodes(), sourceCode, document.summary(), visitor -> true);
+      blackhole.consume(sourceCode.getIssues());
+    }
+  }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.plugins.html.api.HtmlConstants;
+import org.sonar.plugins.html.lex.PageLexer;
+import org.sonar.plugins.html.lex.VueLexer;
+import org.sonar.plugins.html.node.DocumentSummary;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+/**
+ * Inputs of the benchmarks.
+ * <p>
+ * The "resources" input is made of the test resources of the plugin, read from the directory given by the
+ * {@value #RESOURCES_DIR_PROP} system property, or from {@value #DEFAULT_RESOURCES_DIR} when it is not set. The other
+ * inputs are single synthetic documents, large enough for the hot paths of the analysis to dominate.
+ */
+final class Documents {
+
+  static final String RESOURCES = "resources";
+  static final String NESTED = "nested";
+  static final String TABLE = "table";
+  static final String SCRIPT = "script";
+  static final String ATTRIBUTES = "attributes";
+
+  static final String RESOURCES_DIR_PROP = "html.benchmarks.resources";
+  static final String DEFAULT_RESOURCES_DIR = "../sonar-html-plugin/src/test/resources";
+
+  private Documents() {
+  }
+
+  static List<Document> load(String input) {
+    switch (input) {
+      case RESOURCES:
+        return resources(Paths.get(System.getProperty(RESOURCES_DIR_PROP, DEFAULT_RESOURCES_DIR)));
+      case NESTED:
+        return List.of(new Document("nested.html", nested(5_000)));
+      case TABLE:
+        return List.of(new Document("table.html", table(2_000, 20)));
+      case SCRIPT:
+        return List.of(new Document("script.html", script(50_000)));
+      case ATTRIBUTES:
+        return List.of(new Document("attributes.html", attributes(2_000, 50)));
+      default:
+        throw new IllegalArgumentException("Unknown benchmark input: " + input);
+    }
+  }
+
+  private static List<Document> resources(Path directory) {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      List<Document> documents = new ArrayList<>();
+      for (Path path : paths.filter(Files::isRegularFile).sorted().toList()) {
+        documents.add(new Document(directory.relativize(path).toString(), new String(Files.readAllBytes(path), StandardCharsets.UTF_8)));
+      }
+      if (documents.isEmpty()) {
+        throw new IllegalStateException("No benchmark input in " + directory.toAbsolutePath());
+      }
+      return documents;
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot read the benchmark inputs in " + directory.toAbsolutePath()
+        + ", set the " + RESOURCES_DIR_PROP + " system property to the test resources of the plugin", e);
+    }
+  }
+
+  /**
+   * Elements nested {@code depth} times, closed in reverse order.
+   */
+  static String nested(int depth) {
+    StringBuilder sb = new StringBuilder("<!DOCTYPE html>\n<html lang=\"en\">\n<body>\n");
+    for (int i = 0; i < depth; i++) {
+      sb.append(i % 2 == 0 ? "<div class=\"level\">\n" : "<span>text ").append(i).append('\n');
+    }
+    for (int i = depth - 1; i >= 0; i--) {
+      sb.append(i % 2 == 0 ? "</div>\n" : "</span>\n");
+    }
+    return sb.append("</body>\n</html>\n").toString();
+  }
+
+  /**
+   * A data table of {@code rows} rows of {@code columns} cells, whose cells reference their headers.
+   */
+  static String table(int rows, int columns) {
+    StringBuilder sb = new StringBuilder("<!DOCTYPE html>\n<html lang=\"en\">\n<body>\n<table>\n<caption>Data</caption>\n<tr>");
+    for (int column = 0; column < columns; column++) {
+      sb.append("<th id=\"h").append(column).append("\">Header ").append(column).append("</th>");
+    }
+    sb.append("</tr>\n");
+    for (int row = 0; row < rows; row++) {
+      sb.append("<tr>");
+      for (int column = 0; column < columns; column++) {
+        sb.append("<td headers=\"h").append(column).append("\">").append(row * columns + column).append("</td>");
+      }
+      sb.append("</tr>\n");
+    }
+    return sb.append("</table>\n</body>\n</html>\n").toString();
+  }
+
+  /**
+   * An inline script of {@code lines} lines.
+   */
+  static String script(int lines) {
+    StringBuilder sb = new StringBuilder("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<title>Script</title>\n<script>\n");
+    for (int line = 0; line < lines; line++) {
+      sb.append("  var value").append(line).append(" = compute('<div>' + ").append(line).append(" + \"</div>\");\n");
+    }
+    return sb.append("</script>\n</head>\n<body></body>\n</html>\n").toString();
+  }
+
+  /**
+   * {@code elements} elements having {@code attributes} attributes each.
+   */
+  static String attributes(int elements, int attributes) {
+    StringBuilder sb = new StringBuilder("<!DOCTYPE html>\n<html lang=\"en\">\n<body>\n");
+    for (int element = 0; element < elements; element++) {
+      sb.append("<input id=\"i").append(element).append('"');
+      for (int attribute = 0; attribute < attributes; attribute++) {
+        sb.append(" data-a").append(attribute).append("=\"").append(attribute).append('"');
+      }
+      sb.append(" aria-label=\"input\" onclick=\"select(").append(element).append(")\">\n");
+    }
+    return sb.append("</body>\n</html>\n").toString();
+  }
+
+  record Document(String name, String contents) {
+
+    boolean isVue() {
+      return name.endsWith(".vue");
+    }
+
+    PageLexer lexer() {
+      return isVue() ? new VueLexer() : new PageLexer();
+    }
+
+    LexedDocument lex() {
+      DocumentSummary summary = new DocumentSummary();
+      List<Node> nodes = lexer().parse(new StringReader(contents), summary);
+      return new LexedDocument(this, nodes, summary);
+    }
+
+    HtmlSourceCode newSourceCode() {
+      return new HtmlSourceCode(new TestInputFileBuilder("benchmarks", name)
+        .setLanguage(HtmlConstants.LANGUAGE_KEY)
+        .setType(InputFile.Type.MAIN)
+        .setCharset(StandardCharsets.UTF_8)
+        .setContents(contents)
+        .build());
+    }
+  }
+
+  /**
+   * A document with its nodes and summary, so that it can be scanned without being lexed again.
+   */
+  record LexedDocument(Document document, List<Node> nodes, DocumentSummary summary) {
+
+    HtmlSourceCode newSourceCode() {
+      return document.newSourceCode();
+    }
+  }
+
+}
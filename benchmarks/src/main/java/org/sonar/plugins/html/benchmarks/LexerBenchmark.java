@@ -0,0 +1,99 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.benchmarks;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.plugins.html.benchmarks.Documents.Document;
+import org.sonar.plugins.html.core.HtmlTokensVisitor;
+import org.sonar.plugins.html.lex.PageLexer;
+import org.sonar.plugins.html.lex.VueLexer;
+import org.sonar.plugins.html.node.DocumentSummary;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+/**
+ * Lexing of the inputs into nodes, and into the tokens used for highlighting and duplication detection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+
+  @Param({Documents.RESOURCES, Documents.NESTED, Documents.TABLE, Documents.SCRIPT, Documents.ATTRIBUTES})
+  public String input;
+
+  private List<Document> documents;
+  private HtmlTokensVisitor tokensVisitor;
+
+  @Setup
+  public void setUp() {
+    documents = Documents.load(input);
+    SensorContextTester context = SensorContextTester.create(Paths.get("."));
+    context.fileSystem().setEncoding(StandardCharsets.UTF_8);
+    tokensVisitor = new HtmlTokensVisitor(context);
+  }
+
+  @Benchmark
+  public void pageLexer(Blackhole blackhole) {
+    PageLexer lexer = new PageLexer();
+    for (Document document : documents) {
+      blackhole.consume(lexer.parse(new StringReader(document.contents()), new DocumentSummary()));
+    }
+  }
+
+  @Benchmark
+  public void vueLexer(Blackhole blackhole) {
+    VueLexer lexer = new VueLexer();
+    for (Document document : documents) {
+      blackhole.consume(lexer.parse(new StringReader(document.contents()), new DocumentSummary()));
+    }
+  }
+
+  /**
+   * Highlighting and duplication tokens, computed by the visitor of the sensor with the SSLR lexer of the plugin.
+   */
+  @Benchmark
+  public void highlighting(Blackhole blackhole) {
+    for (Document document : documents) {
+      HtmlSourceCode sourceCode = document.newSourceCode();
+      tokensVisitor.setSourceCode(sourceCode);
+      tokensVisitor.startDocument(List.of());
+      blackhole.consume(sourceCode.getHighlightings());
+      blackhole.consume(sourceCode.getCpdTokens());
+    }
+  }
+
+}
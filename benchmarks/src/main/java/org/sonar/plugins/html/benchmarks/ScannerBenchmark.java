@@ -0,0 +1,91 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.issue.NoSonarFilter;
+import org.sonar.plugins.html.analyzers.ComplexityVisitor;
+import org.sonar.plugins.html.analyzers.PageCountLines;
+import org.sonar.plugins.html.benchmarks.Documents.Document;
+import org.sonar.plugins.html.benchmarks.Documents.LexedDocument;
+import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.visitor.HtmlAstScanner;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+import org.sonar.plugins.html.visitor.NoSonarScanner;
+
+/**
+ * Scan of already lexed inputs by the metric visitors and the checks of the Sonar way profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScannerBenchmark {
+
+  @Param({Documents.RESOURCES, Documents.NESTED, Documents.TABLE, Documents.SCRIPT, Documents.ATTRIBUTES})
+  public String input;
+
+  private final List<LexedDocument> documents = new ArrayList<>();
+  private HtmlAstScanner scanner;
+
+  @Setup
+  public void setUp() {
+    for (Document document : Documents.load(input)) {
+      documents.add(document.lex());
+    }
+    scanner = new HtmlAstScanner(List.of(new PageCountLines(), new ComplexityVisitor(), new NoSonarScanner(new IgnoringNoSonarFilter())));
+    for (AbstractPageCheck check : ActiveChecks.sonarWay()) {
+      scanner.addVisitor(check);
+    }
+  }
+
+  @Benchmark
+  public void sonarWay(Blackhole blackhole) {
+    for (LexedDocument document : documents) {
+      HtmlSourceCode sourceCode = document.newSourceCode();
+      scanner.scan(document.nodes(), sourceCode, document.summary());
+      blackhole.consume(sourceCode.getIssues());
+    }
+  }
+
+  private static final class IgnoringNoSonarFilter extends NoSonarFilter {
+
+    @Override
+    public NoSonarFilter noSonarInFile(InputFile inputFile, Set<Integer> noSonarLines) {
+      return this;
+    }
+  }
+
+}
@@ -0,0 +1,231 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.cli;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps analyzers in a long-lived process, so that the analyses of a few files, as done by pre-commit hooks, do not
+ * each pay the startup of the JVM, the loading and the initialization of the checks, and the compilation of the lexer
+ * and the checks by the JIT.
+ * <p>
+ * The daemon only listens on the loopback interface, which other users of the machine can also reach. Each request
+ * thus starts with a line holding a random token, which the daemon writes to a file only readable by its owner, see
+ * {@link #tokenFile(Path, int)}. Requests with another token are rejected. The token is followed by a line made of the
+ * command line arguments separated by {@code NUL} characters, or {@value #STOP}. The response is made of the printed
+ * lines, each prefixed by {@value #ERR} or {@value #OUT}, followed by {@value #EXIT} and the exit code.
+ * <p>
+ * Requests are served one at a time. An analyzer is kept for each rules configuration, and is created again when its
+ * rules configuration file is modified.
+ */
+final class AnalysisDaemon implements Closeable {
+
+  static final String STOP = "--stop";
+  static final String OUT = "out ";
+  static final String ERR = "err ";
+  static final String EXIT = "exit ";
+  static final String SEPARATOR = "\0";
+
+  /**
+   * Time given to a client to send its request, so that a stuck client does not block the daemon.
+   */
+  private static final int REQUEST_TIMEOUT_MILLIS = 10_000;
+
+  private static final int TOKEN_BYTES = 32;
+
+  /**
+   * Directory of the token files of the daemons of the user.
+   */
+  static final Path TOKEN_DIRECTORY = Path.of(System.getProperty("user.home"), ".html-cli");
+
+  private final ServerSocket serverSocket;
+  private final Path tokenFile;
+  private final byte[] token;
+  private final PrintStream log;
+  private final Map<String, CachedAnalyzer> analyzers = new HashMap<>();
+  private volatile boolean stopped;
+
+  /**
+   * @param port port to listen on, or 0 for any free port
+   * @param tokenDirectory directory where the token file of the daemon is written
+   * @param log stream where the failures of the daemon itself are printed
+   */
+  AnalysisDaemon(int port, Path tokenDirectory, PrintStream log) throws IOException {
+    this.log = log;
+    serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    byte[] randomBytes = new byte[TOKEN_BYTES];
+    new SecureRandom().nextBytes(randomBytes);
+    String hexToken = HexFormat.of().formatHex(randomBytes);
+    token = hexToken.getBytes(StandardCharsets.UTF_8);
+    tokenFile = tokenFile(tokenDirectory, port());
+    try {
+      writeOwnerOnly(tokenFile, hexToken);
+      analyzer(Options.SONAR_WAY);
+    } catch (IOException | RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  int port() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * File holding the token that the requests to the daemon listening on the given port must start with.
+   */
+  static Path tokenFile(Path tokenDirectory, int port) {
+    return tokenDirectory.resolve("daemon-" + port + ".token");
+  }
+
+  /**
+   * Writes the token to a new file, so that the owner-only permissions are set before the token is written. A file left
+   * by a daemon that was killed is replaced. On file systems without POSIX permissions, the file gets the default
+   * permissions of the user's home directory.
+   */
+  private static void writeOwnerOnly(Path file, String content) throws IOException {
+    Path directory = file.getParent();
+    boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+    if (posix) {
+      Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+    } else {
+      Files.createDirectories(directory);
+    }
+    Files.deleteIfExists(file);
+    FileAttribute<?>[] attributes = posix
+      ? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))}
+      : new FileAttribute<?>[0];
+    Files.createFile(file, attributes);
+    Files.writeString(file, content, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Serves the requests until {@value #STOP} is requested, or until the daemon is closed.
+   */
+  void serve() {
+    while (!stopped && !serverSocket.isClosed()) {
+      try (Socket socket = serverSocket.accept()) {
+        serve(socket);
+      } catch (IOException e) {
+        if (!stopped && !serverSocket.isClosed()) {
+          log.println("Cannot serve HTML analysis request: " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  private void serve(Socket socket) throws IOException {
+    socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    String requestToken = reader.readLine();
+    String request = reader.readLine();
+    if (request == null) {
+      return;
+    }
+    socket.setSoTimeout(0);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream err = new ByteArrayOutputStream();
+    int exitCode;
+    if (!MessageDigest.isEqual(token, requestToken.getBytes(StandardCharsets.UTF_8))) {
+      log.println("Rejected HTML analysis request without the token of the daemon");
+      err.writeBytes(("Invalid token of the HTML analysis daemon, read from " + tokenFile).getBytes(StandardCharsets.UTF_8));
+      exitCode = HtmlCli.FAILURE;
+    } else if (STOP.equals(request)) {
+      stopped = true;
+      exitCode = HtmlCli.NO_ISSUE;
+    } else {
+      exitCode = HtmlCli.run(request.split(SEPARATOR), this::analyzer,
+        new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+    write(writer, ERR, err);
+    write(writer, OUT, out);
+    writer.write(EXIT + exitCode + "\n");
+    writer.flush();
+  }
+
+  private static void write(Writer writer, String prefix, ByteArrayOutputStream output) throws IOException {
+    for (String line : output.toString(StandardCharsets.UTF_8).lines().toList()) {
+      writer.write(prefix + line + "\n");
+    }
+  }
+
+  private synchronized DirectoryAnalyzer analyzer(String rules) {
+    FileTime modified = lastModified(rules);
+    CachedAnalyzer cached = analyzers.get(rules);
+    if (cached == null || !Objects.equals(cached.modified(), modified)) {
+      DirectoryAnalyzer analyzer = new DirectoryAnalyzer(RulesConfiguration.load(rules));
+      analyzer.warmUp();
+      cached = new CachedAnalyzer(modified, analyzer);
+      analyzers.put(rules, cached);
+    }
+    return cached.analyzer();
+  }
+
+  @CheckForNull
+  private static FileTime lastModified(String rules) {
+    if (Options.SONAR_WAY.equals(rules) || Options.ALL_RULES.equals(rules)) {
+      return null;
+    }
+    try {
+      return Files.getLastModifiedTime(Path.of(rules));
+    } catch (IOException e) {
+      // the rules configuration cannot be read, which is reported when loading it
+      return null;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    stopped = true;
+    try {
+      serverSocket.close();
+    } finally {
+      Files.deleteIfExists(tokenFile);
+    }
+  }
+
+  private record CachedAnalyzer(@Nullable FileTime modified, DirectoryAnalyzer analyzer) {
+  }
+
+}
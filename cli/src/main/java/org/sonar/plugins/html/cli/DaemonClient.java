@@ -0,0 +1,99 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Sends an analysis to the {@link AnalysisDaemon} listening on a port of the loopback interface, and prints its
+ * response as if the analysis was done by this process. The request is authenticated by the token that the daemon
+ * wrote to a file of the user.
+ */
+final class DaemonClient {
+
+  private DaemonClient() {
+  }
+
+  /**
+   * @throws IllegalArgumentException when the arguments are not valid
+   */
+  static int request(int port, String[] args, PrintStream out, PrintStream err) {
+    return request(AnalysisDaemon.TOKEN_DIRECTORY, port, args, out, err);
+  }
+
+  /**
+   * @param tokenDirectory directory where the daemon wrote its token file
+   * @throws IllegalArgumentException when the arguments are not valid
+   */
+  static int request(Path tokenDirectory, int port, String[] args, PrintStream out, PrintStream err) {
+    String request;
+    if (args.length == 1 && AnalysisDaemon.STOP.equals(args[0])) {
+      request = AnalysisDaemon.STOP;
+    } else {
+      Options options = Options.parse(args);
+      if (options == null) {
+        out.println(Options.USAGE);
+        return HtmlCli.NO_ISSUE;
+      }
+      // paths are resolved here, since the daemon may run in another directory
+      request = String.join(AnalysisDaemon.SEPARATOR, options.toArguments());
+    }
+
+    Path tokenFile = AnalysisDaemon.tokenFile(tokenDirectory, port);
+    String token;
+    try {
+      token = Files.readString(tokenFile, StandardCharsets.UTF_8).strip();
+    } catch (IOException e) {
+      err.println("Cannot read the token of the HTML analysis daemon on port " + port + " from " + tokenFile + ": " + e.getMessage());
+      return HtmlCli.FAILURE;
+    }
+
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+      writer.write(token + "\n");
+      writer.write(request + "\n");
+      writer.flush();
+
+      BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith(AnalysisDaemon.OUT)) {
+          out.println(line.substring(AnalysisDaemon.OUT.length()));
+        } else if (line.startsWith(AnalysisDaemon.ERR)) {
+          err.println(line.substring(AnalysisDaemon.ERR.length()));
+        } else if (line.startsWith(AnalysisDaemon.EXIT)) {
+          return Integer.parseInt(line.substring(AnalysisDaemon.EXIT.length()));
+        }
+      }
+      err.println("The HTML analysis daemon on port " + port + " closed the connection without response");
+    } catch (IOException e) {
+      err.println("Cannot reach the HTML analysis daemon on port " + port + ": " + e.getMessage());
+    }
+    return HtmlCli.FAILURE;
+  }
+
+}
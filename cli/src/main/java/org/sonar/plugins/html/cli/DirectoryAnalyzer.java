@@ -0,0 +1,193 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.cli;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.issue.internal.DefaultNoSonarFilter;
+import org.sonar.api.measures.Metric;
+import org.sonar.plugins.html.analyzers.ComplexityVisitor;
+import org.sonar.plugins.html.analyzers.PageCountLines;
+import org.sonar.plugins.html.api.HtmlConstants;
+import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.checks.HtmlIssue;
+import org.sonar.plugins.html.lex.PageLexer;
+import org.sonar.plugins.html.lex.VueLexer;
+import org.sonar.plugins.html.node.DocumentSummary;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.SourceText;
+import org.sonar.plugins.html.visitor.HtmlAstScanner;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+import org.sonar.plugins.html.visitor.LineSet;
+import org.sonar.plugins.html.visitor.NoSonarScanner;
+import org.sonar.plugins.html.visitor.VisitorProfiler;
+
+/**
+ * Lexes and scans the files of a directory with the same visitors as the sensor, except the highlighting and
+ * duplication tokens which are only meaningful to a SonarQube server. Issues on lines marked with NOSONAR are dropped.
+ */
+final class DirectoryAnalyzer {
+
+  private static final String PROJECT_KEY = "html-cli";
+  private static final String WARM_UP_DOCUMENT = "<!DOCTYPE html>\n<html lang=\"en\">\n<head><title>Warm-up</title></head>\n"
+    + "<body>\n<table><tr><th id=\"h\">H</th></tr><tr><td headers=\"h\">D</td></tr></table>\n"
+    + "<form><label for=\"i\">I</label><input id=\"i\" type=\"text\" onclick=\"f()\"></form>\n"
+    + "<img src=\"a.png\" alt=\"\" role=\"button\"><a href=\"#\" aria-label=\"link\">${link}</a>\n"
+    + "<script>var a = '<div>';</script><!-- comment -->\n</body>\n</html>\n";
+
+  private final HtmlAstScanner scanner;
+  private final int rules;
+
+  DirectoryAnalyzer(List<AbstractPageCheck> checks) {
+    scanner = new HtmlAstScanner(List.of(new PageCountLines(), new ComplexityVisitor(), new NoSonarScanner(new DefaultNoSonarFilter())));
+    checks.forEach(scanner::addVisitor);
+    rules = checks.size();
+  }
+
+  /**
+   * Number of active rules.
+   */
+  int rules() {
+    return rules;
+  }
+
+  /**
+   * Loads the classes and initializes the static data used by the lexer and the checks, by analyzing a small document.
+   */
+  void warmUp() {
+    scanner.setProfiler(null);
+    HtmlSourceCode sourceCode = new HtmlSourceCode(new TestInputFileBuilder(PROJECT_KEY, "warm-up.html")
+      .setType(InputFile.Type.MAIN)
+      .setLanguage(HtmlConstants.LANGUAGE_KEY)
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents(WARM_UP_DOCUMENT)
+      .build());
+    DocumentSummary summary = new DocumentSummary();
+    scanner.scan(new PageLexer().parse(new StringReader(WARM_UP_DOCUMENT), summary), sourceCode, summary);
+  }
+
+  /**
+   * Analyses are not concurrent, since checks keep the state of the document they scan.
+   *
+   * @return the results of the analyzed files, sorted by path
+   */
+  synchronized List<FileResult> analyze(Options options, @Nullable VisitorProfiler profiler) throws IOException {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(options.directory())) {
+      files = paths
+        .filter(Files::isRegularFile)
+        .filter(file -> hasSuffix(options, file))
+        .sorted()
+        .toList();
+    }
+    scanner.setProfiler(profiler);
+    List<FileResult> results = new ArrayList<>(files.size());
+    for (Path file : files) {
+      results.add(analyze(options, file));
+    }
+    return results;
+  }
+
+  private FileResult analyze(Options options, Path file) {
+    String path = options.directory().relativize(file).toString().replace('\\', '/');
+    long start = System.nanoTime();
+    long readTime = 0;
+    long lexTime = 0;
+    try {
+      HtmlSourceCode sourceCode = read(options, file, path);
+      SourceText source = sourceCode.getSourceText();
+      long size = source.length();
+      readTime = System.nanoTime() - start;
+
+      long lexStart = System.nanoTime();
+      PageLexer lexer = path.endsWith(".vue") ? new VueLexer(options.stateMachine()) : new PageLexer(options.stateMachine());
+      DocumentSummary summary = new DocumentSummary();
+      List<Node> nodes = lexer.parse(source, summary);
+      lexTime = System.nanoTime() - lexStart;
+
+      long scanStart = System.nanoTime();
+      scanner.scan(nodes, sourceCode, summary);
+      long scanTime = System.nanoTime() - scanStart;
+
+      return new FileResult(path, size, issues(sourceCode), sourceCode, null, readTime, lexTime, scanTime);
+    } catch (IOException | RuntimeException e) {
+      return new FileResult(path, 0, List.of(), null, e, readTime, lexTime, System.nanoTime() - start - readTime - lexTime);
+    }
+  }
+
+  private static HtmlSourceCode read(Options options, Path file, String path) throws IOException {
+    String contents = new String(Files.readAllBytes(file), options.encoding());
+    if (contents.startsWith("\uFEFF")) {
+      contents = contents.substring(1);
+    }
+    InputFile inputFile = new TestInputFileBuilder(PROJECT_KEY, path)
+      .setModuleBaseDir(options.directory())
+      .setType(InputFile.Type.MAIN)
+      .setLanguage(language(path))
+      .setCharset(options.encoding())
+      .setContents(contents)
+      .build();
+    return new HtmlSourceCode(inputFile);
+  }
+
+  private static List<HtmlIssue> issues(HtmlSourceCode sourceCode) {
+    LineSet noSonarLines = sourceCode.getNoSonarLines();
+    return sourceCode.getIssues().stream()
+      .filter(issue -> issue.line() == null || !noSonarLines.contains(issue.line().intValue()))
+      .toList();
+  }
+
+  private static boolean hasSuffix(Options options, Path file) {
+    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+    return options.suffixes().stream().anyMatch(name::endsWith);
+  }
+
+  private static String language(String path) {
+    String name = path.toLowerCase(Locale.ROOT);
+    for (String suffix : HtmlConstants.JSP_FILE_EXTENSIONS_DEF_VALUE.split(",")) {
+      if (name.endsWith(suffix)) {
+        return HtmlConstants.JSP_LANGUAGE_KEY;
+      }
+    }
+    return HtmlConstants.LANGUAGE_KEY;
+  }
+
+  /**
+   * @param sourceCode results of the visitors, or null when the analysis failed
+   * @param error failure of the analysis, or null when it succeeded
+   */
+  record FileResult(String path, long size, List<HtmlIssue> issues, @Nullable HtmlSourceCode sourceCode, @Nullable Exception error,
+    long readTime, long lexTime, long scanTime) {
+
+    @CheckForNull
+    Integer measure(Metric<Integer> metric) {
+      return sourceCode == null ? null : sourceCode.getMeasure(metric);
+    }
+  }
+
+}
@@ -0,0 +1,264 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Metric;
+import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.checks.HtmlIssue;
+import org.sonar.plugins.html.checks.PreciseHtmlIssue;
+import org.sonar.plugins.html.cli.DirectoryAnalyzer.FileResult;
+import org.sonar.plugins.html.visitor.DefaultNodeVisitor;
+import org.sonar.plugins.html.visitor.VisitorProfiler;
+import org.sonar.plugins.html.visitor.VisitorProfiler.Cost;
+
+/**
+ * Analyzes a directory with the HTML rules, without SonarQube server nor scanner, to reproduce, measure and bisect the
+ * analysis of real projects, or to check files before committing them.
+ * <p>
+ * Issues are printed as {@code <path>:<line>:<column>: <message> (<rule>)}, followed by the measures and the time spent
+ * reading, lexing and scanning the files.
+ * <p>
+ * With {@value #DAEMON}, the analyzers are kept warm by an {@link AnalysisDaemon}, to which the same command with
+ * {@value #PORT} sends its analyses. The client is authenticated by a token that the daemon writes to a file only
+ * readable by the user, in {@code ~/.html-cli}.
+ */
+public final class HtmlCli {
+
+  static final int NO_ISSUE = 0;
+  static final int ISSUES = 1;
+  static final int FAILURE = 2;
+
+  static final String DAEMON = "--daemon";
+  static final String PORT = "--port";
+
+  private static final int PROFILED_ENTRIES = 20;
+
+  private HtmlCli() {
+  }
+
+  public static void main(String[] args) {
+    System.exit(run(args, System.out, System.err));
+  }
+
+  /**
+   * @return the exit code: {@value #NO_ISSUE} when no issue is found, {@value #ISSUES} when issues are found, and
+   * {@value #FAILURE} when the arguments are not valid or a file cannot be analyzed
+   */
+  static int run(String[] args, PrintStream out, PrintStream err) {
+    try {
+      if (args.length > 0 && DAEMON.equals(args[0])) {
+        return serve(port(args), args.length, out, err);
+      } else if (args.length > 0 && PORT.equals(args[0])) {
+        return DaemonClient.request(port(args), Arrays.copyOfRange(args, 2, args.length), out, err);
+      }
+    } catch (IllegalArgumentException e) {
+      return usage(e, err);
+    }
+    return run(args, rules -> new DirectoryAnalyzer(RulesConfiguration.load(rules)), out, err);
+  }
+
+  /**
+   * Analyzes a directory with the analyzer of the rules configuration given in the arguments.
+   */
+  static int run(String[] args, Function<String, DirectoryAnalyzer> analyzers, PrintStream out, PrintStream err) {
+    Options options;
+    DirectoryAnalyzer analyzer;
+    try {
+      options = Options.parse(args);
+      if (options == null) {
+        out.println(Options.USAGE);
+        return NO_ISSUE;
+      }
+      analyzer = analyzers.apply(options.rules());
+    } catch (IllegalArgumentException e) {
+      return usage(e, err);
+    }
+
+    VisitorProfiler profiler = options.profile() ? new VisitorProfiler() : null;
+    List<FileResult> results;
+    long start = System.nanoTime();
+    try {
+      results = analyzer.analyze(options, profiler);
+    } catch (IOException e) {
+      err.println("Cannot list the files of " + options.directory() + ": " + e.getMessage());
+      return FAILURE;
+    }
+    long totalTime = System.nanoTime() - start;
+
+    int issues = 0;
+    int failures = 0;
+    for (FileResult result : results) {
+      if (result.error() != null) {
+        failures++;
+        err.println(result.path() + ": analysis failed: " + result.error());
+      }
+      for (HtmlIssue issue : sorted(result.issues())) {
+        issues++;
+        out.println(location(result.path(), issue) + ": " + issue.message() + " (" + issue.ruleKey() + ")");
+      }
+    }
+    if (options.metrics()) {
+      for (FileResult result : results) {
+        out.println(String.format(Locale.ROOT, "%s: %s, %.3f ms", result.path(), measures(result), (result.lexTime() + result.scanTime()) / 1e6));
+      }
+    }
+    printSummary(out, results, analyzer.rules(), issues, failures, totalTime);
+    if (profiler != null) {
+      printProfile(out, profiler, results);
+    }
+
+    if (failures > 0) {
+      return FAILURE;
+    }
+    return issues > 0 ? ISSUES : NO_ISSUE;
+  }
+
+  private static int serve(int port, int arguments, PrintStream out, PrintStream err) {
+    if (arguments > 2) {
+      throw new IllegalArgumentException("The daemon takes no other option than its port");
+    }
+    try (AnalysisDaemon daemon = new AnalysisDaemon(port, AnalysisDaemon.TOKEN_DIRECTORY, err)) {
+      out.println("HTML analysis daemon listening on port " + daemon.port());
+      daemon.serve();
+      return NO_ISSUE;
+    } catch (IOException e) {
+      err.println("Cannot start the HTML analysis daemon on port " + port + ": " + e.getMessage());
+      return FAILURE;
+    }
+  }
+
+  private static int port(String[] args) {
+    if (args.length < 2) {
+      throw new IllegalArgumentException("Missing value of " + args[0]);
+    }
+    try {
+      int port = Integer.parseInt(args[1]);
+      if (port < 0 || port > 0xFFFF) {
+        throw new IllegalArgumentException("Invalid port: " + args[1]);
+      }
+      return port;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid port: " + args[1], e);
+    }
+  }
+
+  private static int usage(IllegalArgumentException e, PrintStream err) {
+    err.println(e.getMessage());
+    err.println(Options.USAGE);
+    return FAILURE;
+  }
+
+  private static List<HtmlIssue> sorted(List<HtmlIssue> issues) {
+    List<HtmlIssue> sorted = new ArrayList<>(issues);
+    sorted.sort(Comparator.<HtmlIssue>comparingInt(issue -> issue.line() == null ? 0 : issue.line())
+      .thenComparingInt(issue -> issue instanceof PreciseHtmlIssue preciseHtmlIssue ? preciseHtmlIssue.startColumn() : -1));
+    return sorted;
+  }
+
+  /**
+   * Lines and columns are printed from 1, as editors do.
+   */
+  private static String location(String path, HtmlIssue issue) {
+    if (issue.line() == null) {
+      return path;
+    } else if (issue instanceof PreciseHtmlIssue preciseHtmlIssue) {
+      return path + ":" + issue.line() + ":" + (preciseHtmlIssue.startColumn() + 1);
+    }
+    return path + ":" + issue.line();
+  }
+
+  private static String measures(FileResult result) {
+    return "ncloc=" + measure(result, CoreMetrics.NCLOC)
+      + ", comment_lines=" + measure(result, CoreMetrics.COMMENT_LINES)
+      + ", complexity=" + measure(result, CoreMetrics.COMPLEXITY);
+  }
+
+  private static String measure(FileResult result, Metric<Integer> metric) {
+    Integer value = result.measure(metric);
+    return value == null ? "-" : value.toString();
+  }
+
+  private static void printSummary(PrintStream out, List<FileResult> results, int rules, int issues, int failures, long totalTime) {
+    long size = 0;
+    long readTime = 0;
+    long lexTime = 0;
+    long scanTime = 0;
+    for (FileResult result : results) {
+      size += result.size();
+      readTime += result.readTime();
+      lexTime += result.lexTime();
+      scanTime += result.scanTime();
+    }
+    double seconds = Math.max(totalTime, 1) / 1e9;
+    double megabytes = size / (1024.0 * 1024.0);
+
+    out.println(String.format(Locale.ROOT, "Analyzed %d files (%.2f MB) with %d rules: %d issues, %d failures",
+      results.size(), megabytes, rules, issues, failures));
+    out.println(String.format(Locale.ROOT, "Lines of code: %d, comment lines: %d, complexity: %d",
+      total(results, CoreMetrics.NCLOC), total(results, CoreMetrics.COMMENT_LINES), total(results, CoreMetrics.COMPLEXITY)));
+    out.println(String.format(Locale.ROOT, "Time: read %.1f ms, lex %.1f ms, scan %.1f ms, total %.1f ms (%.1f files/s, %.2f MB/s)",
+      readTime / 1e6, lexTime / 1e6, scanTime / 1e6, totalTime / 1e6, results.size() / seconds, megabytes / seconds));
+  }
+
+  private static long total(List<FileResult> results, Metric<Integer> metric) {
+    long total = 0;
+    for (FileResult result : results) {
+      Integer value = result.measure(metric);
+      total += value == null ? 0 : value;
+    }
+    return total;
+  }
+
+  private static void printProfile(PrintStream out, VisitorProfiler profiler, List<FileResult> results) {
+    List<Map.Entry<DefaultNodeVisitor, Cost>> visitors = new ArrayList<>(profiler.costsByVisitor().entrySet());
+    visitors.sort(Comparator.<Map.Entry<DefaultNodeVisitor, Cost>>comparingLong(entry -> entry.getValue().wallTime()).reversed());
+    out.println(String.format(Locale.ROOT, "%-50s | %14s | %13s | %14s", "Rule", "Wall time (ms)", "CPU time (ms)", "Allocated (MB)"));
+    for (Map.Entry<DefaultNodeVisitor, Cost> entry : visitors.subList(0, Math.min(PROFILED_ENTRIES, visitors.size()))) {
+      Cost cost = entry.getValue();
+      out.println(String.format(Locale.ROOT, "%-50s | %14.3f | %13.3f | %14.3f",
+        name(entry.getKey()), cost.wallTime() / 1e6, cost.cpuTime() / 1e6, cost.allocatedBytes() / (1024.0 * 1024.0)));
+    }
+
+    List<FileResult> files = new ArrayList<>(results);
+    files.sort(Comparator.comparingLong((FileResult result) -> result.lexTime() + result.scanTime()).reversed());
+    out.println(String.format(Locale.ROOT, "%-50s | %13s | %14s", "File", "Lex time (ms)", "Scan time (ms)"));
+    for (FileResult result : files.subList(0, Math.min(PROFILED_ENTRIES, files.size()))) {
+      out.println(String.format(Locale.ROOT, "%-50s | %13.3f | %14.3f", result.path(), result.lexTime() / 1e6, result.scanTime() / 1e6));
+    }
+  }
+
+  /**
+   * Checks are named after their rule, other visitors after their class.
+   */
+  private static String name(DefaultNodeVisitor visitor) {
+    if (visitor instanceof AbstractPageCheck check && check.getRuleKey() != null) {
+      return check.getRuleKey().toString();
+    }
+    return visitor.getClass().getSimpleName();
+  }
+
+}
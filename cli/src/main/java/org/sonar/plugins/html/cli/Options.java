@@ -0,0 +1,165 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.cli;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.annotation.CheckForNull;
+import org.sonar.plugins.html.api.HtmlConstants;
+
+/**
+ * Command line arguments.
+ *
+ * @param rules {@value #SONAR_WAY}, {@value #ALL_RULES}, or the path of a rules configuration file
+ */
+record Options(Path directory, List<String> suffixes, String rules, Charset encoding, boolean stateMachine, boolean metrics, boolean profile) {
+
+  static final String SONAR_WAY = "sonar-way";
+  static final String ALL_RULES = "all";
+
+  static final String USAGE = String.join(System.lineSeparator(),
+    "usage: html-cli [options] <directory>",
+    "       html-cli --daemon <port>",
+    "       html-cli --port <port> [options] <directory>",
+    "       html-cli --port <port> --stop",
+    "",
+    "Analyzes the files of the directory with the HTML rules, prints the issues, the measures and the time spent.",
+    "Exits with 1 when issues are found, and with 2 when the analysis fails.",
+    "With --daemon, the analyzer is kept warm in a process listening on the loopback interface, to which --port sends",
+    "the analyses, and --stop the request to stop.",
+    "",
+    "options:",
+    "  --suffixes <list>   comma-separated suffixes of the analyzed files",
+    "                      (default: " + HtmlConstants.FILE_EXTENSIONS_DEF_VALUE + "," + HtmlConstants.JSP_FILE_EXTENSIONS_DEF_VALUE + ")",
+    "  --rules <rules>     " + SONAR_WAY + ", " + ALL_RULES + " or a properties file of rule keys and parameters (default: " + SONAR_WAY + ")",
+    "  --encoding <name>   encoding of the files (default: UTF-8)",
+    "  --state-machine     tokenize with the single pass state machine",
+    "  --metrics           print the measures of each file",
+    "  --profile           print the time spent and the memory allocated by each rule",
+    "  --help              print this help");
+
+  /**
+   * @return the options, or null when the help was requested
+   * @throws IllegalArgumentException when the arguments are not valid
+   */
+  @CheckForNull
+  static Options parse(String... args) {
+    Path directory = null;
+    List<String> suffixes = suffixes(HtmlConstants.FILE_EXTENSIONS_DEF_VALUE + "," + HtmlConstants.JSP_FILE_EXTENSIONS_DEF_VALUE);
+    String rules = SONAR_WAY;
+    Charset encoding = StandardCharsets.UTF_8;
+    boolean stateMachine = false;
+    boolean metrics = false;
+    boolean profile = false;
+
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      switch (arg) {
+        case "--help":
+          return null;
+        case "--suffixes":
+          suffixes = suffixes(value(args, ++i, arg));
+          break;
+        case "--rules":
+          rules = value(args, ++i, arg);
+          break;
+        case "--encoding":
+          encoding = charset(value(args, ++i, arg));
+          break;
+        case "--state-machine":
+          stateMachine = true;
+          break;
+        case "--metrics":
+          metrics = true;
+          break;
+        case "--profile":
+          profile = true;
+          break;
+        default:
+          if (arg.startsWith("-")) {
+            throw new IllegalArgumentException("Unknown option: " + arg);
+          } else if (directory != null) {
+            throw new IllegalArgumentException("Only one directory can be analyzed, got " + directory + " and " + arg);
+          }
+          directory = Path.of(arg);
+      }
+    }
+
+    if (directory == null) {
+      throw new IllegalArgumentException("Missing directory to analyze");
+    } else if (!Files.isDirectory(directory)) {
+      throw new IllegalArgumentException("Not a directory: " + directory);
+    }
+    return new Options(directory, suffixes, rules, encoding, stateMachine, metrics, profile);
+  }
+
+  /**
+   * Arguments giving the same options from any working directory.
+   */
+  List<String> toArguments() {
+    List<String> args = new ArrayList<>(List.of(
+      "--suffixes", String.join(",", suffixes),
+      "--rules", SONAR_WAY.equals(rules) || ALL_RULES.equals(rules) ? rules : Path.of(rules).toAbsolutePath().toString(),
+      "--encoding", encoding.name()));
+    if (stateMachine) {
+      args.add("--state-machine");
+    }
+    if (metrics) {
+      args.add("--metrics");
+    }
+    if (profile) {
+      args.add("--profile");
+    }
+    args.add(directory.toAbsolutePath().toString());
+    return args;
+  }
+
+  private static String value(String[] args, int index, String option) {
+    if (index >= args.length) {
+      throw new IllegalArgumentException("Missing value of " + option);
+    }
+    return args[index];
+  }
+
+  private static List<String> suffixes(String value) {
+    List<String> suffixes = new ArrayList<>();
+    for (String suffix : value.split(",")) {
+      String trimmed = suffix.trim().toLowerCase(Locale.ROOT);
+      if (!trimmed.isEmpty()) {
+        suffixes.add(trimmed.startsWith(".") ? trimmed : ("." + trimmed));
+      }
+    }
+    if (suffixes.isEmpty()) {
+      throw new IllegalArgumentException("No file suffix given");
+    }
+    return suffixes;
+  }
+
+  private static Charset charset(String name) {
+    try {
+      return Charset.forName(name);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown encoding: " + name, e);
+    }
+  }
+
+}
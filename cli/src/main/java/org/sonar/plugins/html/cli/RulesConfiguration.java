@@ -0,0 +1,133 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.cli;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.Checks;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.check.Rule;
+import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.rules.CheckClasses;
+import org.sonar.plugins.html.rules.HtmlRulesDefinition;
+import org.sonar.plugins.html.rules.SonarWayProfile;
+import org.sonarsource.analyzer.commons.BuiltInQualityProfileJsonLoader;
+
+/**
+ * Instantiates the checks of the active rules the way the sensor does.
+ * <p>
+ * A rules configuration file is a properties file, where each key without a dot activates a rule, and each
+ * {@code <rule key>.<parameter>} key activates a rule and sets one of its parameters:
+ * <pre>
+ * DoctypePresenceCheck
+ * MaxLineLengthCheck.maxLength = 120
+ * </pre>
+ * Parameters which are not set keep their default value.
+ */
+final class RulesConfiguration {
+
+  private RulesConfiguration() {
+  }
+
+  static List<AbstractPageCheck> load(String rules) {
+    if (Options.SONAR_WAY.equals(rules)) {
+      return create(toRules(BuiltInQualityProfileJsonLoader.loadActiveKeysFromJsonProfile(SonarWayProfile.JSON_PROFILE_PATH)));
+    } else if (Options.ALL_RULES.equals(rules)) {
+      return create(toRules(allRuleKeys()));
+    }
+    return create(read(Path.of(rules)));
+  }
+
+  /**
+   * @return the parameters of each rule, by rule key
+   */
+  private static Map<String, Map<String, String>> read(Path path) {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Cannot read rules configuration " + path, e);
+    }
+
+    Set<String> knownRuleKeys = allRuleKeys();
+    Map<String, Map<String, String>> rules = new LinkedHashMap<>();
+    for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+      int dot = key.indexOf('.');
+      String ruleKey = dot < 0 ? key : key.substring(0, dot);
+      if (!knownRuleKeys.contains(ruleKey)) {
+        throw new IllegalArgumentException("Unknown rule " + ruleKey + " in " + path);
+      }
+      Map<String, String> parameters = rules.computeIfAbsent(ruleKey, k -> new LinkedHashMap<>());
+      if (dot >= 0) {
+        parameters.put(key.substring(dot + 1), properties.getProperty(key).trim());
+      }
+    }
+    return rules;
+  }
+
+  private static Set<String> allRuleKeys() {
+    Set<String> ruleKeys = new TreeSet<>();
+    for (Class<?> checkClass : CheckClasses.getCheckClasses()) {
+      ruleKeys.add(checkClass.getAnnotation(Rule.class).key());
+    }
+    return ruleKeys;
+  }
+
+  private static Map<String, Map<String, String>> toRules(Collection<String> ruleKeys) {
+    Map<String, Map<String, String>> rules = new LinkedHashMap<>();
+    for (String ruleKey : ruleKeys) {
+      rules.put(ruleKey, Map.of());
+    }
+    return rules;
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static List<AbstractPageCheck> create(Map<String, Map<String, String>> rules) {
+    ActiveRulesBuilder activeRules = new ActiveRulesBuilder();
+    rules.forEach((ruleKey, parameters) -> {
+      NewActiveRule.Builder activeRule = new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(HtmlRulesDefinition.REPOSITORY_KEY, ruleKey));
+      parameters.forEach(activeRule::setParam);
+      activeRules.addRule(activeRule.build());
+    });
+    Checks<Object> checks = new CheckFactory(activeRules.build())
+      .create(HtmlRulesDefinition.REPOSITORY_KEY)
+      .addAnnotatedChecks((Iterable) CheckClasses.getCheckClasses());
+    List<AbstractPageCheck> pageChecks = new ArrayList<>();
+    for (Object check : checks.all()) {
+      AbstractPageCheck pageCheck = (AbstractPageCheck) check;
+      pageCheck.setRuleKey(checks.ruleKey(check));
+      pageChecks.add(pageCheck);
+    }
+    return pageChecks;
+  }
+
+}
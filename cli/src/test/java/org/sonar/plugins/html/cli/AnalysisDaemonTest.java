@@ -0,0 +1,177 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AnalysisDaemonTest {
+
+  @TempDir
+  Path directory;
+
+  @TempDir
+  Path configuration;
+
+  @TempDir
+  Path tokens;
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+  private AnalysisDaemon daemon;
+  private CompletableFuture<Void> served;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Files.writeString(directory.resolve("page.html"), "<html>\n<img src=\"a.png\">\n</html>\n");
+    daemon = new AnalysisDaemon(0, tokens, new PrintStream(err, true, StandardCharsets.UTF_8));
+    served = CompletableFuture.runAsync(daemon::serve);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    daemon.close();
+  }
+
+  @Test
+  void analyses_are_done_by_the_daemon() throws IOException {
+    Path rules = configuration.resolve("rules.properties");
+    Files.writeString(rules, "ImgWithoutAltCheck\n");
+
+    assertThat(request("--rules", rules.toString(), "--metrics", directory.toString())).isEqualTo(HtmlCli.ISSUES);
+    assertThat(out()).contains(
+      "page.html:2:1: Add an \"alt\" attribute to this image. (Web:ImgWithoutAltCheck)",
+      "page.html: ncloc=3, comment_lines=0, complexity=1, ",
+      "Analyzed 1 files (0.00 MB) with 1 rules: 1 issues, 0 failures");
+
+    // the analyzer is kept, and the same results are given again
+    out.reset();
+    assertThat(request("--rules", rules.toString(), directory.toString())).isEqualTo(HtmlCli.ISSUES);
+    assertThat(out()).contains("(Web:ImgWithoutAltCheck)");
+
+    // the analyzer is created again when its rules configuration is modified
+    Files.writeString(rules, "DoctypePresenceCheck\n");
+    Files.setLastModifiedTime(rules, FileTime.from(Instant.now().plusSeconds(10)));
+    out.reset();
+    assertThat(request("--rules", rules.toString(), directory.toString())).isEqualTo(HtmlCli.ISSUES);
+    assertThat(out()).contains("(Web:DoctypePresenceCheck)").doesNotContain("(Web:ImgWithoutAltCheck)");
+  }
+
+  @Test
+  void failures_are_printed_by_the_client() throws IOException {
+    Path rules = configuration.resolve("rules.properties");
+    Files.writeString(rules, "UnknownCheck\n");
+
+    assertThat(request("--rules", rules.toString(), directory.toString())).isEqualTo(HtmlCli.FAILURE);
+    assertThat(err()).contains("Unknown rule UnknownCheck in ", "usage: html-cli");
+
+    assertThat(request("--unknown", directory.toString())).isEqualTo(HtmlCli.FAILURE);
+    assertThat(err()).contains("Unknown option: --unknown");
+  }
+
+  @Test
+  void stop() throws Exception {
+    assertThat(request(AnalysisDaemon.STOP)).isEqualTo(HtmlCli.NO_ISSUE);
+    served.get(10, TimeUnit.SECONDS);
+
+    daemon.close();
+    assertThat(AnalysisDaemon.tokenFile(tokens, daemon.port())).doesNotExist();
+    assertThat(request(directory.toString())).isEqualTo(HtmlCli.FAILURE);
+    assertThat(err()).contains("Cannot read the token of the HTML analysis daemon on port " + daemon.port());
+  }
+
+  @Test
+  void token_file_is_only_readable_by_its_owner() throws IOException {
+    Path tokenFile = AnalysisDaemon.tokenFile(tokens, daemon.port());
+    assertThat(Files.readString(tokenFile)).matches("[0-9a-f]{64}");
+    assumeTrue(tokens.getFileSystem().supportedFileAttributeViews().contains("posix"));
+    assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile))).isEqualTo("rw-------");
+  }
+
+  @Test
+  void requests_without_the_token_are_rejected() throws Exception {
+    assertThat(rawRequest("0".repeat(64), directory.toString()))
+      .contains(AnalysisDaemon.ERR + "Invalid token of the HTML analysis daemon", AnalysisDaemon.EXIT + HtmlCli.FAILURE)
+      .doesNotContain(AnalysisDaemon.OUT);
+    assertThat(rawRequest("", AnalysisDaemon.STOP)).contains(AnalysisDaemon.EXIT + HtmlCli.FAILURE);
+    // a request without its token line is not served
+    assertThat(rawRequest(AnalysisDaemon.STOP)).isEmpty();
+    assertThat(served).isNotDone();
+    assertThat(err()).contains("Rejected HTML analysis request without the token of the daemon");
+
+    // the daemon still serves the requests with the token
+    assertThat(request(directory.toString())).isEqualTo(HtmlCli.ISSUES);
+  }
+
+  @Test
+  void invalid_port() {
+    assertThat(HtmlCli.run(new String[] {HtmlCli.PORT, "http"}, printStream(out), printStream(err))).isEqualTo(HtmlCli.FAILURE);
+    assertThat(err()).contains("Invalid port: http");
+
+    assertThat(HtmlCli.run(new String[] {HtmlCli.DAEMON}, printStream(out), printStream(err))).isEqualTo(HtmlCli.FAILURE);
+    assertThat(err()).contains("Missing value of --daemon");
+  }
+
+  private int request(String... args) {
+    return DaemonClient.request(tokens, daemon.port(), args, printStream(out), printStream(err));
+  }
+
+  private String rawRequest(String... lines) throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.port())) {
+      Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+      for (String line : lines) {
+        writer.write(line + "\n");
+      }
+      writer.flush();
+      socket.shutdownOutput();
+      return new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static PrintStream printStream(ByteArrayOutputStream output) {
+    return new PrintStream(output, true, StandardCharsets.UTF_8);
+  }
+
+  private String out() {
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  private String err() {
+    return err.toString(StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.plugins.html.rules.CheckClasses;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HtmlCliTest {
+
+  @TempDir
+  Path directory;
+
+  @TempDir
+  Path configuration;
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+  private String rules;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    Files.writeString(directory.resolve("page.html"), "<html>\n<img src=\"a.png\">\n</html>\n");
+    Files.writeString(directory.resolve("page.txt"), "<img src=\"b.png\">\n");
+    rules = rules("ImgWithoutAltCheck\n");
+  }
+
+  @Test
+  void issues_measures_and_time_are_printed() {
+    assertThat(run("--rules", rules, directory.toString())).isEqualTo(HtmlCli.ISSUES);
+
+    assertThat(out()).contains(
+      "page.html:2:1: Add an \"alt\" attribute to this image. (Web:ImgWithoutAltCheck)",
+      "Analyzed 1 files (0.00 MB) with 1 rules: 1 issues, 0 failures",
+      "Lines of code: 3, comment lines: 0, complexity: 1",
+      "Time: read ");
+    assertThat(out()).doesNotContain("page.txt", "ncloc=");
+    assertThat(err()).isEmpty();
+  }
+
+  @Test
+  void measures_of_each_file() {
+    run("--rules", rules, "--metrics", directory.toString());
+
+    assertThat(out()).contains("page.html: ncloc=3, comment_lines=0, complexity=1, ");
+  }
+
+  @Test
+  void suffixes() {
+    run("--rules", rules, "--suffixes", "txt", directory.toString());
+
+    assertThat(out()).contains("page.txt:1:1: Add an \"alt\" attribute to this image. (Web:ImgWithoutAltCheck)");
+    assertThat(out()).doesNotContain("page.html");
+  }
+
+  @Test
+  void no_issue_on_nosonar_lines() throws IOException {
+    Files.writeString(directory.resolve("page.html"), "<img src=\"a.png\"> <!-- //NOSONAR -->\n");
+
+    assertThat(run("--rules", rules, directory.toString())).isEqualTo(HtmlCli.NO_ISSUE);
+    assertThat(out()).contains("Analyzed 1 files (0.00 MB) with 1 rules: 0 issues, 0 failures");
+  }
+
+  @Test
+  void rule_parameters() throws IOException {
+    Files.writeString(directory.resolve("page.html"), "<p>This line is longer than twenty characters</p>\n");
+
+    run("--rules", rules("MaxLineLengthCheck.maxLength = 20\n"), directory.toString());
+
+    assertThat(out()).contains("page.html:1: Split this 49 characters long line (which is greater than 20 authorized). (Web:MaxLineLengthCheck)");
+  }
+
+  @Test
+  void all_rules_with_profiling() {
+    run("--rules", "all", "--profile", directory.toString());
+
+    assertThat(out()).contains(
+      "with " + CheckClasses.getCheckClasses().size() + " rules",
+      "Web:DoctypePresenceCheck",
+      "Wall time (ms)",
+      "Lex time (ms)");
+  }
+
+  @Test
+  void sonar_way_by_default() {
+    run(directory.toString());
+
+    assertThat(out()).contains("(Web:ImgWithoutAltCheck)").doesNotContain("(Web:HeaderCheck)");
+  }
+
+  @Test
+  void help() {
+    assertThat(run("--help")).isEqualTo(HtmlCli.NO_ISSUE);
+    assertThat(out()).startsWith("usage: html-cli [options] <directory>");
+  }
+
+  @Test
+  void invalid_arguments() throws IOException {
+    assertThat(run("--unknown", directory.toString())).isEqualTo(HtmlCli.FAILURE);
+    assertThat(err()).startsWith("Unknown option: --unknown").contains("usage: html-cli");
+
+    assertThat(run()).isEqualTo(HtmlCli.FAILURE);
+    assertThat(err()).contains("Missing directory to analyze");
+
+    assertThat(run(directory.resolve("page.html").toString())).isEqualTo(HtmlCli.FAILURE);
+    assertThat(err()).contains("Not a directory: ");
+
+    assertThat(run("--rules")).isEqualTo(HtmlCli.FAILURE);
+    assertThat(err()).contains("Missing value of --rules");
+
+    assertThat(run("--rules", rules("UnknownCheck\n"), directory.toString())).isEqualTo(HtmlCli.FAILURE);
+    assertThat(err()).contains("Unknown rule UnknownCheck in ");
+
+    assertThat(run("--encoding", "unknown", directory.toString())).isEqualTo(HtmlCli.FAILURE);
+    assertThat(err()).contains("Unknown encoding: unknown");
+  }
+
+  private int run(String... args) {
+    return HtmlCli.run(args, new PrintStream(out, true, StandardCharsets.UTF_8), new PrintStream(err, true, StandardCharsets.UTF_8));
+  }
+
+  private String rules(String contents) throws IOException {
+    Path path = Files.createTempFile(configuration, "rules", ".properties");
+    Files.writeString(path, contents);
+    return path.toString();
+  }
+
+  private String out() {
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  private String err() {
+    return err.toString(StandardCharsets.UTF_8);
+  }
+
+}
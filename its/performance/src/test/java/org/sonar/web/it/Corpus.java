@@ -0,0 +1,160 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.web.it;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the files analyzed by {@link WebPerformanceTest}. The corpus is always the same, so that results can be
+ * compared across commits: ordinary pages make most of it, and the other files stress the analysis with deep nesting,
+ * huge tables, giant inline scripts and elements with many attributes.
+ */
+final class Corpus {
+
+  private static final long SEED = 42;
+
+  private final Random random = new Random(SEED);
+  private final Path baseDir;
+  private final List<Path> files = new ArrayList<>();
+
+  private Corpus(Path baseDir) {
+    this.baseDir = baseDir;
+  }
+
+  static List<Path> generate(Path baseDir) throws IOException {
+    Corpus corpus = new Corpus(baseDir);
+    for (int i = 0; i < 300; i++) {
+      corpus.write("pages/page" + i + ".html", corpus.page(20 + corpus.random.nextInt(60)));
+    }
+    for (int i = 0; i < 20; i++) {
+      corpus.write("nested/nested" + i + ".html", nested(1_000 + corpus.random.nextInt(2_000)));
+    }
+    for (int i = 0; i < 20; i++) {
+      corpus.write("tables/table" + i + ".html", table(200 + corpus.random.nextInt(800), 10));
+    }
+    for (int i = 0; i < 10; i++) {
+      corpus.write("scripts/script" + i + ".html", script(2_000 + corpus.random.nextInt(8_000)));
+    }
+    for (int i = 0; i < 20; i++) {
+      corpus.write("attributes/attributes" + i + ".html", attributes(100 + corpus.random.nextInt(300), 20 + corpus.random.nextInt(40)));
+    }
+    return corpus.files;
+  }
+
+  private void write(String relativePath, String contents) throws IOException {
+    Path file = baseDir.resolve(relativePath);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, contents, StandardCharsets.UTF_8);
+    files.add(file);
+  }
+
+  /**
+   * A page made of {@code sections} sections of usual markup, some of which raise issues.
+   */
+  private String page(int sections) {
+    StringBuilder sb = new StringBuilder("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n<title>Page</title>\n")
+      .append("<link rel=\"stylesheet\" href=\"style.css\">\n</head>\n<body>\n<nav><ul>\n");
+    for (int i = 0; i < 10; i++) {
+      sb.append("<li><a href=\"page").append(i).append(".html\">Page ").append(i).append("</a></li>\n");
+    }
+    sb.append("</ul></nav>\n");
+    for (int section = 0; section < sections; section++) {
+      switch (random.nextInt(5)) {
+        case 0:
+          sb.append("<form action=\"submit\" method=\"post\">\n<label for=\"f").append(section).append("\">Name</label>\n")
+            .append("<input id=\"f").append(section).append("\" type=\"text\" name=\"name\" autocomplete=\"name\">\n")
+            .append("<select name=\"choice\"><option value=\"1\">One</option><option value=\"2\">Two</option></select>\n")
+            .append("<button type=\"submit\" onclick=\"validate()\">Send</button>\n</form>\n");
+          break;
+        case 1:
+          sb.append("<div class=\"gallery\">\n<img src=\"image").append(section).append(".png\">\n")
+            .append("<img src=\"photo.jpg\" alt=\"photo of the item\" width=\"100\" height=\"100\">\n</div>\n");
+          break;
+        case 2:
+          sb.append("<!-- TODO: ").append(section).append(" -->\n<p style=\"color: red\">Some <b>bold</b> and <i>italic</i> text, ")
+            .append("with a <a href=\"#\" target=\"_blank\">link</a>.</p>\n");
+          break;
+        case 3:
+          sb.append("<table>\n<tr><th>Name</th><th>Value</th></tr>\n");
+          for (int row = 0; row < 5; row++) {
+            sb.append("<tr><td>name").append(row).append("</td><td>").append(row).append("</td></tr>\n");
+          }
+          sb.append("</table>\n");
+          break;
+        default:
+          sb.append("<section>\n<h2>Section ").append(section).append("</h2>\n<p>${item.description}</p>\n")
+            .append("<script>document.getElementById('s").append(section).append("').focus();</script>\n</section>\n");
+          break;
+      }
+    }
+    return sb.append("</body>\n</html>\n").toString();
+  }
+
+  private static String nested(int depth) {
+    StringBuilder sb = new StringBuilder("<!DOCTYPE html>\n<html lang=\"en\">\n<head><title>Nested</title></head>\n<body>\n");
+    for (int i = 0; i < depth; i++) {
+      sb.append(i % 2 == 0 ? "<div class=\"level\">\n" : "<span>text ").append(i).append('\n');
+    }
+    for (int i = depth - 1; i >= 0; i--) {
+      sb.append(i % 2 == 0 ? "</div>\n" : "</span>\n");
+    }
+    return sb.append("</body>\n</html>\n").toString();
+  }
+
+  private static String table(int rows, int columns) {
+    StringBuilder sb = new StringBuilder("<!DOCTYPE html>\n<html lang=\"en\">\n<head><title>Table</title></head>\n<body>\n<table>\n<caption>Data</caption>\n<tr>");
+    for (int column = 0; column < columns; column++) {
+      sb.append("<th id=\"h").append(column).append("\">Header ").append(column).append("</th>");
+    }
+    sb.append("</tr>\n");
+    for (int row = 0; row < rows; row++) {
+      sb.append("<tr>");
+      for (int column = 0; column < columns; column++) {
+        sb.append("<td headers=\"h").append(column).append("\">").append(row * columns + column).append("</td>");
+      }
+      sb.append("</tr>\n");
+    }
+    return sb.append("</table>\n</body>\n</html>\n").toString();
+  }
+
+  private static String script(int lines) {
+    StringBuilder sb = new StringBuilder("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<title>Script</title>\n<script>\n");
+    for (int line = 0; line < lines; line++) {
+      sb.append("  var value").append(line).append(" = compute('<div>' + ").append(line).append(" + \"</div>\");\n");
+    }
+    return sb.append("</script>\n</head>\n<body></body>\n</html>\n").toString();
+  }
+
+  private static String attributes(int elements, int attributes) {
+    StringBuilder sb = new StringBuilder("<!DOCTYPE html>\n<html lang=\"en\">\n<head><title>Attributes</title></head>\n<body>\n");
+    for (int element = 0; element < elements; element++) {
+      sb.append("<input id=\"i").append(element).append('"');
+      for (int attribute = 0; attribute < attributes; attribute++) {
+        sb.append(" data-a").append(attribute).append("=\"").append(attribute).append('"');
+      }
+      sb.append(" aria-label=\"input\" onclick=\"select(").append(element).append(")\">\n");
+    }
+    return sb.append("</body>\n</html>\n").toString();
+  }
+
+}
@@ -0,0 +1,274 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.web.it;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.stream.Stream;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.SonarEdition;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.batch.sensor.issue.internal.DefaultNoSonarFilter;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.FileLinesContext;
+import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.Version;
+import org.sonar.plugins.html.api.HtmlConstants;
+import org.sonar.plugins.html.core.HtmlSensor;
+import org.sonar.plugins.html.rules.HtmlRulesDefinition;
+import org.sonar.plugins.html.rules.SonarWayProfile;
+import org.sonarsource.analyzer.commons.BuiltInQualityProfileJsonLoader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Analyzes a generated corpus with the Sonar way profile, without any server, and compares the throughput and the peak
+ * heap usage of the analysis with the baseline stored in {@value #BASELINE}.
+ * <p>
+ * The comparison is skipped, and reported as such, until the values measured on the reference machine have been
+ * stored in the baseline, which otherwise holds the tolerances alone.
+ * <p>
+ * It also checks that only the window of the lexer is held in memory when a file is analyzed in streaming mode.
+ * <p>
+ * The results are written to {@value #RESULTS}. Run with {@code -Dperformance.updateBaseline=true} to store them as the
+ * new baseline, after an intended change of performance or on a new reference machine.
+ */
+public class WebPerformanceTest {
+
+  private static final String BASELINE = "src/test/resources/performance-baseline.properties";
+  private static final String RESULTS = "target/performance-results.properties";
+  private static final String UPDATE_BASELINE_PROP = "performance.updateBaseline";
+
+  private static final int WARMUP_RUNS = 1;
+  private static final int MEASURED_RUNS = 3;
+
+  private static final String FILES_PER_SECOND = "filesPerSecond";
+  private static final String MEGABYTES_PER_SECOND = "megabytesPerSecond";
+  private static final String PEAK_HEAP_MEGABYTES = "peakHeapMegabytes";
+  private static final String THROUGHPUT_TOLERANCE = "throughputTolerance";
+  private static final String HEAP_TOLERANCE = "heapTolerance";
+
+  private static final SonarRuntime RUNTIME = SonarRuntimeImpl.forSonarQube(Version.create(10, 1), SonarQubeSide.SCANNER, SonarEdition.COMMUNITY);
+
+  @ClassRule
+  public static TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void throughput_and_peak_heap_should_not_regress() throws IOException {
+    Path baseDir = temp.newFolder("corpus").toPath();
+    List<Path> files = Corpus.generate(baseDir);
+    long bytes = 0;
+    for (Path file : files) {
+      bytes += Files.size(file);
+    }
+
+    HtmlSensor sensor = sonarWaySensor();
+    for (int i = 0; i < WARMUP_RUNS; i++) {
+      analyze(sensor, baseDir, files);
+    }
+    Result best = null;
+    for (int i = 0; i < MEASURED_RUNS; i++) {
+      Result result = analyze(sensor, baseDir, files);
+      best = best == null ? result : best.bestOf(result);
+    }
+    Properties results = best.toProperties(files.size(), bytes);
+    store(results, Paths.get(RESULTS));
+
+    if (Boolean.getBoolean(UPDATE_BASELINE_PROP)) {
+      Properties baseline = load(Paths.get(BASELINE));
+      results.setProperty(THROUGHPUT_TOLERANCE, baseline.getProperty(THROUGHPUT_TOLERANCE));
+      results.setProperty(HEAP_TOLERANCE, baseline.getProperty(HEAP_TOLERANCE));
+      store(results, Paths.get(BASELINE));
+      return;
+    }
+
+    Properties baseline = load(Paths.get(BASELINE));
+    double throughputTolerance = value(baseline, THROUGHPUT_TOLERANCE);
+    double heapTolerance = value(baseline, HEAP_TOLERANCE);
+    List<String> missing = Stream.of(FILES_PER_SECOND, MEGABYTES_PER_SECOND, PEAK_HEAP_MEGABYTES)
+      .filter(key -> !baseline.containsKey(key))
+      .toList();
+    assumeTrue("No measured " + String.join(", ", missing) + " in " + BASELINE + ", store them with -D" + UPDATE_BASELINE_PROP + "=true",
+      missing.isEmpty());
+    assertThat(value(results, FILES_PER_SECOND))
+      .as("files per second, baseline is %s", baseline.getProperty(FILES_PER_SECOND))
+      .isGreaterThanOrEqualTo(value(baseline, FILES_PER_SECOND) * (1 - throughputTolerance));
+    assertThat(value(results, MEGABYTES_PER_SECOND))
+      .as("MB per second, baseline is %s", baseline.getProperty(MEGABYTES_PER_SECOND))
+      .isGreaterThanOrEqualTo(value(baseline, MEGABYTES_PER_SECOND) * (1 - throughputTolerance));
+    assertThat(value(results, PEAK_HEAP_MEGABYTES))
+      .as("peak heap in MB, baseline is %s", baseline.getProperty(PEAK_HEAP_MEGABYTES))
+      .isLessThanOrEqualTo(value(baseline, PEAK_HEAP_MEGABYTES) * (1 + heapTolerance));
+  }
+
+  /**
+   * A file analyzed in streaming mode is not kept as a string, and neither its nodes nor its highlighting and
+   * duplication tokens are kept: the file is sized so that its characters alone would not fit in the heap of the tests.
+   * Only the window of the lexer, which holds the longest token, is held in memory.
+   */
+  @Test
+  public void streamed_file_should_be_analyzed_in_bounded_memory() throws IOException {
+    Path baseDir = temp.newFolder("large").toPath();
+    Path file = baseDir.resolve("large.html");
+    String line = "<p>text</p>\n";
+    long lines = Runtime.getRuntime().maxMemory() / 2 / line.length();
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      for (long i = 0; i < lines; i++) {
+        writer.write(line);
+      }
+    }
+
+    SensorContextTester context = SensorContextTester.create(baseDir).setRuntime(RUNTIME);
+    context.fileSystem().setEncoding(StandardCharsets.UTF_8);
+    context.settings().setProperty(HtmlConstants.STREAMING_THRESHOLD_PROP_KEY, 1_000_000);
+    context.fileSystem().add(TestInputFileBuilder.create("performance", baseDir.toFile(), file.toFile())
+      .setLanguage(HtmlConstants.LANGUAGE_KEY)
+      .setType(InputFile.Type.MAIN)
+      .setCharset(StandardCharsets.UTF_8)
+      .build());
+
+    sonarWaySensor().execute(context);
+
+    assertThat(context.allAnalysisErrors()).isEmpty();
+    assertThat(context.allIssues()).isEmpty();
+    assertThat(context.measure("performance:large.html", CoreMetrics.NCLOC).value()).isEqualTo((int) lines);
+    assertThat(context.cpdTokens("performance:large.html")).isNull();
+  }
+
+  private static HtmlSensor sonarWaySensor() {
+    ActiveRulesBuilder activeRules = new ActiveRulesBuilder();
+    for (String ruleKey : BuiltInQualityProfileJsonLoader.loadActiveKeysFromJsonProfile(SonarWayProfile.JSON_PROFILE_PATH)) {
+      activeRules.addRule(new NewActiveRule.Builder().setRuleKey(RuleKey.of(HtmlRulesDefinition.REPOSITORY_KEY, ruleKey)).build());
+    }
+    FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
+    when(fileLinesContextFactory.createFor(any(InputFile.class))).thenReturn(mock(FileLinesContext.class));
+    return new HtmlSensor(RUNTIME, new DefaultNoSonarFilter(), fileLinesContextFactory, new CheckFactory(activeRules.build()));
+  }
+
+  /**
+   * Only the execution of the sensor is measured: the input files are indexed beforehand, and the heap is collected
+   * so that the peak usage of the analysis does not include garbage left by previous runs.
+   */
+  private static Result analyze(HtmlSensor sensor, Path baseDir, List<Path> files) throws IOException {
+    SensorContextTester context = SensorContextTester.create(baseDir).setRuntime(RUNTIME);
+    context.fileSystem().setEncoding(StandardCharsets.UTF_8);
+    context.settings().setProperty(HtmlConstants.ANALYSIS_THREADS_PROP_KEY, 1);
+    for (Path file : files) {
+      context.fileSystem().add(TestInputFileBuilder.create("performance", baseDir.toFile(), file.toFile())
+        .setLanguage(HtmlConstants.LANGUAGE_KEY)
+        .setType(InputFile.Type.MAIN)
+        .setCharset(StandardCharsets.UTF_8)
+        .initMetadata(Files.readString(file, StandardCharsets.UTF_8))
+        .build());
+    }
+
+    List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        heapPools.add(pool);
+      }
+    }
+    System.gc();
+    heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+    long start = System.nanoTime();
+    sensor.execute(context);
+    long elapsed = System.nanoTime() - start;
+
+    long peakHeap = 0;
+    for (MemoryPoolMXBean pool : heapPools) {
+      peakHeap += pool.getPeakUsage().getUsed();
+    }
+    assertThat(context.allAnalysisErrors()).isEmpty();
+    return new Result(elapsed, peakHeap);
+  }
+
+  private static double value(Properties properties, String key) {
+    String value = properties.getProperty(key);
+    if (value == null) {
+      throw new IllegalStateException("Missing " + key + " in the performance baseline");
+    }
+    return Double.parseDouble(value);
+  }
+
+  private static Properties load(Path path) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(path)) {
+      properties.load(in);
+    }
+    return properties;
+  }
+
+  private static void store(Properties properties, Path path) throws IOException {
+    Files.createDirectories(path.toAbsolutePath().getParent());
+    try (OutputStream out = Files.newOutputStream(path)) {
+      properties.store(out, "Analysis of the generated corpus with the Sonar way profile");
+    }
+  }
+
+  private record Result(long elapsedNanos, long peakHeapBytes) {
+
+    /**
+     * Runs are disturbed by the machine rather than by the analysis, so the fastest time and the lowest peak are kept.
+     */
+    Result bestOf(Result other) {
+      return new Result(Math.min(elapsedNanos, other.elapsedNanos), Math.min(peakHeapBytes, other.peakHeapBytes));
+    }
+
+    Properties toProperties(int files, long bytes) {
+      double seconds = elapsedNanos / 1e9;
+      Properties properties = new Properties();
+      properties.setProperty(FILES_PER_SECOND, format(files / seconds));
+      properties.setProperty(MEGABYTES_PER_SECOND, format(bytes / 1e6 / seconds));
+      properties.setProperty(PEAK_HEAP_MEGABYTES, format(peakHeapBytes / 1e6));
+      return properties;
+    }
+
+    private static String format(double value) {
+      return String.format(Locale.ROOT, "%.1f", value);
+    }
+  }
+
+}
@@ -0,0 +1,230 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.web.it;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.html.analyzers.ComplexityVisitor;
+import org.sonar.plugins.html.analyzers.PageCountLines;
+import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.lex.PageLexer;
+import org.sonar.plugins.html.node.DocumentSummary;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.rules.CheckClasses;
+import org.sonar.plugins.html.rules.HtmlRulesDefinition;
+import org.sonar.plugins.html.visitor.DefaultNodeVisitor;
+import org.sonar.plugins.html.visitor.HtmlAstScanner;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Analyzes adversarial inputs of growing size, and flags the lexers and visitors whose time grows much faster than
+ * the input: a linear component is {@value #GROWTH} times slower on an input {@value #GROWTH} times larger, while a
+ * quadratic one is {@value #GROWTH} times slower again.
+ * <p>
+ * Being based on the CPU time of the analysis, it is run with the performance tests rather than with the unit tests.
+ */
+@RunWith(Parameterized.class)
+public class WorstCaseComplexityTest {
+
+  private static final int SIZE = 500;
+  private static final int GROWTH = 4;
+  private static final double MAX_SLOWDOWN = 2.0 * GROWTH;
+  private static final int REPETITIONS = 5;
+
+  /**
+   * Below this time on the larger input, the measures are dominated by noise and the slowdown is not checked.
+   */
+  private static final long MIN_MEASURED_NANOS = 2_000_000;
+
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  enum Generator {
+    UNCLOSED_ELEMENTS(n -> "<div>".repeat(n)),
+    MISMATCHED_END_TAGS(n -> "<div>".repeat(n) + "</span>".repeat(n)),
+    DEEP_NESTING(n -> "<div>\n".repeat(n) + "</div>\n".repeat(n)),
+    TALL_TABLE(n -> table(n, 2)),
+    WIDE_TABLE(n -> table(2, n)),
+    MANY_ATTRIBUTES(WorstCaseComplexityTest::attributes),
+    MANY_SIBLINGS(n -> "<p><a href=\"#\">link</a> <img src=\"image.png\"></p>\n".repeat(n)),
+    LONG_SCRIPT(n -> "<script>\nvar html = '<div>' + value + \"</div>\";\n".repeat(n) + "</script>\n");
+
+    private final IntFunction<String> generator;
+
+    Generator(IntFunction<String> generator) {
+      this.generator = generator;
+    }
+
+    String generate(int size) {
+      return generator.apply(size);
+    }
+  }
+
+  private final Generator generator;
+
+  public WorstCaseComplexityTest(Generator generator) {
+    this.generator = generator;
+  }
+
+  @Parameters(name = "{0}")
+  public static Collection<Generator> generators() {
+    return Arrays.asList(Generator.values());
+  }
+
+  /**
+   * Wall-clock time includes the time during which the thread is not running, which is too noisy to compare inputs.
+   */
+  @Before
+  public void cpu_time_is_measured() {
+    assumeTrue(THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported());
+  }
+
+  @Test
+  public void lexers_should_scale_linearly() {
+    String small = generator.generate(SIZE);
+    String large = generator.generate(SIZE * GROWTH);
+
+    List<String> superLinear = new ArrayList<>();
+    for (boolean stateMachine : new boolean[] {false, true}) {
+      String name = stateMachine ? "PageLexer with the state machine tokenizer" : "PageLexer with the channel tokenizers";
+      lexingTime(stateMachine, small);
+      lexingTime(stateMachine, large);
+      checkSlowdown(name, minimum(() -> lexingTime(stateMachine, small)), minimum(() -> lexingTime(stateMachine, large)), superLinear);
+    }
+
+    assertThat(superLinear).as("lexers slowing down more than %s times on %s", MAX_SLOWDOWN, generator).isEmpty();
+  }
+
+  @Test
+  public void visitors_should_scale_linearly() {
+    Input small = new Input(generator.generate(SIZE));
+    Input large = new Input(generator.generate(SIZE * GROWTH));
+
+    List<String> superLinear = new ArrayList<>();
+    for (DefaultNodeVisitor visitor : visitors()) {
+      scanTime(visitor, small);
+      scanTime(visitor, large);
+      checkSlowdown(visitor.getClass().getSimpleName(), minimum(() -> scanTime(visitor, small)), minimum(() -> scanTime(visitor, large)), superLinear);
+    }
+
+    assertThat(superLinear).as("visitors slowing down more than %s times on %s", MAX_SLOWDOWN, generator).isEmpty();
+  }
+
+  private static void checkSlowdown(String name, long smallTime, long largeTime, List<String> superLinear) {
+    double slowdown = (double) largeTime / Math.max(smallTime, 1);
+    if (largeTime >= MIN_MEASURED_NANOS && slowdown > MAX_SLOWDOWN) {
+      superLinear.add(String.format("%s: %.1f times slower (%d us -> %d us)", name, slowdown, smallTime / 1000, largeTime / 1000));
+    }
+  }
+
+  private static long minimum(LongSupplier measure) {
+    long minimum = Long.MAX_VALUE;
+    for (int i = 0; i < REPETITIONS; i++) {
+      minimum = Math.min(minimum, measure.getAsLong());
+    }
+    return minimum;
+  }
+
+  private static long lexingTime(boolean stateMachine, String code) {
+    PageLexer lexer = new PageLexer(stateMachine);
+    long start = cpuTime();
+    lexer.parse(new StringReader(code), new DocumentSummary());
+    return cpuTime() - start;
+  }
+
+  /**
+   * Each visitor is run alone, so that its time is not mixed with the time of the others.
+   */
+  private static long scanTime(DefaultNodeVisitor visitor, Input input) {
+    HtmlAstScanner scanner = new HtmlAstScanner(List.of());
+    scanner.addVisitor(visitor);
+    HtmlSourceCode sourceCode = new HtmlSourceCode(new TestInputFileBuilder("key", "generated.html")
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents(input.code())
+      .build());
+    long start = cpuTime();
+    scanner.scan(input.nodes(), sourceCode);
+    return cpuTime() - start;
+  }
+
+  private static List<DefaultNodeVisitor> visitors() {
+    List<DefaultNodeVisitor> visitors = new ArrayList<>(List.of(new PageCountLines(), new ComplexityVisitor()));
+    for (Class<?> checkClass : CheckClasses.getCheckClasses()) {
+      try {
+        AbstractPageCheck check = (AbstractPageCheck) checkClass.getDeclaredConstructor().newInstance();
+        check.setRuleKey(RuleKey.of(HtmlRulesDefinition.REPOSITORY_KEY, checkClass.getSimpleName()));
+        visitors.add(check);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Cannot create " + checkClass, e);
+      }
+    }
+    return visitors;
+  }
+
+  private static long cpuTime() {
+    return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+  }
+
+  private static String table(int rows, int columns) {
+    StringBuilder sb = new StringBuilder("<table>\n<tr>");
+    for (int column = 0; column < columns; column++) {
+      sb.append("<th id=\"h").append(column).append("\">").append(column).append("</th>");
+    }
+    sb.append("</tr>\n");
+    for (int row = 0; row < rows; row++) {
+      sb.append("<tr>");
+      for (int column = 0; column < columns; column++) {
+        sb.append("<td headers=\"h").append(column).append("\">").append(row).append("</td>");
+      }
+      sb.append("</tr>\n");
+    }
+    return sb.append("</table>\n").toString();
+  }
+
+  private static String attributes(int attributes) {
+    StringBuilder sb = new StringBuilder("<input");
+    for (int attribute = 0; attribute < attributes; attribute++) {
+      sb.append(" data-a").append(attribute).append("=\"").append(attribute).append('"');
+    }
+    return sb.append(" onclick=\"select()\">\n").toString();
+  }
+
+  private record Input(String code, List<Node> nodes) {
+
+    Input(String code) {
+      this(code, new PageLexer().parse(new StringReader(code)));
+    }
+  }
+
+}
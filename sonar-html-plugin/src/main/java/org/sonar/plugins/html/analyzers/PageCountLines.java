@@ -16,89 +16,130 @@
  */
 package org.sonar.plugins.html.analyzers;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import javax.annotation.Nullable;
 import org.sonar.api.measures.CoreMetrics;
+import org.sonar.plugins.html.node.CommentNode;
+import org.sonar.plugins.html.node.DirectiveNode;
+import org.sonar.plugins.html.node.ExpressionNode;
 import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.SourceText;
+import org.sonar.plugins.html.node.TagNode;
 import org.sonar.plugins.html.node.TextNode;
 import org.sonar.plugins.html.visitor.DefaultNodeVisitor;
 import org.sonar.plugins.html.visitor.HtmlSourceCode;
+import org.sonar.plugins.html.visitor.LineSet;
 
 /**
  * Count lines of code in web files.
+ * <p>
+ * Lines are counted from the node events, so that this visitor also works on documents analyzed in streaming mode.
  *
 
  */
 public class PageCountLines extends DefaultNodeVisitor {
 
-  private final Set<Integer> detailedLinesOfCode = new HashSet<>();
-  private final Set<Integer> detailedLinesOfComments = new HashSet<>();
+  private final LineSet detailedLinesOfComments = new LineSet();
+  private LineSet detailedLinesOfCode = new LineSet();
+  private boolean firstNode;
 
   @Override
   public void startDocument(List<Node> nodes) {
-    detailedLinesOfCode.clear();
+    // the lines of code are kept by the source code of the previous document
+    detailedLinesOfCode = new LineSet();
     detailedLinesOfComments.clear();
+    firstNode = true;
+  }
 
-    if(getHtmlSourceCode().shouldComputeMetric()) {
-      count(nodes);
+  @Override
+  public void endDocument() {
+    if (getHtmlSourceCode().shouldComputeMetric()) {
+      addMeasures();
     }
   }
 
-  private void addMeasures() {
-    HtmlSourceCode htmlSourceCode = getHtmlSourceCode();
+  @Override
+  public void startElement(TagNode node) {
+    handleCode(node);
+  }
 
-    htmlSourceCode.addMeasure(CoreMetrics.NCLOC, detailedLinesOfCode.size());
-    htmlSourceCode.addMeasure(CoreMetrics.COMMENT_LINES, detailedLinesOfComments.size());
+  @Override
+  public void endElement(TagNode node) {
+    // other tags are counted when they start
+    if (node.isEndElement()) {
+      handleCode(node);
+    }
+  }
 
-    htmlSourceCode.setDetailedLinesOfCode(detailedLinesOfCode);
+  @Override
+  public void directive(DirectiveNode node) {
+    handleCode(node);
+  }
+
+  @Override
+  public void expression(ExpressionNode node) {
+    handleCode(node);
   }
 
-  private void count(List<Node> nodeList) {
-    for (int i = 0; i < nodeList.size(); i++) {
-      Node node = nodeList.get(i);
-      Node previousNode = i > 0 ? nodeList.get(i - 1) : null;
-      handleToken(node, previousNode);
+  @Override
+  public void comment(CommentNode node) {
+    if (getHtmlSourceCode().shouldComputeMetric() && !firstNode) {
+      addLineNumbers(node, detailedLinesOfComments);
     }
-    addMeasures();
+    firstNode = false;
   }
 
-  private void handleToken(Node node, @Nullable Node previousNode) {
-    switch (node.getNodeType()) {
-      case TAG, DIRECTIVE, EXPRESSION:
-        addLineNumbers(node, detailedLinesOfCode);
-        break;
-      case COMMENT:
-        handleTokenComment(node, previousNode);
-        break;
-      case TEXT:
-        handleDetailedTextToken((TextNode) node);
-        break;
-      default:
-        break;
+  @Override
+  public void characters(TextNode textNode) {
+    if (getHtmlSourceCode().shouldComputeMetric()) {
+      handleDetailedTextToken(textNode);
     }
+    firstNode = false;
   }
 
-  private void handleTokenComment(Node node, @Nullable Node previousNode) {
-    if (previousNode != null) {
-      addLineNumbers(node, detailedLinesOfComments);
+  private void addMeasures() {
+    HtmlSourceCode htmlSourceCode = getHtmlSourceCode();
+
+    htmlSourceCode.addMeasure(CoreMetrics.NCLOC, detailedLinesOfCode.size());
+    htmlSourceCode.addMeasure(CoreMetrics.COMMENT_LINES, detailedLinesOfComments.size());
+
+    htmlSourceCode.setDetailedLinesOfCode(detailedLinesOfCode);
+  }
+
+  private void handleCode(Node node) {
+    if (getHtmlSourceCode().shouldComputeMetric()) {
+      addLineNumbers(node, detailedLinesOfCode);
     }
+    firstNode = false;
   }
 
+  /**
+   * Only the lines with non-blank characters of the text are code, their blankness is read from the content of the
+   * file, so that the text is not split into lines. The content of a streamed file is not available, so the code of
+   * the text itself is read then.
+   */
   private void handleDetailedTextToken(TextNode textNode) {
-    String[] element = textNode.getCode().split("\n", -1);
+    if (getHtmlSourceCode().isStreamed()) {
+      SourceText code = new SourceText(textNode.getCode());
+      for (int line = 1; line <= code.lineCount(); line++) {
+        if (!code.isBlankLine(line)) {
+          detailedLinesOfCode.add(textNode.getStartLinePosition() + line - 1);
+        }
+      }
+      return;
+    }
+    SourceText text = getHtmlSourceCode().getSourceText();
     int startLine = textNode.getStartLinePosition();
-    for (int i = 0; i < element.length; i++) {
-      if (!element[i].isBlank()) {
-        detailedLinesOfCode.add(startLine + i);
+    int endLine = Math.min(textNode.getEndLinePosition(), text.lineCount());
+    for (int line = startLine; line <= endLine; line++) {
+      int start = text.lineStartOffset(line) + (line == startLine ? textNode.getStartColumnPosition() : 0);
+      int end = line == endLine ? (text.lineStartOffset(line) + textNode.getEndColumnPosition()) : text.lineEndOffset(line);
+      if (!text.isBlank(start, Math.min(end, text.length()))) {
+        detailedLinesOfCode.add(line);
       }
     }
   }
 
-  private static void addLineNumbers(Node node, Set<Integer> detailedLines) {
-    for (int i = node.getStartLinePosition(); i <= node.getEndLinePosition(); i++) {
-      detailedLines.add(i);
-    }
+  private static void addLineNumbers(Node node, LineSet detailedLines) {
+    detailedLines.addRange(node.getStartLinePosition(), node.getEndLinePosition());
   }
 }
@@ -16,12 +16,14 @@
  */
 package org.sonar.plugins.html.api;
 
+import java.util.BitSet;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 
 import org.sonar.plugins.html.api.accessibility.AriaRole;
+import org.sonar.plugins.html.node.HtmlElements;
 import org.sonar.plugins.html.node.TagNode;
 
 public class HtmlConstants {
@@ -40,6 +42,28 @@ public class HtmlConstants {
   public static final String FILE_EXTENSIONS_DEF_VALUE = ".html,.xhtml,.cshtml,.vbhtml,.aspx,.ascx,.rhtml,.erb,.shtm,.shtml,.cmp,.twig";
   public static final String JSP_FILE_EXTENSIONS_PROP_KEY = "sonar.jsp.file.suffixes";
   public static final String JSP_FILE_EXTENSIONS_DEF_VALUE = ".jsp,.jspf,.jspx";
+
+  // ================ Analysis properties ================
+
+  /** Number of threads used to analyze files, sequential analysis when lower than 2. */
+  public static final String ANALYSIS_THREADS_PROP_KEY = "sonar.html.analysis.threads";
+
+  /** Whether pages are tokenized by the single pass state machine instead of the tokenizer channels. */
+  public static final String STATE_MACHINE_TOKENIZER_PROP_KEY = "sonar.html.tokenizer.stateMachine";
+
+  /**
+   * Files with more characters than this value are analyzed in streaming mode, without keeping the whole document in
+   * memory. Rules which require the document tree or the content of the file are not applied on them, and they are
+   * neither highlighted nor checked for duplication.
+   */
+  public static final String STREAMING_THRESHOLD_PROP_KEY = "sonar.html.analysis.streamingThreshold";
+
+  /**
+   * Whether the time spent and the memory allocated by each rule are measured. The costliest rules and files are logged
+   * at the end of the analysis, and all measures are written to a JSON file of the working directory.
+   */
+  public static final String PROFILING_PROP_KEY = "sonar.html.analysis.profiling";
+
   public static final List<String> KNOWN_HTML_TAGS = List.of(
     "a",
     "acronym", // deprecated
@@ -181,6 +205,8 @@ public class HtmlConstants {
     "xmp" // deprecated
   );
 
+  private static final BitSet KNOWN_HTML_TAG_IDS = HtmlElements.ids(KNOWN_HTML_TAGS);
+
   // computed from https://github.com/jsx-eslint/eslint-plugin-jsx-a11y/blob/main/src/util/isInteractiveElement.js
   public static final Set<String> INTERACTIVE_ELEMENTS = Set.of("a", "audio", "button", "canvas", "datalist", "embed", "input", "menuitem", "option", "select", "summary",
     "td", "textarea", "th", "tr", "video");
@@ -255,7 +281,7 @@ public class HtmlConstants {
   }
 
   public static boolean hasKnownHTMLTag(TagNode element) {
-    return KNOWN_HTML_TAGS.stream().anyMatch(tag -> tag.equalsIgnoreCase(element.getNodeName()));
+    return KNOWN_HTML_TAG_IDS.get(element.getElementId());
   }
 
   public static boolean isReservedNode(TagNode element) {
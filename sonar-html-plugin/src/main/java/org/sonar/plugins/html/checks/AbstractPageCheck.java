@@ -122,6 +122,10 @@ public abstract class AbstractPageCheck extends DefaultNodeVisitor {
     this.ruleKey = ruleKey;
   }
 
+  public final RuleKey getRuleKey() {
+    return ruleKey;
+  }
+
   protected List<Attribute> getMatchingAttributes(TagNode element, QualifiedAttribute[] attributes) {
     List<Attribute> matchingAttributes = new ArrayList<>();
 
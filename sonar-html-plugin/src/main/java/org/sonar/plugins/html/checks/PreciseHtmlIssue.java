@@ -24,7 +24,7 @@ public class PreciseHtmlIssue extends HtmlIssue {
   private final int endColumn;
   private final int endLine;
 
-  PreciseHtmlIssue(RuleKey ruleKey, int line, String message, int startColumn, int endLine, int endColumn) {
+  public PreciseHtmlIssue(RuleKey ruleKey, int line, String message, int startColumn, int endLine, int endColumn) {
     super(ruleKey, line, message);
     this.startColumn = startColumn;
     this.endLine = endLine;
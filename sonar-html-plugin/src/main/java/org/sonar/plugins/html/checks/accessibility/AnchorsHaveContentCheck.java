@@ -24,10 +24,12 @@ import org.sonar.plugins.html.node.DirectiveNode;
 import org.sonar.plugins.html.node.ExpressionNode;
 import org.sonar.plugins.html.node.TagNode;
 import org.sonar.plugins.html.node.TextNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 import static org.sonar.plugins.html.api.accessibility.AccessibilityUtils.isHiddenFromScreenReader;
 
 @Rule(key = "S6827")
+@ElementNames("a")
 public class AnchorsHaveContentCheck extends AbstractPageCheck {
 
   private static final String MESSAGE = "Anchors must have content and the content must be accessible by a screen reader.";
@@ -44,6 +46,11 @@ public class AnchorsHaveContentCheck extends AbstractPageCheck {
     }
   }
 
+  @Override
+  public boolean requiresDocumentTree() {
+    return true;
+  }
+
   @Override
   public void startElement(TagNode element) {
     if (isAnchor(element)) {
@@ -19,11 +19,14 @@ package org.sonar.plugins.html.checks.accessibility;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 import java.util.regex.Pattern;
 
 @Rule(key = "S6844")
+@ElementNames("a")
 public class AnchorsShouldNotBeUsedAsButtonsCheck extends AbstractPageCheck {
+
   static boolean isAJavascriptHandler(String value) {
     String pattern = "^\\W*?javascript:.*";
 
@@ -19,10 +19,16 @@ package org.sonar.plugins.html.checks.accessibility;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.api.HtmlConstants;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.DocumentSummary;
 import org.sonar.plugins.html.node.TagNode;
 
 @Rule(key = "S6823")
 public class AriaActiveDescendantHasTabIndexCheck extends AbstractPageCheck {
+  @Override
+  public boolean isTriggeredBy(DocumentSummary summary) {
+    return summary.containsAttribute("aria-activedescendant");
+  }
+
   @Override
   public void startElement(TagNode node) {
     var ariaActiveDescendant = node.getAttribute("aria-activedescendant");
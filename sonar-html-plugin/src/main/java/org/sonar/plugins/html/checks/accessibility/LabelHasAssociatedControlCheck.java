@@ -16,13 +16,13 @@
  */
 package org.sonar.plugins.html.checks.accessibility;
 
+import java.util.BitSet;
 import java.util.List;
-import java.util.Locale;
-import java.util.Set;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.DirectiveNode;
 import org.sonar.plugins.html.node.ExpressionNode;
+import org.sonar.plugins.html.node.HtmlElements;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
 import org.sonar.plugins.html.node.TextNode;
@@ -30,7 +30,7 @@ import org.sonar.plugins.html.node.TextNode;
 @Rule(key = "S6853")
 public class LabelHasAssociatedControlCheck extends AbstractPageCheck {
   private static final String MESSAGE = "A form label must be associated with a control.";
-  private static final Set<String> CONTROL_TAGS = Set.of("INPUT", "METER", "OUTPUT", "PROGRESS", "SELECT", "TEXTAREA");
+  private static final BitSet CONTROL_TAGS = HtmlElements.ids(List.of("input", "meter", "output", "progress", "select", "textarea"));
   private boolean foundControl;
   private boolean foundAccessibleLabel;
   private TagNode label;
@@ -75,7 +75,7 @@ public class LabelHasAssociatedControlCheck extends AbstractPageCheck {
   }
 
   private static boolean isControl(TagNode node) {
-    return CONTROL_TAGS.contains(node.getNodeName().toUpperCase(Locale.ROOT));
+    return CONTROL_TAGS.get(node.getElementId());
   }
 
   @Override
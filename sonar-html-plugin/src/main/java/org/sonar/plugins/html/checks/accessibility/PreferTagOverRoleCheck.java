@@ -38,7 +38,7 @@ public class PreferTagOverRoleCheck extends AbstractPageCheck {
     // https://github.com/jsx-eslint/eslint-plugin-jsx-a11y/blob/0d5321a5457c5f0da0ca216053cc5b4f571b53ae/src/rules/prefer-tag-over-role.js#L49
     AriaRole ariaRole = AriaRole.of(roleAttr.split(" ")[0].toLowerCase(Locale.ROOT));
     Aria.RoleDefinition roleDef = Aria.getRole(ariaRole);
-    Element elementObj = Element.of(element.getNodeName().toLowerCase(Locale.ROOT));
+    Element elementObj = Element.of(element.getLowerCaseName());
     if (
       roleDef == null ||
       roleDef.getElements().isEmpty() ||
@@ -18,11 +18,17 @@ package org.sonar.plugins.html.checks.accessibility;
 
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.DocumentSummary;
 import org.sonar.plugins.html.node.TagNode;
 
 @Rule(key = "S6841")
 public class TabIndexNoPositiveCheck extends AbstractPageCheck {
 
+  @Override
+  public boolean isTriggeredBy(DocumentSummary summary) {
+    return summary.containsAttribute("tabIndex");
+  }
+
   @Override
   public void startElement(TagNode element) {
     var tabIndex = element.getAttribute("tabIndex");
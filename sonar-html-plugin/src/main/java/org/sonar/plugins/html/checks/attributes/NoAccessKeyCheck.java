@@ -18,6 +18,7 @@ package org.sonar.plugins.html.checks.attributes;
 
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.DocumentSummary;
 import org.sonar.plugins.html.node.TagNode;
 
 @Rule(key = "S6846")
@@ -26,6 +27,11 @@ public class NoAccessKeyCheck extends AbstractPageCheck {
   private static final String MESSAGE = "No access key attribute allowed. Inconsistencies between keyboard shortcuts and keyboard commands used by screenreaders and keyboard-only users create a11y complications.";
   private static final String ATTRIBUTE = "accessKey";
 
+  @Override
+  public boolean isTriggeredBy(DocumentSummary summary) {
+    return summary.containsAttribute(ATTRIBUTE);
+  }
+
   @Override
   public void startElement(TagNode element) {
     if (element.hasProperty(ATTRIBUTE)) {
@@ -24,6 +24,8 @@ import org.sonar.plugins.html.node.TagNode;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Rule(key = "RequiredAttributeCheck")
 public class RequiredAttributeCheck extends AbstractPageCheck {
@@ -37,24 +39,41 @@ public class RequiredAttributeCheck extends AbstractPageCheck {
   public String attributes = DEFAULT_ATTRIBUTES;
 
   private final List<RequiredAttribute> attributesList = new ArrayList<>();
+  private Set<String> elementNames = Set.of();
 
   private static final class RequiredAttribute {
     private String elementName;
     private String attributeName;
   }
 
+  @Override
+  public void init() {
+    elementNames = parseRequiredAttributes().stream().map(a -> a.elementName).collect(Collectors.toSet());
+  }
+
   @Override
   public void startDocument(List<Node> nodes) {
     attributesList.clear();
+    attributesList.addAll(parseRequiredAttributes());
+  }
+
+  @Override
+  public Set<String> elementNames() {
+    return elementNames;
+  }
+
+  private List<RequiredAttribute> parseRequiredAttributes() {
+    List<RequiredAttribute> result = new ArrayList<>();
     for (String item : trimSplitCommaSeparatedList(attributes)) {
       String[] pair = item.split("\\.");
       if (pair.length > 1) {
         RequiredAttribute a = new RequiredAttribute();
         a.elementName = pair[0];
         a.attributeName = pair[1];
-        attributesList.add(a);
+        result.add(a);
       }
     }
+    return result;
   }
 
   @Override
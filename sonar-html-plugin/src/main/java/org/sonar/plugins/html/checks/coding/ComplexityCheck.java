@@ -21,9 +21,6 @@ import org.sonar.api.measures.CoreMetrics;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
-import org.sonar.plugins.html.node.Node;
-
-import java.util.List;
 
 @Rule(key = "ComplexityCheck")
 public final class ComplexityCheck extends AbstractPageCheck {
@@ -36,8 +33,11 @@ public final class ComplexityCheck extends AbstractPageCheck {
     defaultValue = "" + DEFAULT_MAX_COMPLEXITY)
   public int max = DEFAULT_MAX_COMPLEXITY;
 
+  /**
+   * The complexity is computed by {@link org.sonar.plugins.html.analyzers.ComplexityVisitor} at the end of the document.
+   */
   @Override
-  public void startDocument(List<Node> nodes) {
+  public void endDocument() {
     int complexity = Optional.ofNullable(getHtmlSourceCode().getMeasure(CoreMetrics.COMPLEXITY)).orElse(0);
 
     if (complexity > max) {
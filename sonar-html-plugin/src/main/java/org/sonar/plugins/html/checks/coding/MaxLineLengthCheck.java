@@ -16,19 +16,17 @@
  */
 package org.sonar.plugins.html.checks.coding;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import org.sonar.api.batch.fs.InputFile;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.DocumentSummary;
+import org.sonar.plugins.html.node.SourceText;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
+import org.sonar.plugins.html.visitor.LineSet;
 
 @Rule(key = "MaxLineLengthCheck")
+@ElementNames("path")
 public class MaxLineLengthCheck extends AbstractPageCheck {
 
   private static final int DEFAULT_MAX_LINE_LENGTH = 120;
@@ -39,39 +37,40 @@ public class MaxLineLengthCheck extends AbstractPageCheck {
     defaultValue = "" + DEFAULT_MAX_LINE_LENGTH)
   public int maxLength = DEFAULT_MAX_LINE_LENGTH;
 
-  private final Set<Integer> ignoredLines = new HashSet<>();
+  private final LineSet ignoredLines = new LineSet();
+
+  @Override
+  public boolean requiresContents() {
+    return true;
+  }
 
   @Override
   public void endDocument() {
-    List<String> lines = readLines(getHtmlSourceCode().inputFile());
+    SourceText text = getHtmlSourceCode().getSourceText();
 
-    for (int i = 0; i < lines.size(); i++) {
-      int length = lines.get(i).length();
-      if (length > maxLength && !ignoredLines.contains(i + 1)) {
+    for (int line = 1; line <= text.lineCount(); line++) {
+      int length = text.lineLength(line);
+      if (length > maxLength && !ignoredLines.contains(line)) {
         createViolation(
-            i + 1,
+            line,
             "Split this " + length + " characters long line (which is greater than " + maxLength + " authorized).");
       }
     }
     ignoredLines.clear();
   }
 
+  @Override
+  public boolean isTriggeredBy(DocumentSummary summary) {
+    // not only run on the documents with its elements, as the lines of all documents are checked
+    return true;
+  }
+
   @Override
   public void startElement(TagNode node) {
     TagNode nodeParent = node.getParent();
     // We do ignore lines that include an SVG path tag. Splitting SVG path descriptions does not necessarily make them more readable. See SONARHTML-147.
     if ("PATH".equalsIgnoreCase(node.getNodeName()) && nodeParent != null && "SVG".equalsIgnoreCase(nodeParent.getNodeName())) {
-      for (int i = node.getStartLinePosition(); i <= node.getEndLinePosition(); i++) {
-        ignoredLines.add(i);
-      }
-    }
-  }
-
-  private static List<String> readLines(InputFile file) {
-    try (BufferedReader br = new BufferedReader(new StringReader(file.contents()))) {
-      return br.lines().toList();
-    } catch (IOException e) {
-      throw new IllegalStateException("Unable to read " + file, e);
+      ignoredLines.addRange(node.getStartLinePosition(), node.getEndLinePosition());
     }
   }
 
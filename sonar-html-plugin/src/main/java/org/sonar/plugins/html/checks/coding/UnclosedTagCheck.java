@@ -22,8 +22,11 @@ import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.sonar.plugins.html.api.Helpers.isCshtmlFile;
 
@@ -40,7 +43,8 @@ public class UnclosedTagCheck extends AbstractPageCheck {
   public String ignoreTags = DEFAULT_IGNORE_TAGS;
 
   private List<String> ignoreTagsList;
-  private final List<TagNode> nodes = new ArrayList<>();
+  private final Deque<TagNode> nodes = new ArrayDeque<>();
+  private final Map<String, Integer> openNodeNames = new HashMap<>();
 
   private boolean skipFile = false;
 
@@ -58,6 +62,7 @@ public class UnclosedTagCheck extends AbstractPageCheck {
       ignoreTagsList = List.of(ignoreTags.split(","));
     }
     this.nodes.clear();
+    openNodeNames.clear();
   }
 
   @Override
@@ -66,21 +71,26 @@ public class UnclosedTagCheck extends AbstractPageCheck {
       return;
     }
     if (isNotIgnoreTag(element) && !nodes.isEmpty()) {
-      TagNode previousNode = nodes.remove(0);
+      TagNode previousNode = pop();
       if (!previousNode.getNodeName().equals(element.getNodeName())) {
         createViolation(previousNode, "The tag \"" + previousNode.getNodeName() + "\" has no corresponding closing tag.");
-        List<TagNode> rollup = new ArrayList<>();
-        for (TagNode node : nodes) {
-          rollup.add(node);
-          if (node.getNodeName().equals(element.getNodeName())) {
-            nodes.removeAll(rollup);
-            break;
-          }
+        // the nodes opened since the one closed by the element are dropped without violation
+        if (openNodeNames.containsKey(element.getNodeName())) {
+          TagNode droppedNode;
+          do {
+            droppedNode = pop();
+          } while (!droppedNode.getNodeName().equals(element.getNodeName()));
         }
       }
     }
   }
 
+  private TagNode pop() {
+    TagNode node = nodes.pop();
+    openNodeNames.merge(node.getNodeName(), -1, (count, delta) -> count + delta == 0 ? null : (count + delta));
+    return node;
+  }
+
   private boolean isNotIgnoreTag(TagNode node) {
     String nodeName = node.getNodeName();
     return !(nodeName != null && nodeName.startsWith("!")) && ignoreTagsList.stream().noneMatch(node::equalsElementName);
@@ -92,7 +102,8 @@ public class UnclosedTagCheck extends AbstractPageCheck {
       return;
     }
     if (isNotIgnoreTag(element)) {
-      nodes.add(0, element);
+      nodes.push(element);
+      openNodeNames.merge(element.getNodeName(), 1, Integer::sum);
     }
   }
 
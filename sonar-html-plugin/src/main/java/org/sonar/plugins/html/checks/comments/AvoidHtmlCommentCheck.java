@@ -19,35 +19,63 @@ package org.sonar.plugins.html.checks.comments;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.CommentNode;
+import org.sonar.plugins.html.node.DirectiveNode;
+import org.sonar.plugins.html.node.ExpressionNode;
 import org.sonar.plugins.html.node.Node;
 
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.List;
 
 @Rule(key = "AvoidHtmlCommentCheck")
 public class AvoidHtmlCommentCheck extends AbstractPageCheck {
 
   private boolean isServerSidePage;
+  private final List<Integer> htmlCommentLines = new ArrayList<>();
 
   @Override
   public void comment(CommentNode node) {
     String comment = node.getCode();
+    checkServerSideCode(comment);
 
-    if (isServerSidePage && node.isHtml() && !comment.startsWith("<!--[if")) {
-      createViolation(node.getStartLinePosition(), "Make sure that the HTML comment does not contain sensitive information.");
+    if (node.isHtml() && !comment.startsWith("<!--[if")) {
+      htmlCommentLines.add(node.getStartLinePosition());
     }
   }
 
+  @Override
+  public void directive(DirectiveNode node) {
+    checkServerSideCode(node.getCode());
+  }
+
+  @Override
+  public void expression(ExpressionNode node) {
+    checkServerSideCode(node.getCode());
+  }
+
   @Override
   public void startDocument(List<Node> nodes) {
     isServerSidePage = false;
-    Iterator<Node> iterator = nodes.iterator();
-    while (!isServerSidePage && iterator.hasNext()) {
-      String code = iterator.next().getCode();
-      if (code.startsWith("<?php") || code.startsWith("<%")) {
-        isServerSidePage = true;
+    htmlCommentLines.clear();
+  }
+
+  /**
+   * Any part of the page can make it a server side page, so comments are only reported at the end of the document.
+   */
+  @Override
+  public void endDocument() {
+    if (isServerSidePage) {
+      for (Integer line : htmlCommentLines) {
+        createViolation(line, "Make sure that the HTML comment does not contain sensitive information.");
       }
     }
+    htmlCommentLines.clear();
+  }
+
+  private void checkServerSideCode(String code) {
+    // tags and texts can't start with server side code, which is always lexed as comment, directive or expression
+    if (code.startsWith("<?php") || code.startsWith("<%")) {
+      isServerSidePage = true;
+    }
   }
 
 }
@@ -17,6 +17,7 @@
 package org.sonar.plugins.html.checks.comments;
 
 import org.sonar.plugins.html.node.CommentNode;
+import org.sonar.plugins.html.node.SourceText;
 
 final class CommentUtils {
 
@@ -24,13 +25,18 @@ final class CommentUtils {
     // utlility
   }
 
+  /**
+   * Line of an offset of the comment, read from the code of the comment so that it does not need the content of the
+   * file, which is not available in streaming mode.
+   *
+   * @param offset offset in the code of the comment
+   */
   static int lineNumber(CommentNode node, int offset) {
-    String content = node.getCode();
-    if (offset < 0 || offset > content.length()) {
-      throw new IllegalArgumentException("Out of range offset: " + offset + " for comment content (size: " + content.length() + ")");
+    String code = node.getCode();
+    if (offset < 0 || offset > code.length()) {
+      throw new IllegalArgumentException("Out of range offset: " + offset + " for comment content (size: " + code.length() + ")");
     }
-    int lineFeedCountBeforeOffset = (int) content.substring(0, offset).chars().filter(c -> c == '\n').count();
-    return node.getStartLinePosition() + lineFeedCountBeforeOffset;
+    return node.getStartLinePosition() + new SourceText(code).line(offset) - 1;
   }
 
 }
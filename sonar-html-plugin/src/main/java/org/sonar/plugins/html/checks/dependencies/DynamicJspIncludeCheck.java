@@ -19,8 +19,10 @@ package org.sonar.plugins.html.checks.dependencies;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "DynamicJspIncludeCheck")
+@ElementNames("jsp:include")
 public class DynamicJspIncludeCheck extends AbstractPageCheck {
 
   @Override
@@ -23,10 +23,13 @@ import org.sonar.check.RuleProperty;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Attribute;
 import org.sonar.plugins.html.node.DirectiveNode;
+import org.sonar.plugins.html.node.DocumentSummary;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "IllegalTagLibsCheck")
+@ElementNames("jsp:directive.taglib")
 public class IllegalTagLibsCheck extends AbstractPageCheck {
 
   private static final String DEFAULT_TAG_LIBS = "http://java.sun.com/jstl/sql";
@@ -44,6 +47,12 @@ public class IllegalTagLibsCheck extends AbstractPageCheck {
     tagLibsArray = trimSplitCommaSeparatedList(tagLibs);
   }
 
+  @Override
+  public boolean isTriggeredBy(DocumentSummary summary) {
+    // not only run on the documents with its elements, as taglib directives are reported too
+    return true;
+  }
+
   @Override
   public void startElement(TagNode node) {
     if ("jsp:directive.taglib".equalsIgnoreCase(node.getNodeName())) {
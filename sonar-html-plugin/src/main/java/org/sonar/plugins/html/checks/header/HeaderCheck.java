@@ -16,9 +16,6 @@
  */
 package org.sonar.plugins.html.checks.header;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -26,6 +23,7 @@ import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.SourceText;
 
 @Rule(key = "HeaderCheck")
 public class HeaderCheck extends AbstractPageCheck {
@@ -62,35 +60,32 @@ public class HeaderCheck extends AbstractPageCheck {
     }
   }
 
+  @Override
+  public boolean requiresContents() {
+    return true;
+  }
+
   @Override
   public void startDocument(List<Node> nodes) {
-    String fileContent;
-    try {
-      fileContent = getHtmlSourceCode().inputFile().contents();
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
-    }
     if (isRegularExpression) {
-      checkRegularExpression(fileContent);
+      checkRegularExpression(getHtmlSourceCode().getSourceText());
     } else {
+      SourceText text = getHtmlSourceCode().getSourceText();
+      // as when reading lines, a line terminator at the end of the file does not start another line
+      int lineCount = text.lineLength(text.lineCount()) == 0 ? (text.lineCount() - 1) : text.lineCount();
       HeaderLinesProcessor processor = new HeaderLinesProcessor(expectedLines);
-      try (BufferedReader br = new BufferedReader(new StringReader(fileContent))) {
-        List<String> lines = br.lines().toList();
-        for (String line : lines) {
-          if (!processor.processLine(line)) {
-            break;
-          }
+      for (int line = 1; line <= lineCount; line++) {
+        if (!processor.processLine(text, line)) {
+          break;
         }
-        if (!processor.getResult()) {
-          createViolation(0, MESSAGE);
-        }
-      } catch (IOException e) {
-        throw new IllegalStateException(e);
+      }
+      if (!processor.getResult()) {
+        createViolation(0, MESSAGE);
       }
     }
   }
 
-  private void checkRegularExpression(String fileContent) {
+  private void checkRegularExpression(CharSequence fileContent) {
     Matcher matcher = searchPattern.matcher(fileContent);
     if (!matcher.find() || matcher.start() != 0) {
       createViolation(0, MESSAGE);
@@ -107,7 +102,7 @@ public class HeaderCheck extends AbstractPageCheck {
       this.expectedLines = expectedLines;
     }
 
-    boolean processLine(String line) {
+    boolean processLine(SourceText text, int line) {
       lineNumber++;
       if (lineNumber == 1) {
         result = true;
@@ -115,7 +110,7 @@ public class HeaderCheck extends AbstractPageCheck {
       if (lineNumber > expectedLines.length) {
         // we are done checking, stop processor
         return false;
-      } else if (line.equals(expectedLines[lineNumber - 1])) {
+      } else if (matches(text, line, expectedLines[lineNumber - 1])) {
         return true;
       } else {
         result = false;
@@ -123,6 +118,10 @@ public class HeaderCheck extends AbstractPageCheck {
       }
     }
 
+    private static boolean matches(SourceText text, int line, String expectedLine) {
+      return text.lineLength(line) == expectedLine.length() && text.regionMatches(text.lineStartOffset(line), expectedLine);
+    }
+
     boolean getResult() {
       return result && lineNumber >= expectedLines.length;
     }
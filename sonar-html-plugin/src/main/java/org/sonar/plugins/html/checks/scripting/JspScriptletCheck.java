@@ -18,10 +18,13 @@ package org.sonar.plugins.html.checks.scripting;
 
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.DocumentSummary;
 import org.sonar.plugins.html.node.ExpressionNode;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "JspScriptletCheck")
+@ElementNames("scriptlet")
 public class JspScriptletCheck extends AbstractPageCheck {
 
   private static final String SCRIPTLET_PREFIX = "<%";
@@ -36,6 +39,12 @@ public class JspScriptletCheck extends AbstractPageCheck {
     }
   }
 
+  @Override
+  public boolean isTriggeredBy(DocumentSummary summary) {
+    // not only run on the documents with its elements, as scriptlet expressions are reported too
+    return true;
+  }
+
   @Override
   public void startElement(TagNode element) {
     if ("scriptlet".equalsIgnoreCase(element.getLocalName())) {
@@ -21,8 +21,10 @@ import org.sonar.check.RuleProperty;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
 import org.sonar.plugins.html.node.TextNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "LongJavaScriptCheck")
+@ElementNames("script")
 public class LongJavaScriptCheck extends AbstractPageCheck {
 
   private static final int DEFAULT_MAX_LINES = 5;
@@ -31,7 +33,6 @@ public class LongJavaScriptCheck extends AbstractPageCheck {
 
   private TagNode scriptNode;
 
-
   @RuleProperty(
     key = "maxLines",
     description = "Max Lines (Number)",
@@ -18,23 +18,28 @@ package org.sonar.plugins.html.checks.scripting;
 
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.HtmlElements;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "S4645")
+@ElementNames("script")
 public class NestedJavaScriptCheck extends AbstractPageCheck {
 
+  private static final int SCRIPT = HtmlElements.id("script");
+
   private boolean insideScriptElement;
 
   @Override
   public void startElement(TagNode element) {
-    if (element.equalsElementName("script")) {
+    if (element.isElement(SCRIPT)) {
       insideScriptElement = true;
     }
   }
 
   @Override
   public void endElement(TagNode element) {
-    if (element.equalsElementName("script")) {
+    if (element.isElement(SCRIPT)) {
       if (!insideScriptElement) {
         createViolation(element.getEndLinePosition(), "A </script> was found without a relating opening <script> tag. This may be caused by nested script tags.");
       }
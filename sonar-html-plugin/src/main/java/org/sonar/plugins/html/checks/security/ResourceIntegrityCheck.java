@@ -19,14 +19,19 @@ package org.sonar.plugins.html.checks.security;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Attribute;
+import org.sonar.plugins.html.node.HtmlElements;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "S5725")
+@ElementNames("script")
 public class ResourceIntegrityCheck extends AbstractPageCheck {
 
+  private static final int SCRIPT = HtmlElements.id("script");
+
   @Override
   public void startElement(TagNode node) {
-    if (node.equalsElementName("script")) {
+    if (node.isElement(SCRIPT)) {
       Attribute src = node.getProperty("src");
       if (src != null && isExternal(src.getValue()) && !node.hasProperty("integrity")) {
         createViolation(node, "Make sure not using resource integrity feature is safe here.");
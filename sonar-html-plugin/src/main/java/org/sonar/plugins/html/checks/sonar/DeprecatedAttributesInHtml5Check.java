@@ -111,11 +111,14 @@ public class DeprecatedAttributesInHtml5Check extends AbstractPageCheck {
     DEPRECATED.put(key, Set.of(values));
   }
 
+  @Override
+  public Set<String> elementNames() {
+    return DEPRECATED.keySet();
+  }
+
   @Override
   public void startElement(TagNode element) {
-    String nodeName = element.getNodeName();
-    String elementName = nodeName.toLowerCase(Locale.ROOT);
-    Set<String> deprecatedAttributes = DEPRECATED.get(elementName);
+    Set<String> deprecatedAttributes = DEPRECATED.get(element.getLowerCaseName());
     if (deprecatedAttributes != null) {
       List<Attribute> attributes = element.getAttributes();
       for (Attribute attribute : attributes) {
@@ -127,7 +130,7 @@ public class DeprecatedAttributesInHtml5Check extends AbstractPageCheck {
   }
 
   private static boolean isDeprecated(TagNode element, Set<String> deprecatedAttributes, String attributeName, String attributeValue) {
-    String elementName = element.getNodeName().toLowerCase(Locale.ROOT);
+    String elementName = element.getLowerCaseName();
     if ("img".equals(elementName) && "border".equals(attributeName)) {
       return !"0".equals(attributeValue);
     } else if ("script".equals(elementName) && "language".equals(attributeName)) {
@@ -21,10 +21,12 @@ import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.DirectiveNode;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 import java.util.List;
 
 @Rule(key = "DoctypePresenceCheck")
+@ElementNames("html")
 public class DoctypePresenceCheck extends AbstractPageCheck {
 
   private boolean foundDoctype;
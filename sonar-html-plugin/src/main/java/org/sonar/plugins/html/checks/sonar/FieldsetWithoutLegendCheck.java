@@ -21,8 +21,10 @@ import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "FieldsetWithoutLegendCheck")
+@ElementNames({"fieldset", "legend"})
 public class FieldsetWithoutLegendCheck extends AbstractPageCheck {
 
   private boolean foundLegend;
@@ -20,10 +20,12 @@ import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 import java.util.List;
 
 @Rule(key = "FlashUsesBothObjectAndEmbedCheck")
+@ElementNames({"object", "embed"})
 public class FlashUsesBothObjectAndEmbedCheck extends AbstractPageCheck {
 
   private TagNode object;
@@ -19,8 +19,10 @@ package org.sonar.plugins.html.checks.sonar;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "ImgWithoutAltCheck")
+@ElementNames({"img", "input", "area"})
 public class ImgWithoutAltCheck extends AbstractPageCheck {
 
   @Override
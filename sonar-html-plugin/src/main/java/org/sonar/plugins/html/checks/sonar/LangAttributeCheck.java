@@ -20,8 +20,10 @@ import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Attribute;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "S5254")
+@ElementNames("html")
 public class LangAttributeCheck extends AbstractPageCheck {
 
   @Override
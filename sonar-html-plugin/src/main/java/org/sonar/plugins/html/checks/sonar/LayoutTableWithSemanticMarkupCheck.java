@@ -28,8 +28,10 @@ import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Attribute;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "S5258")
+@ElementNames({"table", "caption", "th", "td"})
 public class LayoutTableWithSemanticMarkupCheck extends AbstractPageCheck {
 
   private Deque<Boolean> isWithinLayoutTable = new LinkedList<>();
@@ -74,7 +76,6 @@ public class LayoutTableWithSemanticMarkupCheck extends AbstractPageCheck {
         createViolation(attribute.getLine(), format("Remove this \"%s\" attribute", attribute.getName())));
   }
 
-
   private static boolean isTable(TagNode node) {
     return "TABLE".equalsIgnoreCase(node.getNodeName());
   }
@@ -21,8 +21,10 @@ import java.util.Set;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "LinkToImageCheck")
+@ElementNames("a")
 public class LinkToImageCheck extends AbstractPageCheck {
 
   private static final Set<String> IMG_SUFFIXES = Set.of(".GIF", ".JPG", ".JPEG", ".PNG", ".BMP");
@@ -21,11 +21,15 @@ import java.util.Locale;
 import java.util.regex.Pattern;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.HtmlElements;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "S5148")
+@ElementNames("a")
 public class LinkWithTargetBlankCheck extends AbstractPageCheck {
 
+  private static final int A = HtmlElements.id("a");
   private static final Pattern DYNAMIC_URL = Pattern.compile("[{}$()\\[\\]]");
 
   @Override
@@ -55,7 +59,7 @@ public class LinkWithTargetBlankCheck extends AbstractPageCheck {
   }
 
   private static boolean isAnchor(TagNode node) {
-    return node.equalsElementName("A");
+    return node.isElement(A);
   }
 
   private static boolean isInsecureUrl(TagNode node) {
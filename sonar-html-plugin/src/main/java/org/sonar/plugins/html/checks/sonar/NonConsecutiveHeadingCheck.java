@@ -20,10 +20,12 @@ import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 import java.util.List;
 
 @Rule(key = "NonConsecutiveHeadingCheck")
+@ElementNames({"h1", "h2", "h3", "h4", "h5", "h6"})
 public class NonConsecutiveHeadingCheck extends AbstractPageCheck {
 
   private final int[] firstUsage = new int[6];
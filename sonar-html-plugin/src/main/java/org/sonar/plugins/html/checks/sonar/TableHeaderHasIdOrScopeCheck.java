@@ -24,14 +24,21 @@ import java.util.List;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "TableHeaderHasIdOrScopeCheck")
+@ElementNames({"table", "tr"})
 public class TableHeaderHasIdOrScopeCheck extends AbstractPageCheck {
 
   private static final String MESSAGE = "Add either an 'id' or a 'scope' attribute to this <th> tag.";
 
   private final Deque<TableElement> tables = new ArrayDeque<>();
 
+  @Override
+  public boolean requiresDocumentTree() {
+    return true;
+  }
+
   @Override
   public void startElement(TagNode node) {
     if (isTableTag(node)) {
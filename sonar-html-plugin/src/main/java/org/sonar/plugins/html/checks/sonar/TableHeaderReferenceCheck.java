@@ -27,16 +27,22 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Pattern;
 
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.HtmlElements;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
 
 @Rule(key = "S5260")
 public class TableHeaderReferenceCheck extends AbstractPageCheck {
 
+  private static final int TABLE = HtmlElements.id("table");
+  private static final int TR = HtmlElements.id("tr");
+  private static final int TD = HtmlElements.id("td");
+  private static final int TH = HtmlElements.id("th");
   private static final Table.Cell NIL = new Table.Cell(null);
 
   private static final Pattern DYNAMIC_HEADERS = Pattern.compile("[{}$()\\[\\]]");
@@ -99,8 +105,8 @@ public class TableHeaderReferenceCheck extends AbstractPageCheck {
 
     int numberOfCells() {
       int max = 0;
-      for (int i = 0; i < rows.size(); ++i) {
-        max = Integer.max(max, rows.get(i).size());
+      for (List<Cell> row : rows) {
+        max = Integer.max(max, row.size());
       }
       return max;
     }
@@ -122,7 +128,8 @@ public class TableHeaderReferenceCheck extends AbstractPageCheck {
 
     List<Set<String>> findHorizontalHeaders() {
       List<Set<String>> headers = new ArrayList<>();
-      for (int i = 0; i < numberOfCells(); ++i) {
+      int numberOfCells = numberOfCells();
+      for (int i = 0; i < numberOfCells; ++i) {
         headers.add(new HashSet<>());
       }
       forEachCell((cell, row, column) -> {
@@ -146,37 +153,54 @@ public class TableHeaderReferenceCheck extends AbstractPageCheck {
       return headers;
     }
 
-    Map<TagNode, List<String>> findReferenceableHeadersPerCellNode() {
+    /**
+     * Only the headers referenced by a cell are kept among those it could reference, so that the cost does not grow
+     * with the number of headers of its row and column.
+     */
+    Map<TagNode, Set<String>> findReferenceableHeadersPerCellNode() {
       List<Set<String>> horizontalHeaders = findHorizontalHeaders();
       List<Set<String>> verticalHeaders = findVerticalHeaders();
-      Map<TagNode, List<String>> referenceable = new HashMap<>();
+      Map<TagNode, Set<String>> referenceable = new HashMap<>();
       forEachCell((cell, row, column) -> {
-        if (!cell.headers().isEmpty()) {
-          List<String> headers = new ArrayList<>();
-          headers.addAll(horizontalHeaders.get(column));
-          headers.addAll(verticalHeaders.get(row));
-          referenceable.merge(cell.node(), headers, (acc, val) -> { acc.addAll(val); return acc; });
+        for (String header : cell.headers()) {
+          if (horizontalHeaders.get(column).contains(header) || verticalHeaders.get(row).contains(header)) {
+            referenceable.computeIfAbsent(cell.node(), node -> new HashSet<>()).add(header);
+          }
         }
       });
       return referenceable;
     }
+
+    Set<String> headerIds() {
+      Set<String> ids = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+      forEachCell((cell, row, column) -> {
+        if (cell instanceof Table.Header header && header.id() != null) {
+          ids.add(header.id());
+        }
+      });
+      return ids;
+    }
   }
 
   private static class TableBuilder {
 
     private ArrayList<RowBuilder> rows = new ArrayList<>();
-    private RowBuilder currentRow = null;
+    private int currentRow = -1;
 
     private static class RowBuilder {
 
       private List<Table.Cell> cells = new ArrayList<>();
+      // vacant cells are only ever added at the end of the row, so the cells before this index stay occupied
+      private int occupiedPrefix = 0;
 
       int indexOfVacantCell() {
-        for (int i = 0; i < cells.size(); ++i) {
+        for (int i = occupiedPrefix; i < cells.size(); ++i) {
           if (cells.get(i) == NIL) {
+            occupiedPrefix = i;
             return i;
           }
         }
+        occupiedPrefix = cells.size();
         return -1;
       }
 
@@ -198,12 +222,9 @@ public class TableHeaderReferenceCheck extends AbstractPageCheck {
     }
 
     void newRow() {
-      int indexOfCurrentRow = rows.indexOf(currentRow);
-      if (indexOfCurrentRow == rows.size() - 1) {
-        currentRow = new RowBuilder();
-        rows.add(currentRow);
-      } else {
-        currentRow = rows.get(rows.indexOf(currentRow) + 1);
+      currentRow++;
+      if (currentRow == rows.size()) {
+        rows.add(new RowBuilder());
       }
     }
 
@@ -212,7 +233,7 @@ public class TableHeaderReferenceCheck extends AbstractPageCheck {
         return;
       }
       int rowspan = getRowSpan(cell.node());
-      int rowStart = rows.indexOf(currentRow);
+      int rowStart = currentRow;
       int rowEnd = rowStart + rowspan;
       int colspan = getColSpan(cell.node());
       int cellStart = rows.get(rowStart).indexOfVacantCell();
@@ -288,46 +309,42 @@ public class TableHeaderReferenceCheck extends AbstractPageCheck {
   }
 
   private void raiseViolationOnInvalidReference(Table table) {
-    Map<TagNode, List<String>> referenceableHeaders = table.findReferenceableHeadersPerCellNode();
-    Map<TagNode, List<String>> raisedFor = new HashMap<>();
+    Map<TagNode, Set<String>> referenceableHeaders = table.findReferenceableHeadersPerCellNode();
+    Map<TagNode, Set<String>> raisedFor = new HashMap<>();
+    Set<String> headerIds = table.headerIds();
     table.forEachCell((cell, row, column) -> {
       TagNode node = cell.node();
       List<String> actual = cell.headers();
-      List<String> expected = referenceableHeaders.getOrDefault(node, Collections.emptyList());
+      Set<String> expected = referenceableHeaders.getOrDefault(node, Collections.emptySet());
       for (String header : actual) {
-        if (!expected.contains(header) && !raisedFor.getOrDefault(node, Collections.emptyList()).contains(header)) {
-          if (isExistingHeader(table, header)) {
+        if (!expected.contains(header) && !raisedFor.getOrDefault(node, Collections.emptySet()).contains(header)) {
+          if (headerIds.contains(header)) {
             createViolation(node,
               format("id \"%s\" in \"headers\" reference the header of another column/row.", header));
           } else {
             createViolation(node,
               format("id \"%s\" in \"headers\" does not reference any <th> header.", header));
           }
-          raisedFor.merge(node, Arrays.asList(header), (acc, val) -> { acc.addAll(val); return acc; });
+          raisedFor.computeIfAbsent(node, key -> new HashSet<>()).add(header);
           break;
         }
       }
     });
   }
 
-  private static boolean isExistingHeader(Table table, String headerName) {
-    return table.rows().stream().flatMap(List::stream).filter(cell -> cell instanceof Table.Header)
-        .map(cell -> (Table.Header) cell).anyMatch(header -> headerName.equalsIgnoreCase(header.id()));
-  }
-
   private static boolean isTable(TagNode node) {
-    return node.equalsElementName("TABLE");
+    return node.isElement(TABLE);
   }
 
   private static boolean isTableRow(TagNode node) {
-    return node.equalsElementName("TR");
+    return node.isElement(TR);
   }
 
   private static boolean isTableData(TagNode node) {
-    return node.equalsElementName("TD");
+    return node.isElement(TD);
   }
 
   private static boolean isTableHeader(TagNode node) {
-    return node.equalsElementName("TH");
+    return node.isElement(TH);
   }
 }
@@ -21,10 +21,17 @@ import javax.annotation.Nullable;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "TableWithoutCaptionCheck")
+@ElementNames("table")
 public class TableWithoutCaptionCheck extends AbstractPageCheck {
 
+  @Override
+  public boolean requiresDocumentTree() {
+    return true;
+  }
+
   @Override
   public void startElement(TagNode node) {
     if (isTable(node) && !isIgnored(node) && !hasDescription(node)) {
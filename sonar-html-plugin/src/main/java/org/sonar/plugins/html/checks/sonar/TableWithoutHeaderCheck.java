@@ -22,12 +22,19 @@ import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Attribute;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "S5256")
+@ElementNames("table")
 public class TableWithoutHeaderCheck extends AbstractPageCheck {
 
   private static final Set<String> THYMELEAF_FRAGMENT_INSERTION_KEYWORDS = Set.of("th:insert", "th:include", "th:replace");
 
+  @Override
+  public boolean requiresDocumentTree() {
+    return true;
+  }
+
   @Override
   public void startElement(TagNode node) {
     if (isTable(node) && !isLayout(node) && !isHidden(node) && !hasHeader(node) && !hasThymeleafFragmentInsertion(node)) {
@@ -19,17 +19,28 @@ package org.sonar.plugins.html.checks.sonar;
 import java.util.Set;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.HtmlElements;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "S4084")
+@ElementNames("video")
 public class VideoTrackCheck extends AbstractPageCheck {
 
+  private static final int VIDEO = HtmlElements.id("video");
+  private static final int SOURCE = HtmlElements.id("source");
+  private static final int TRACK = HtmlElements.id("track");
   private static final Set<String> ACCESSIBILITY_TRACK_KINDS = Set.of(
     "captions",
     "descriptions",
     "subtitles"
   );
 
+  @Override
+  public boolean requiresDocumentTree() {
+    return true;
+  }
+
   @Override
   public void startElement(TagNode node) {
     if (isVideoTag(node) && hasVideoSrc(node) && !hasAccessibilityTrackDescendant(node)) {
@@ -52,16 +63,16 @@ public class VideoTrackCheck extends AbstractPageCheck {
   }
 
   private static boolean isVideoTag(TagNode node) {
-    return node.equalsElementName("VIDEO");
+    return node.isElement(VIDEO);
   }
 
   private static boolean isSourceTag(TagNode node) {
-    return node.equalsElementName("SOURCE");
+    return node.isElement(SOURCE);
   }
 
   private static boolean isAccessibilityTrackTag(TagNode node) {
     var kind = node.getPropertyValue("KIND");
-    return node.equalsElementName("TRACK") && kind != null && ACCESSIBILITY_TRACK_KINDS.contains(kind);
+    return node.isElement(TRACK) && kind != null && ACCESSIBILITY_TRACK_KINDS.contains(kind);
   }
 
 }
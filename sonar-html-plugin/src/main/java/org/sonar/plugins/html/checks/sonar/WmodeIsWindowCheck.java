@@ -16,11 +16,14 @@
  */
 package org.sonar.plugins.html.checks.sonar;
 
+import java.util.Set;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.visitor.ElementNames;
 
 @Rule(key = "WmodeIsWindowCheck")
+@ElementNames({"param", "embed"})
 public class WmodeIsWindowCheck extends AbstractPageCheck {
 
   private static final String WMODE = "WMODE";
@@ -16,6 +16,7 @@
  */
 package org.sonar.plugins.html.checks.structure;
 
+import java.util.Set;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
@@ -44,6 +45,23 @@ public class ChildElementIllegalCheck extends AbstractPageCheck {
     defaultValue = DEFAULT_PARENT)
   public String parent = DEFAULT_PARENT;
 
+  private Set<String> elementNames = Set.of();
+
+  @Override
+  public boolean requiresDocumentTree() {
+    return true;
+  }
+
+  @Override
+  public void init() {
+    elementNames = Set.of(parent);
+  }
+
+  @Override
+  public Set<String> elementNames() {
+    return elementNames;
+  }
+
   @Override
   public void startElement(TagNode element) {
     if (element.equalsElementName(parent)) {
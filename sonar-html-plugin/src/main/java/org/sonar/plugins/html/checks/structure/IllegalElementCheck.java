@@ -22,7 +22,10 @@ import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Rule(key = "IllegalElementCheck")
 public class IllegalElementCheck extends AbstractPageCheck {
@@ -36,12 +39,23 @@ public class IllegalElementCheck extends AbstractPageCheck {
   public String elements = DEFAULT_ELEMENTS;
 
   private String[] elementsArray;
+  private Set<String> elementNames = Set.of();
+
+  @Override
+  public void init() {
+    elementNames = new HashSet<>(Arrays.asList(trimSplitCommaSeparatedList(elements)));
+  }
 
   @Override
   public void startDocument(List<Node> nodes) {
     elementsArray = trimSplitCommaSeparatedList(elements);
   }
 
+  @Override
+  public Set<String> elementNames() {
+    return elementNames;
+  }
+
   @Override
   public void startElement(TagNode element) {
     for (String elementName : elementsArray) {
@@ -16,6 +16,7 @@
  */
 package org.sonar.plugins.html.checks.structure;
 
+import java.util.Set;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
@@ -39,6 +40,18 @@ public class ParentElementRequiredCheck extends AbstractPageCheck {
     defaultValue = DEFAULT_PARENT)
   public String parent = DEFAULT_PARENT;
 
+  private Set<String> elementNames = Set.of();
+
+  @Override
+  public void init() {
+    elementNames = Set.of(child);
+  }
+
+  @Override
+  public Set<String> elementNames() {
+    return elementNames;
+  }
+
   @Override
   public void startElement(TagNode element) {
     if (element.equalsElementName(child) && (element.getParent() == null || !element.getParent().equalsElementName(parent))) {
@@ -18,6 +18,7 @@ package org.sonar.plugins.html.checks.style;
 
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.node.DocumentSummary;
 import org.sonar.plugins.html.node.TagNode;
 
 /**
@@ -29,6 +30,11 @@ import org.sonar.plugins.html.node.TagNode;
 @Rule(key = "InlineStyleCheck")
 public class InlineStyleCheck extends AbstractPageCheck {
 
+  @Override
+  public boolean isTriggeredBy(DocumentSummary summary) {
+    return summary.containsAttribute("style");
+  }
+
   @Override
   public void startElement(TagNode element) {
     if (element.hasProperty("style")) {
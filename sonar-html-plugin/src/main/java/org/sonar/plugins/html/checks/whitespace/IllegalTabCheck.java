@@ -16,29 +16,26 @@
  */
 package org.sonar.plugins.html.checks.whitespace;
 
-import java.io.IOException;
 import java.util.List;
 import org.sonar.check.Rule;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.SourceText;
 
 @Rule(key = "IllegalTabCheck")
 public class IllegalTabCheck extends AbstractPageCheck {
 
+  @Override
+  public boolean requiresContents() {
+    return true;
+  }
+
   @Override
   public void startDocument(List<Node> nodes) {
-    String content;
-    try {
-      content = getHtmlSourceCode().inputFile().contents();
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
-    }
-    String[] lines = content.split("\\r?\\n");
-    for (int i = 0; i < lines.length; i++) {
-      if (lines[i].contains("\t")) {
-        createViolation(i + 1, "Replace all tab characters in this file by sequences of white-spaces.");
-        break;
-      }
+    SourceText text = getHtmlSourceCode().getSourceText();
+    int tab = text.indexOf('\t');
+    if (tab >= 0) {
+      createViolation(text.line(tab), "Replace all tab characters in this file by sequences of white-spaces.");
     }
   }
 }
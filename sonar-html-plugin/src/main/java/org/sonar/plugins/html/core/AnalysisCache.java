@@ -0,0 +1,377 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.html.api.HtmlConstants;
+import org.sonar.plugins.html.checks.HtmlIssue;
+import org.sonar.plugins.html.checks.PreciseHtmlIssue;
+import org.sonar.plugins.html.rules.HtmlRulesDefinition;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
+import org.sonar.plugins.html.visitor.HtmlSourceCode.CpdToken;
+import org.sonar.plugins.html.visitor.HtmlSourceCode.Highlighting;
+import org.sonar.plugins.html.visitor.LineSet;
+
+/**
+ * Results of the analysis of files, kept in the analysis cache so that they can be replayed on the next analysis
+ * instead of analyzing files again.
+ * <p>
+ * Entries are keyed by the file, its content hash and a fingerprint of the analysis settings, so an entry is only found
+ * again when the file did not change. Issues are stored by rule, with the parameters of the rule, so that when the
+ * quality profile changes only the rules which were activated or whose parameters changed have to be run again.
+ */
+final class AnalysisCache {
+
+  private static final Logger LOG = Loggers.get(AnalysisCache.class);
+
+  /** Version of the format of the entries, to be increased whenever it changes. */
+  private static final int FORMAT_VERSION = 3;
+
+  private static final String PLUGIN_VERSION = pluginVersion();
+
+  private final SensorContext context;
+  private final boolean enabled;
+  private final String fingerprint;
+  private final Map<RuleKey, String> ruleParameters = new HashMap<>();
+
+  AnalysisCache(SensorContext context, boolean enabled) {
+    this.context = context;
+    this.enabled = enabled;
+    this.fingerprint = enabled ? fingerprint(context) : "";
+    if (enabled) {
+      for (ActiveRule rule : context.activeRules().findByRepository(HtmlRulesDefinition.REPOSITORY_KEY)) {
+        ruleParameters.put(rule.ruleKey(), new TreeMap<>(rule.params()).toString());
+      }
+    }
+  }
+
+  /**
+   * Results previously saved for the given file, or null when there are none for its current content.
+   */
+  @CheckForNull
+  CachedResults read(InputFile inputFile) {
+    if (!enabled) {
+      return null;
+    }
+    String key = key(inputFile);
+    byte[] data;
+    synchronized (this) {
+      if (!context.previousCache().contains(key)) {
+        return null;
+      }
+      try (InputStream inputStream = context.previousCache().read(key)) {
+        data = inputStream.readAllBytes();
+      } catch (IOException e) {
+        LOG.debug("Cannot read cached results of " + inputFile, e);
+        return null;
+      }
+    }
+    try {
+      return deserialize(inputFile, new DataInputStream(new ByteArrayInputStream(data)));
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Ignoring invalid cached results of " + inputFile, e);
+      return null;
+    }
+  }
+
+  /**
+   * Saves the results of the given source code for the next analysis.
+   */
+  synchronized void write(HtmlSourceCode sourceCode) {
+    if (enabled) {
+      context.nextCache().write(key(sourceCode.inputFile()), serialize(sourceCode));
+    }
+  }
+
+  /**
+   * Keeps the results previously saved for the given file for the next analysis.
+   */
+  synchronized void copyFromPrevious(InputFile inputFile) {
+    if (enabled) {
+      context.nextCache().copyFromPrevious(key(inputFile));
+    }
+  }
+
+  private String key(InputFile inputFile) {
+    return "html:results:" + inputFile.key() + ":" + inputFile.md5Hash() + ":" + fingerprint;
+  }
+
+  /**
+   * Digest of everything, besides the content of a file and the active rules, on which its results depend.
+   */
+  private static String fingerprint(SensorContext context) {
+    String settings = FORMAT_VERSION + "\n"
+      + PLUGIN_VERSION + "\n"
+      + context.config().get(HtmlConstants.STREAMING_THRESHOLD_PROP_KEY).orElse("") + "\n"
+      + context.config().get(HtmlConstants.STATE_MACHINE_TOKENIZER_PROP_KEY).orElse("") + "\n"
+      + context.fileSystem().encoding();
+    return digest(settings.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Version of the plugin, or the digest of its jar when the jar has no version, so that results are not replayed by
+   * another build of the plugin. Classes which are not loaded from a jar are only identified by their location.
+   */
+  private static String pluginVersion() {
+    String version = AnalysisCache.class.getPackage().getImplementationVersion();
+    if (version != null) {
+      return version;
+    }
+    CodeSource codeSource = AnalysisCache.class.getProtectionDomain().getCodeSource();
+    if (codeSource == null || codeSource.getLocation() == null) {
+      return "";
+    }
+    try {
+      Path location = Path.of(codeSource.getLocation().toURI());
+      return Files.isRegularFile(location) ? digest(Files.readAllBytes(location)) : location.toString();
+    } catch (IOException | URISyntaxException | RuntimeException e) {
+      LOG.debug("Cannot read the jar of the plugin", e);
+      return codeSource.getLocation().toString();
+    }
+  }
+
+  private static String digest(byte[] bytes) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Cannot compute the fingerprint of the analysis settings", e);
+    }
+  }
+
+  private byte[] serialize(HtmlSourceCode sourceCode) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(FORMAT_VERSION);
+
+      out.writeInt(sourceCode.getMeasures().size());
+      for (Map.Entry<Metric<Integer>, Integer> measure : sourceCode.getMeasures().entrySet()) {
+        writeString(out, measure.getKey().getKey());
+        out.writeInt(measure.getValue());
+      }
+
+      writeLines(out, sourceCode.getDetailedLinesOfCode());
+      writeLines(out, sourceCode.getNoSonarLines());
+
+      List<Highlighting> highlightings = sourceCode.getHighlightings();
+      out.writeInt(highlightings == null ? -1 : highlightings.size());
+      if (highlightings != null) {
+        for (Highlighting h : highlightings) {
+          out.writeInt(h.startLine());
+          out.writeInt(h.startColumn());
+          out.writeInt(h.endLine());
+          out.writeInt(h.endColumn());
+          writeString(out, h.typeOfText().name());
+        }
+      }
+
+      List<CpdToken> cpdTokens = sourceCode.getCpdTokens();
+      out.writeInt(cpdTokens == null ? -1 : cpdTokens.size());
+      if (cpdTokens != null) {
+        for (CpdToken token : cpdTokens) {
+          out.writeInt(token.startLine());
+          out.writeInt(token.startColumn());
+          out.writeInt(token.endLine());
+          out.writeInt(token.endColumn());
+          writeString(out, token.image());
+        }
+      }
+
+      // all active rules are written, including those without issues, as they were run too
+      Map<RuleKey, List<HtmlIssue>> issuesByRule = new HashMap<>();
+      for (RuleKey ruleKey : ruleParameters.keySet()) {
+        issuesByRule.put(ruleKey, new ArrayList<>());
+      }
+      for (HtmlIssue issue : sourceCode.getIssues()) {
+        issuesByRule.computeIfAbsent(issue.ruleKey(), ruleKey -> new ArrayList<>()).add(issue);
+      }
+      out.writeInt(issuesByRule.size());
+      for (Map.Entry<RuleKey, List<HtmlIssue>> entry : issuesByRule.entrySet()) {
+        writeString(out, entry.getKey().toString());
+        writeString(out, ruleParameters.get(entry.getKey()));
+        out.writeInt(entry.getValue().size());
+        for (HtmlIssue issue : entry.getValue()) {
+          writeIssue(out, issue);
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Cannot serialize the results of " + sourceCode.inputFile(), e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private CachedResults deserialize(InputFile inputFile, DataInputStream in) throws IOException {
+    if (in.readInt() != FORMAT_VERSION) {
+      throw new IllegalArgumentException("Unsupported format");
+    }
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+
+    int measures = in.readInt();
+    for (int i = 0; i < measures; i++) {
+      Metric<Integer> metric = CoreMetrics.getMetric(readString(in));
+      sourceCode.addMeasure(metric, in.readInt());
+    }
+
+    sourceCode.setDetailedLinesOfCode(readLines(in));
+    sourceCode.setNoSonarLines(readLines(in));
+
+    int highlightings = in.readInt();
+    if (highlightings >= 0) {
+      List<Highlighting> list = new ArrayList<>(highlightings);
+      for (int i = 0; i < highlightings; i++) {
+        list.add(new Highlighting(in.readInt(), in.readInt(), in.readInt(), in.readInt(), TypeOfText.valueOf(readString(in))));
+      }
+      sourceCode.setHighlightings(list);
+    }
+
+    int cpdTokens = in.readInt();
+    if (cpdTokens >= 0) {
+      List<CpdToken> list = new ArrayList<>(cpdTokens);
+      for (int i = 0; i < cpdTokens; i++) {
+        list.add(new CpdToken(in.readInt(), in.readInt(), in.readInt(), in.readInt(), readString(in)));
+      }
+      sourceCode.setCpdTokens(list);
+    }
+
+    // only the issues of the rules which are still active with the same parameters are kept
+    Set<RuleKey> staleRules = new HashSet<>(ruleParameters.keySet());
+    int rules = in.readInt();
+    for (int i = 0; i < rules; i++) {
+      RuleKey ruleKey = RuleKey.parse(readString(in));
+      String parameters = readString(in);
+      boolean upToDate = ruleParameters.containsKey(ruleKey) && ruleParameters.get(ruleKey).equals(parameters);
+      if (upToDate) {
+        staleRules.remove(ruleKey);
+      }
+      int issues = in.readInt();
+      for (int j = 0; j < issues; j++) {
+        HtmlIssue issue = readIssue(ruleKey, in);
+        if (upToDate) {
+          sourceCode.addIssue(issue);
+        }
+      }
+    }
+    return new CachedResults(sourceCode, staleRules);
+  }
+
+  private static void writeIssue(DataOutputStream out, HtmlIssue issue) throws IOException {
+    writeString(out, issue.message());
+    Integer line = issue.line();
+    out.writeInt(line == null ? -1 : line);
+    // a cost of 0 is kept, so whether the issue has a cost is written apart
+    Double cost = issue.cost();
+    out.writeBoolean(cost != null);
+    if (cost != null) {
+      out.writeDouble(cost);
+    }
+    boolean precise = issue instanceof PreciseHtmlIssue;
+    out.writeBoolean(precise);
+    if (precise) {
+      PreciseHtmlIssue preciseIssue = (PreciseHtmlIssue) issue;
+      out.writeInt(preciseIssue.startColumn());
+      out.writeInt(preciseIssue.endLine());
+      out.writeInt(preciseIssue.endColumn());
+    }
+  }
+
+  private static HtmlIssue readIssue(RuleKey ruleKey, DataInputStream in) throws IOException {
+    String message = readString(in);
+    int line = in.readInt();
+    Double cost = in.readBoolean() ? in.readDouble() : null;
+    if (in.readBoolean()) {
+      return new PreciseHtmlIssue(ruleKey, line, message, in.readInt(), in.readInt(), in.readInt());
+    }
+    Integer issueLine = line < 0 ? null : line;
+    return cost != null ? new HtmlIssue(ruleKey, issueLine, message, cost) : new HtmlIssue(ruleKey, issueLine, message);
+  }
+
+  private static void writeLines(DataOutputStream out, LineSet lines) throws IOException {
+    out.writeInt(lines.size());
+    for (int line = lines.nextLine(0); line >= 0; line = lines.nextLine(line + 1)) {
+      out.writeInt(line);
+    }
+  }
+
+  private static LineSet readLines(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    LineSet lines = new LineSet();
+    for (int i = 0; i < size; i++) {
+      lines.add(in.readInt());
+    }
+    return lines;
+  }
+
+  /**
+   * Unlike {@link DataOutputStream#writeUTF(String)}, not limited to 64KB, as token images or messages can be longer.
+   */
+  private static void writeString(DataOutputStream out, @Nullable String string) throws IOException {
+    byte[] bytes = string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes == null ? -1 : bytes.length);
+    if (bytes != null) {
+      out.write(bytes);
+    }
+  }
+
+  @CheckForNull
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Results read from the cache: the measures and lines of the file, with the issues of the rules which are up to date,
+   * and the active rules which have to be run again on the file.
+   */
+  record CachedResults(HtmlSourceCode sourceCode, Set<RuleKey> staleRules) {
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Java Flight Recorder events for the phases of the analysis of a file. Fields are only computed when an event is
+ * committed, so that events cost nothing when no recording is running.
+ */
+final class AnalysisEvents {
+
+  private AnalysisEvents() {
+  }
+
+  @Category({"SonarQube", "HTML"})
+  @StackTrace(false)
+  abstract static class FileEvent extends Event {
+
+    @Label("File")
+    String file;
+
+    @Label("Characters")
+    @Description("Number of characters of the file, 0 when it was not read")
+    long size;
+
+    @Label("Nodes")
+    @Description("Number of nodes of the file, 0 when they are not known")
+    int nodes;
+
+    @Label("Issues")
+    int issues;
+
+    void end(InputFile inputFile, long size, int nodes, int issues) {
+      end();
+      if (shouldCommit()) {
+        this.file = inputFile.toString();
+        this.size = size;
+        this.nodes = nodes;
+        this.issues = issues;
+        commit();
+      }
+    }
+  }
+
+  @Name("org.sonarsource.html.Read")
+  @Label("HTML File Read")
+  static final class Read extends FileEvent {
+  }
+
+  @Name("org.sonarsource.html.Lex")
+  @Label("HTML File Lexed")
+  static final class Lex extends FileEvent {
+  }
+
+  @Name("org.sonarsource.html.Scan")
+  @Label("HTML File Scanned")
+  @Description("Visit of the nodes by metrics and checks, including lexing for files analyzed in streaming mode")
+  static final class Scan extends FileEvent {
+  }
+
+  @Name("org.sonarsource.html.Tokens")
+  @Label("HTML Highlighting and Duplication Tokens")
+  static final class Tokens extends FileEvent {
+  }
+
+  @Name("org.sonarsource.html.Save")
+  @Label("HTML Results Saved")
+  static final class Save extends FileEvent {
+  }
+
+}
@@ -16,12 +16,24 @@
  */
 package org.sonar.plugins.html.core;
 
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.SonarProduct;
 import org.sonar.api.SonarRuntime;
 import org.sonar.api.batch.fs.FilePredicate;
@@ -33,6 +45,8 @@ import org.sonar.api.batch.rule.Checks;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.api.issue.NoSonarFilter;
@@ -46,16 +60,22 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.html.analyzers.ComplexityVisitor;
 import org.sonar.plugins.html.analyzers.PageCountLines;
 import org.sonar.plugins.html.api.HtmlConstants;
+import org.sonar.plugins.html.core.AnalysisCache.CachedResults;
 import org.sonar.plugins.html.checks.AbstractPageCheck;
 import org.sonar.plugins.html.checks.HtmlIssue;
 import org.sonar.plugins.html.checks.PreciseHtmlIssue;
 import org.sonar.plugins.html.lex.PageLexer;
 import org.sonar.plugins.html.lex.VueLexer;
+import org.sonar.plugins.html.node.DocumentSummary;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.SourceText;
 import org.sonar.plugins.html.rules.CheckClasses;
 import org.sonar.plugins.html.rules.HtmlRulesDefinition;
 import org.sonar.plugins.html.visitor.DefaultNodeVisitor;
 import org.sonar.plugins.html.visitor.HtmlAstScanner;
 import org.sonar.plugins.html.visitor.HtmlSourceCode;
+import org.sonar.plugins.html.visitor.HtmlSourceCode.CpdToken;
+import org.sonar.plugins.html.visitor.HtmlSourceCode.Highlighting;
 import org.sonar.plugins.html.visitor.NoSonarScanner;
 
 public final class HtmlSensor implements Sensor {
@@ -64,13 +84,13 @@ public final class HtmlSensor implements Sensor {
 
   private final SonarRuntime sonarRuntime;
   private final NoSonarFilter noSonarFilter;
-  private final Checks<Object> checks;
+  private final CheckFactory checkFactory;
   private final FileLinesContextFactory fileLinesContextFactory;
 
   public HtmlSensor(SonarRuntime sonarRuntime, NoSonarFilter noSonarFilter, FileLinesContextFactory fileLinesContextFactory, CheckFactory checkFactory) {
     this.sonarRuntime = sonarRuntime;
     this.noSonarFilter = noSonarFilter;
-    this.checks = checkFactory.create(HtmlRulesDefinition.REPOSITORY_KEY).addAnnotatedChecks((Iterable) CheckClasses.getCheckClasses());
+    this.checkFactory = checkFactory;
     this.fileLinesContextFactory = fileLinesContextFactory;
   }
 
@@ -95,9 +115,6 @@ public final class HtmlSensor implements Sensor {
 
     FileSystem fileSystem = sensorContext.fileSystem();
 
-    // configure page scanner and the visitors
-    final HtmlAstScanner scanner = setupScanner(sensorContext);
-
     FilePredicates predicates = fileSystem.predicates();
     Iterable<InputFile> inputFiles = fileSystem.inputFiles(
       predicates.and(
@@ -108,26 +125,280 @@ public final class HtmlSensor implements Sensor {
           )
     ));
 
-    for (InputFile inputFile : inputFiles) {
+    AnalysisCache cache = new AnalysisCache(sensorContext, isCacheEnabled(sensorContext));
+    Collection<List<InputFile>> identicalFiles = groupIdenticalFiles(inputFiles);
+    ProfilingReport profiling = sensorContext.config().getBoolean(HtmlConstants.PROFILING_PROP_KEY).orElse(false) ? new ProfilingReport() : null;
+    int threads = sensorContext.config().getInt(HtmlConstants.ANALYSIS_THREADS_PROP_KEY).orElse(1);
+    if (threads > 1) {
+      executeInParallel(sensorContext, cache, profiling, identicalFiles, threads);
+    } else {
+      executeSequentially(sensorContext, cache, profiling, identicalFiles);
+    }
+    if (profiling != null) {
+      profiling.save(sensorContext);
+    }
+  }
+
+  private void executeSequentially(SensorContext sensorContext, AnalysisCache cache, @Nullable ProfilingReport profiling,
+    Collection<List<InputFile>> identicalFiles) {
+    // configure page scanner and the visitors
+    final HtmlAstScanner scanner = setupScanner(sensorContext, profiling);
+
+    for (List<InputFile> files : identicalFiles) {
       if (sensorContext.isCancelled()) {
         return;
       }
+      analyze(sensorContext, scanner, cache, files);
+    }
+  }
+
+  /**
+   * Groups the files which have the same content, and for which this content gives the same results: the same charset,
+   * language and dialect, which is deduced from the file name.
+   */
+  private Collection<List<InputFile>> groupIdenticalFiles(Iterable<InputFile> inputFiles) {
+    Map<String, List<InputFile>> groups = new LinkedHashMap<>();
+    int count = 0;
+    for (InputFile inputFile : inputFiles) {
+      // the content hash is not available in SonarLint, where files are analyzed one at a time anyway
+      String hash = sonarRuntime.getProduct() == SonarProduct.SONARLINT ? null : inputFile.md5Hash();
+      String key = hash == null ? String.valueOf(count++) : identityKey(inputFile, hash);
+      groups.computeIfAbsent(key, k -> new ArrayList<>()).add(inputFile);
+    }
+    return groups.values();
+  }
+
+  private static String identityKey(InputFile inputFile, String hash) {
+    String filename = inputFile.filename();
+    String dialect = Stream.of(".vue", ".cshtml").filter(filename::endsWith).findFirst().orElse("");
+    return hash + ":" + inputFile.charset() + ":" + inputFile.language() + ":" + dialect;
+  }
+
+  private boolean isCacheEnabled(SensorContext sensorContext) {
+    return sonarRuntime.getProduct() != SonarProduct.SONARLINT
+      && sonarRuntime.getApiVersion().isGreaterThanOrEqual(Version.create(9, 4))
+      && sensorContext.isCacheEnabled();
+  }
+
+  /**
+   * Checks keep per-document state in fields, so each worker thread gets its own scanner with its own check instances.
+   * Workers only lex and scan, results are saved one file at a time.
+   */
+  private void executeInParallel(SensorContext sensorContext, AnalysisCache cache, @Nullable ProfilingReport profiling,
+    Collection<List<InputFile>> identicalFiles, int threads) {
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "html-analysis-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    ThreadLocal<HtmlAstScanner> scanners = ThreadLocal.withInitial(() -> setupScanner(sensorContext, profiling));
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (List<InputFile> files : identicalFiles) {
+        futures.add(executor.submit(() -> {
+          if (!sensorContext.isCancelled()) {
+            analyze(sensorContext, scanners.get(), cache, files);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failure during HTML analysis", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Analyzes the first of identical files, and saves its results on the other ones.
+   */
+  private void analyze(SensorContext sensorContext, HtmlAstScanner scanner, AnalysisCache cache, List<InputFile> identicalFiles) {
+    HtmlSourceCode sourceCode = analyze(sensorContext, scanner, cache, identicalFiles.get(0));
+    for (InputFile inputFile : identicalFiles.subList(1, identicalFiles.size())) {
+      if (sourceCode == null) {
+        analyze(sensorContext, scanner, cache, inputFile);
+      } else {
+        LOG.debug("Using results of identical file {} for {}", sourceCode.inputFile(), inputFile);
+        HtmlSourceCode copy = copy(sourceCode, inputFile);
+        replay(sensorContext, copy);
+        cache.write(copy);
+      }
+    }
+  }
+
+  /**
+   * Analyzes a file, or replays its cached results, and returns its results, or null when the analysis failed.
+   */
+  @CheckForNull
+  private HtmlSourceCode analyze(SensorContext sensorContext, HtmlAstScanner scanner, AnalysisCache cache, InputFile inputFile) {
+    CachedResults cachedResults = cache.read(inputFile);
+    if (cachedResults != null && cachedResults.staleRules().isEmpty()) {
+      LOG.debug("Using cached results of {}", inputFile);
+      replay(sensorContext, cachedResults.sourceCode());
+      cache.copyFromPrevious(inputFile);
+      return cachedResults.sourceCode();
+    }
+
+    HtmlSourceCode sourceCode = cachedResults == null ? new HtmlSourceCode(inputFile) : cachedResults.sourceCode();
+
+    try {
+      AnalysisEvents.Read readEvent = new AnalysisEvents.Read();
+      readEvent.begin();
+      readContents(sensorContext, sourceCode);
+      readEvent.end(inputFile, sourceCode.isStreamed() ? 0 : sourceCode.getSourceText().length(), 0, 0);
+
+      PageLexer lexer = createLexer(sensorContext, inputFile);
+      if (cachedResults != null) {
+        // measures and the issues of the other rules are known, only the rules which are new or were changed are run
+        LOG.debug("Using cached results of {} for all rules but {}", inputFile, cachedResults.staleRules());
+        Predicate<DefaultNodeVisitor> staleChecks = check -> cachedResults.staleRules().contains(((AbstractPageCheck) check).getRuleKey());
+        scan(scanner, lexer, sourceCode, staleChecks);
+        replay(sensorContext, sourceCode);
+      } else {
+        scan(scanner, lexer, sourceCode, null);
+        save(sensorContext, sourceCode);
+      }
+      cache.write(sourceCode);
+      return sourceCode;
+
+    } catch (Exception e) {
+      LOG.error("Cannot analyze file " + inputFile, e);
+      saveAnalysisError(sensorContext, inputFile, e);
+      return null;
+    }
+  }
 
-      HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+  private static HtmlSourceCode copy(HtmlSourceCode sourceCode, InputFile inputFile) {
+    HtmlSourceCode copy = new HtmlSourceCode(inputFile);
+    sourceCode.getMeasures().forEach(copy::addMeasure);
+    sourceCode.getIssues().forEach(copy::addIssue);
+    copy.setDetailedLinesOfCode(sourceCode.getDetailedLinesOfCode());
+    copy.setNoSonarLines(sourceCode.getNoSonarLines());
+    copy.setHighlightings(sourceCode.getHighlightings());
+    copy.setCpdTokens(sourceCode.getCpdTokens());
+    return copy;
+  }
 
-      try (Reader reader = new InputStreamReader(inputFile.inputStream(), inputFile.charset())) {
-        PageLexer lexer = inputFile.filename().endsWith(".vue") ? new VueLexer() : new PageLexer();
-        scanner.scan(lexer.parse(reader), sourceCode);
-        saveMetrics(sensorContext, sourceCode);
-        saveLineLevelMeasures(inputFile, sourceCode);
+  /**
+   * Scans the document with all the visitors, or only with the given checks when they are not null.
+   */
+  private static void scan(HtmlAstScanner scanner, PageLexer lexer, HtmlSourceCode sourceCode,
+    @Nullable Predicate<DefaultNodeVisitor> checks) throws IOException {
+    InputFile inputFile = sourceCode.inputFile();
+    if (sourceCode.isStreamed()) {
+      LOG.info("{} has more characters than the streaming threshold ({}): it is analyzed in streaming mode, so it is neither "
+        + "highlighted nor checked for duplication, and rules requiring the whole document are not applied", inputFile,
+        HtmlConstants.STREAMING_THRESHOLD_PROP_KEY);
+      AnalysisEvents.Scan scanEvent = new AnalysisEvents.Scan();
+      // nodes are only counted when the event is recorded
+      AtomicInteger nodeCount = new AtomicInteger();
+      try (Reader reader = sourceCode.openStream()) {
+        Consumer<Consumer<Node>> parser = scanEvent.isEnabled()
+          ? consumer -> lexer.parse(reader, node -> {
+            nodeCount.incrementAndGet();
+            consumer.accept(node);
+          })
+          : consumer -> lexer.parse(reader, consumer);
+        scanEvent.begin();
+        if (checks == null) {
+          scanner.scanStreaming(parser, sourceCode);
+        } else {
+          scanner.scanStreaming(parser, sourceCode, checks);
+        }
+      }
+      // the content of the file is not read at once, so its size is not known
+      scanEvent.end(inputFile, 0, nodeCount.get(), sourceCode.getIssues().size());
+    } else {
+      // the lexer, the nodes and the visitors share the characters of the source text
+      SourceText source = sourceCode.getSourceText();
+      AnalysisEvents.Lex lexEvent = new AnalysisEvents.Lex();
+      lexEvent.begin();
+      DocumentSummary summary = new DocumentSummary();
+      List<Node> nodes = lexer.parse(source, summary);
+      lexEvent.end(inputFile, source.length(), nodes.size(), 0);
 
-      } catch (Exception e) {
-        LOG.error("Cannot analyze file " + inputFile, e);
-        sensorContext.newAnalysisError()
-          .onFile(inputFile)
-          .message(e.getMessage())
-          .save();
+      AnalysisEvents.Scan scanEvent = new AnalysisEvents.Scan();
+      scanEvent.begin();
+      if (checks == null) {
+        scanner.scan(nodes, sourceCode, summary);
+      } else {
+        scanner.scan(nodes, sourceCode, summary, checks);
       }
+      scanEvent.end(inputFile, source.length(), nodes.size(), sourceCode.getIssues().size());
+    }
+  }
+
+  /**
+   * Reads the content of the file, unless it is larger than the streaming threshold when one is set.
+   */
+  private static void readContents(SensorContext sensorContext, HtmlSourceCode sourceCode) throws IOException {
+    Optional<Integer> threshold = sensorContext.config().getInt(HtmlConstants.STREAMING_THRESHOLD_PROP_KEY);
+    if (threshold.isPresent()) {
+      sourceCode.readContents(threshold.get());
+    } else {
+      sourceCode.getSourceText();
+    }
+  }
+
+  private static PageLexer createLexer(SensorContext sensorContext, InputFile inputFile) {
+    boolean stateMachine = sensorContext.config().getBoolean(HtmlConstants.STATE_MACHINE_TOKENIZER_PROP_KEY).orElse(false);
+    return inputFile.filename().endsWith(".vue") ? new VueLexer(stateMachine) : new PageLexer(stateMachine);
+  }
+
+  /**
+   * Saving goes through the sensor context, which is not meant to be used concurrently.
+   */
+  private synchronized void save(SensorContext sensorContext, HtmlSourceCode sourceCode) {
+    AnalysisEvents.Save saveEvent = new AnalysisEvents.Save();
+    saveEvent.begin();
+    saveHighlightingAndCpdTokens(sensorContext, sourceCode);
+    saveMetrics(sensorContext, sourceCode);
+    saveLineLevelMeasures(sourceCode.inputFile(), sourceCode);
+    saveEvent.end(sourceCode.inputFile(), 0, 0, sourceCode.getIssues().size());
+  }
+
+  /**
+   * Saves results read from the analysis cache, including the NOSONAR lines which the scanner reports when analyzing.
+   */
+  private synchronized void replay(SensorContext sensorContext, HtmlSourceCode sourceCode) {
+    if (!sourceCode.getNoSonarLines().isEmpty()) {
+      noSonarFilter.noSonarInFile(sourceCode.inputFile(), sourceCode.getNoSonarLines());
+    }
+    save(sensorContext, sourceCode);
+  }
+
+  private synchronized void saveAnalysisError(SensorContext sensorContext, InputFile inputFile, Exception e) {
+    sensorContext.newAnalysisError()
+      .onFile(inputFile)
+      .message(e.getMessage())
+      .save();
+  }
+
+  private static void saveHighlightingAndCpdTokens(SensorContext context, HtmlSourceCode sourceCode) {
+    List<Highlighting> highlightings = sourceCode.getHighlightings();
+    List<CpdToken> tokens = sourceCode.getCpdTokens();
+    if (highlightings == null || tokens == null) {
+      return;
+    }
+    InputFile inputFile = sourceCode.inputFile();
+    try {
+      NewHighlighting highlighting = context.newHighlighting().onFile(inputFile);
+      for (Highlighting h : highlightings) {
+        highlighting.highlight(h.startLine(), h.startColumn(), h.endLine(), h.endColumn(), h.typeOfText());
+      }
+      NewCpdTokens cpdTokens = context.newCpdTokens().onFile(inputFile);
+      for (CpdToken token : tokens) {
+        cpdTokens.addToken(token.startLine(), token.startColumn(), token.endLine(), token.endColumn(), token.image());
+      }
+      highlighting.save();
+      cpdTokens.save();
+    } catch (IllegalArgumentException e) {
+      LOG.warn("Giving up highlighting/handling duplication for file " + inputFile, e);
     }
   }
 
@@ -171,9 +442,7 @@ public final class HtmlSensor implements Sensor {
   private void saveLineLevelMeasures(InputFile inputFile, HtmlSourceCode htmlSourceCode) {
     FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(inputFile);
 
-    for (Integer line : htmlSourceCode.getDetailedLinesOfCode()) {
-      fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1);
-    }
+    htmlSourceCode.getDetailedLinesOfCode().forEachLine(line -> fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1));
 
     fileLinesContext.save();
   }
@@ -181,7 +450,7 @@ public final class HtmlSensor implements Sensor {
   /**
    * Create PageScanner with Visitors.
    */
-  private HtmlAstScanner setupScanner(SensorContext context) {
+  private HtmlAstScanner setupScanner(SensorContext context, @Nullable ProfilingReport profiling) {
     List<DefaultNodeVisitor> visitors = new ArrayList<>();
     if (context.runtime().getProduct() != SonarProduct.SONARLINT) {
       visitors.add(new HtmlTokensVisitor(context));
@@ -191,10 +460,14 @@ public final class HtmlSensor implements Sensor {
     visitors.add(new NoSonarScanner(noSonarFilter));
     HtmlAstScanner scanner = new HtmlAstScanner(visitors);
 
+    Checks<Object> checks = checkFactory.create(HtmlRulesDefinition.REPOSITORY_KEY).addAnnotatedChecks((Iterable) CheckClasses.getCheckClasses());
     for (Object check : checks.all()) {
       ((AbstractPageCheck) check).setRuleKey(checks.ruleKey(check));
       scanner.addVisitor((AbstractPageCheck) check);
     }
+    if (profiling != null) {
+      scanner.setProfiler(profiling.newProfiler());
+    }
     return scanner;
   }
 
@@ -20,23 +20,29 @@ import com.sonar.sslr.api.GenericTokenType;
 import com.sonar.sslr.api.Token;
 import com.sonar.sslr.api.TokenType;
 import com.sonar.sslr.api.Trivia;
-import java.io.IOException;
+import com.sonar.sslr.impl.Lexer;
+import java.util.ArrayList;
 import java.util.List;
-import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
-import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
-import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
-import org.sonar.api.utils.log.Logger;
-import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.visitor.DefaultNodeVisitor;
+import org.sonar.plugins.html.visitor.HtmlSourceCode.CpdToken;
+import org.sonar.plugins.html.visitor.HtmlSourceCode.Highlighting;
 
+/**
+ * Computes highlighting and duplication tokens. They are only recorded on the source code here, and saved by the sensor,
+ * so that files can be scanned concurrently.
+ * <p>
+ * The tokens are not derived from the nodes of the {@link org.sonar.plugins.html.lex.PageLexer}: {@link HtmlLexer}
+ * splits the text and the tags into words, attribute values and comments, also inside scripts, and duplications are
+ * detected on these tokens. Deriving them from the nodes would change the duplications reported on existing projects,
+ * so the file is lexed a second time, with a lexer built once per visitor.
+ */
 public class HtmlTokensVisitor extends DefaultNodeVisitor {
 
-  private static final Logger LOG = Loggers.get(HtmlTokensVisitor.class);
-
   private final SensorContext context;
+  private Lexer lexer;
 
   public HtmlTokensVisitor(SensorContext context) {
     this.context = context;
@@ -44,59 +50,57 @@ public class HtmlTokensVisitor extends DefaultNodeVisitor {
 
   @Override
   public void startDocument(List<Node> nodes) {
-    try {
-      highlightAndDuplicate();
-    } catch (IllegalArgumentException e) {
-      LOG.warn("Giving up highlighting/handling duplication for file " + getHtmlSourceCode().inputFile(), e);
-    }
-  }
-
-  private void highlightAndDuplicate() {
-    if (!getHtmlSourceCode().shouldComputeMetric()) {
+    // the tokens of a streamed file would be as large as its content, so it is neither highlighted nor checked for duplication
+    if (!getHtmlSourceCode().shouldComputeMetric() || getHtmlSourceCode().isStreamed()) {
       return;
     }
-    NewHighlighting highlighting = context.newHighlighting();
-    InputFile inputFile = getHtmlSourceCode().inputFile();
-    highlighting.onFile(inputFile);
-
-    NewCpdTokens cpdTokens = context.newCpdTokens();
-    cpdTokens.onFile(inputFile);
+    AnalysisEvents.Tokens tokensEvent = new AnalysisEvents.Tokens();
+    tokensEvent.begin();
+    // the lexer of the tokens only reads strings, which it copies into its own buffer
+    String fileContent = getHtmlSourceCode().getContents();
 
-    String fileContent;
-    try {
-      fileContent = inputFile.contents();
-    } catch (IOException e) {
-      throw new IllegalStateException("Cannot read " + inputFile, e);
-    }
-
-    for (Token token : HtmlLexer.create(context.fileSystem().encoding()).lex(fileContent)) {
+    List<Highlighting> highlightings = new ArrayList<>();
+    List<CpdToken> cpdTokens = new ArrayList<>();
+    for (Token token : lexer().lex(fileContent)) {
       TokenType tokenType = token.getType();
       if (!tokenType.equals(GenericTokenType.EOF)) {
         TokenLocation tokenLocation = new TokenLocation(token);
-        cpdTokens.addToken(tokenLocation.startLine(), tokenLocation.startCharacter(), tokenLocation.endLine(), tokenLocation.endCharacter(), token.getValue());
+        cpdTokens.add(new CpdToken(tokenLocation.startLine(), tokenLocation.startCharacter(), tokenLocation.endLine(), tokenLocation.endCharacter(), token.getValue()));
       }
       if (tokenType.equals(HtmlTokenType.DOCTYPE)) {
-        highlight(highlighting, token, TypeOfText.STRUCTURED_COMMENT);
+        highlight(highlightings, token, TypeOfText.STRUCTURED_COMMENT);
       } else if (tokenType.equals(HtmlTokenType.EXPRESSION)) {
-        highlight(highlighting, token, TypeOfText.ANNOTATION);
+        highlight(highlightings, token, TypeOfText.ANNOTATION);
       } else if (tokenType.equals(HtmlTokenType.TAG)) {
-        highlight(highlighting, token, TypeOfText.KEYWORD);
+        highlight(highlightings, token, TypeOfText.KEYWORD);
       } else if (tokenType.equals(HtmlTokenType.ATTRIBUTE)) {
         TokenLocation tokenLocation = new TokenLocation(token);
-        highlighting.highlight(tokenLocation.startLine(), tokenLocation.startCharacter() + /* = */ 1, tokenLocation.endLine(), tokenLocation.endCharacter(), TypeOfText.STRING);
+        highlightings.add(new Highlighting(tokenLocation.startLine(), tokenLocation.startCharacter() + /* = */ 1, tokenLocation.endLine(), tokenLocation.endCharacter(), TypeOfText.STRING));
       }
       for (Trivia trivia : token.getTrivia()) {
-        highlight(highlighting, trivia.getToken(), TypeOfText.COMMENT);
+        highlight(highlightings, trivia.getToken(), TypeOfText.COMMENT);
       }
     }
 
-    highlighting.save();
-    cpdTokens.save();
+    getHtmlSourceCode().setHighlightings(highlightings);
+    getHtmlSourceCode().setCpdTokens(cpdTokens);
+    tokensEvent.end(getHtmlSourceCode().inputFile(), fileContent.length(), nodes.size(), 0);
+  }
+
+  /**
+   * Building the lexer compiles all its regular expression channels, so it is done once and reused for every file
+   * scanned by this visitor.
+   */
+  private Lexer lexer() {
+    if (lexer == null) {
+      lexer = HtmlLexer.create(context.fileSystem().encoding());
+    }
+    return lexer;
   }
 
-  private static void highlight(NewHighlighting highlighting, Token token, TypeOfText typeOfText) {
+  private static void highlight(List<Highlighting> highlightings, Token token, TypeOfText typeOfText) {
     TokenLocation tokenLocation = new TokenLocation(token);
-    highlighting.highlight(tokenLocation.startLine(), tokenLocation.startCharacter(), tokenLocation.endLine(), tokenLocation.endCharacter(), typeOfText);
+    highlightings.add(new Highlighting(tokenLocation.startLine(), tokenLocation.startCharacter(), tokenLocation.endLine(), tokenLocation.endCharacter(), typeOfText));
   }
 
 }
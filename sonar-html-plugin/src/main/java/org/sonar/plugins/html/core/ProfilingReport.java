@@ -0,0 +1,168 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.html.checks.AbstractPageCheck;
+import org.sonar.plugins.html.visitor.DefaultNodeVisitor;
+import org.sonar.plugins.html.visitor.VisitorProfiler;
+import org.sonar.plugins.html.visitor.VisitorProfiler.Cost;
+import org.sonar.plugins.html.visitor.VisitorProfiler.VisitorFileCost;
+
+/**
+ * Gathers the measures of the profilers of all analysis threads, logs the costliest rules and files, and writes all
+ * measures to {@value #FILE_NAME} in the working directory, with the costliest rules on a single file.
+ */
+final class ProfilingReport {
+
+  private static final Logger LOG = Loggers.get(ProfilingReport.class);
+
+  static final String FILE_NAME = "html-profiling.json";
+  private static final int LOGGED_ENTRIES = 10;
+
+  private final List<VisitorProfiler> profilers = new ArrayList<>();
+
+  synchronized VisitorProfiler newProfiler() {
+    VisitorProfiler profiler = new VisitorProfiler();
+    profilers.add(profiler);
+    return profiler;
+  }
+
+  synchronized void save(SensorContext context) {
+    Map<String, Cost> byRule = new HashMap<>();
+    Map<String, Cost> byFile = new HashMap<>();
+    Map<RuleOnFile, Cost> byRuleOnFile = new HashMap<>();
+    for (VisitorProfiler profiler : profilers) {
+      profiler.costsByVisitor().forEach((visitor, cost) -> byRule.computeIfAbsent(name(visitor), name -> new Cost()).add(cost));
+      profiler.costsByFile().forEach((file, cost) -> byFile.computeIfAbsent(file, name -> new Cost()).add(cost));
+      for (VisitorFileCost cost : profiler.costliestVisitorFileCosts()) {
+        byRuleOnFile.computeIfAbsent(new RuleOnFile(name(cost.visitor()), cost.file()), key -> new Cost()).add(cost.cost());
+      }
+    }
+    List<Map.Entry<String, Cost>> rules = sorted(byRule);
+    List<Map.Entry<String, Cost>> files = sorted(byFile);
+    List<Map.Entry<RuleOnFile, Cost>> rulesOnFiles = sorted(byRuleOnFile);
+
+    LOG.info("Costliest HTML rules:\n{}", table("Rule", rules));
+    LOG.info("Costliest HTML files:\n{}", table("File", files));
+    LOG.info("Costliest HTML rules on a file:\n{}", table("Rule on file", rulesOnFiles));
+
+    Path path = context.fileSystem().workDir().toPath().resolve(FILE_NAME);
+    String json = "{\n  \"rules\": [" + json(rules, ProfilingReport::nameField) + "\n  ],\n  \"files\": [" + json(files, ProfilingReport::nameField)
+      + "\n  ],\n  \"rulesOnFiles\": [" + json(rulesOnFiles, RuleOnFile::fields) + "\n  ]\n}\n";
+    try {
+      Files.writeString(path, json, StandardCharsets.UTF_8);
+      LOG.info("HTML profiling report written to {}", path);
+    } catch (IOException e) {
+      LOG.warn("Cannot write HTML profiling report to " + path, e);
+    }
+  }
+
+  /**
+   * Checks are named after their rule, other visitors after their class.
+   */
+  private static String name(DefaultNodeVisitor visitor) {
+    if (visitor instanceof AbstractPageCheck check && check.getRuleKey() != null) {
+      return check.getRuleKey().toString();
+    }
+    return visitor.getClass().getSimpleName();
+  }
+
+  private static <K> List<Map.Entry<K, Cost>> sorted(Map<K, Cost> costs) {
+    List<Map.Entry<K, Cost>> entries = new ArrayList<>(costs.entrySet());
+    entries.sort(Comparator.<Map.Entry<K, Cost>>comparingLong(entry -> entry.getValue().wallTime()).reversed()
+      .thenComparing(entry -> entry.getKey().toString()));
+    return entries;
+  }
+
+  private static <K> String table(String title, List<Map.Entry<K, Cost>> entries) {
+    long totalWallTime = entries.stream().mapToLong(entry -> entry.getValue().wallTime()).sum();
+    StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%-50s | %14s | %13s | %14s | %8s", title, "Wall time (ms)", "CPU time (ms)", "Allocated (MB)", "Relative"));
+    for (Map.Entry<K, Cost> entry : entries.subList(0, Math.min(LOGGED_ENTRIES, entries.size()))) {
+      Cost cost = entry.getValue();
+      sb.append(String.format(Locale.ROOT, "%n%-50s | %14.3f | %13.3f | %14.3f | %7.1f%%",
+        entry.getKey(),
+        cost.wallTime() / 1e6,
+        cost.cpuTime() / 1e6,
+        cost.allocatedBytes() / (1024.0 * 1024.0),
+        totalWallTime == 0 ? 0.0 : (100.0 * cost.wallTime() / totalWallTime)));
+    }
+    return sb.toString();
+  }
+
+  private static <K> String json(List<Map.Entry<K, Cost>> entries, Function<K, String> fields) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < entries.size(); i++) {
+      Cost cost = entries.get(i).getValue();
+      sb.append(i == 0 ? "\n" : ",\n")
+        .append("    {").append(fields.apply(entries.get(i).getKey()))
+        .append(", \"calls\": ").append(cost.calls())
+        .append(", \"wallTimeNanos\": ").append(cost.wallTime())
+        .append(", \"cpuTimeNanos\": ").append(cost.cpuTime())
+        .append(", \"allocatedBytes\": ").append(cost.allocatedBytes())
+        .append('}');
+    }
+    return sb.toString();
+  }
+
+  private static String nameField(String name) {
+    return "\"name\": \"" + escape(name) + "\"";
+  }
+
+  private static String escape(String value) {
+    StringBuilder sb = new StringBuilder();
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < ' ') {
+        sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Cost of a rule, or of another visitor, on a single file.
+   */
+  private record RuleOnFile(String rule, String file) {
+
+    private String fields() {
+      return "\"rule\": \"" + escape(rule) + "\", \"file\": \"" + escape(file) + "\"";
+    }
+
+    @Override
+    public String toString() {
+      return rule + " on " + file;
+    }
+  }
+
+}
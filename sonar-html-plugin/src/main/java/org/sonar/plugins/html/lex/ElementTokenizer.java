@@ -145,13 +145,13 @@ class ElementTokenizer extends AbstractTokenizer<List<Node>> {
           QuoteMatcher quoteMatcher = new QuoteMatcher((char) ch);
           quoteMatcher.match(codeReader.peek());
           popTo(codeReader, quoteMatcher, sbValue);
-          attribute.setValue(unescapeQuotes(sbValue.toString(), (char) ch));
+          attribute.setValue(SymbolTable.value(unescapeQuotes(sbValue.toString(), (char) ch)));
         }
         codeReader.pop();
         attribute.setQuoteChar((char) ch);
       } else {
         popTo(codeReader, endUnquotedAttributeMatcher, sbValue);
-        attribute.setValue(sbValue.toString().trim());
+        attribute.setValue(SymbolTable.value(sbValue.toString().trim()));
       }
     }
   }
@@ -160,7 +160,7 @@ class ElementTokenizer extends AbstractTokenizer<List<Node>> {
     Attribute attribute;
     StringBuilder sbQName = new StringBuilder();
     popTo(codeReader, endQNameMatcher, sbQName);
-    attribute = new Attribute(sbQName.toString().trim());
+    attribute = new Attribute(SymbolTable.name(sbQName.toString().trim()));
     attribute.setLine(codeReader.getLinePosition() + element.getStartLinePosition() - 1);
     element.getAttributes().add(attribute);
   }
@@ -168,7 +168,7 @@ class ElementTokenizer extends AbstractTokenizer<List<Node>> {
   private static void handleBeforeNodeName(CodeReader codeReader, TagNode element) {
     StringBuilder sbNodeName = new StringBuilder();
     popTo(codeReader, endTokenMatcher, sbNodeName);
-    element.setNodeName(sbNodeName.toString());
+    element.setNodeName(SymbolTable.name(sbNodeName.toString()));
   }
 
   /**
@@ -16,17 +16,25 @@
  */
 package org.sonar.plugins.html.lex;
 
+import java.io.CharArrayReader;
+import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.plugins.html.node.DocumentSummary;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.NodeType;
+import org.sonar.plugins.html.node.SourceText;
 import org.sonar.plugins.html.node.TagNode;
 import org.sonar.sslr.channel.Channel;
 import org.sonar.sslr.channel.ChannelDispatcher;
@@ -97,6 +105,20 @@ public class PageLexer {
     "tbody", "td", "template", "textarea", "tfoot", "th", "thead", "time", "title", "tr", "track", "tt", "u", "ul",
     "var", "video", "wbr", "xmp"));
 
+  private final boolean stateMachine;
+
+  public PageLexer() {
+    this(false);
+  }
+
+  /**
+   * @param stateMachine whether the input is tokenized by the single pass {@link StateMachineTokenizer} instead of
+   *                     the channels
+   */
+  public PageLexer(boolean stateMachine) {
+    this.stateMachine = stateMachine;
+  }
+
   /**
    * Parse a nested node.
    */
@@ -115,30 +137,107 @@ public class PageLexer {
    * Parse the input into a list of tokens, with parent/child relations between the tokens.
    */
   public List<Node> parse(Reader reader) {
+    return parse(reader, new DocumentSummary());
+  }
 
-    // CodeReader reads the file stream
-    CodeReader codeReader = new CodeReader(reader);
+  /**
+   * Parse the input into a list of tokens, with parent/child relations between the tokens, and add the tokens to the
+   * summary of the document.
+   */
+  public List<Node> parse(Reader reader, DocumentSummary summary) {
+    List<Node> nodeList = new ArrayList<>();
+    if (stateMachine) {
+      new StateMachineTokenizer(read(reader), nodeList::add).tokenize();
+    } else {
+      tokenize(new CodeReader(reader), nodeList);
+    }
+    return buildHierarchy(nodeList, summary);
+  }
 
-    // ArrayList collects the nodes
+  /**
+   * Parse the characters of a page into a list of tokens, with parent/child relations between the tokens, and add the
+   * tokens to the summary of the document. The {@link StateMachineTokenizer} reads the characters in place, and its
+   * nodes refer to them, while the channels copy them into their own buffer.
+   */
+  public List<Node> parse(SourceText source, DocumentSummary summary) {
     List<Node> nodeList = new ArrayList<>();
+    if (stateMachine) {
+      new StateMachineTokenizer(source, nodeList::add).tokenize();
+    } else {
+      tokenize(new CodeReader(new CharArrayReader(source.array(), 0, source.length())), nodeList);
+    }
+    return buildHierarchy(nodeList, summary);
+  }
+
+  private static List<Node> buildHierarchy(List<Node> nodeList, DocumentSummary summary) {
+    NodeHierarchy hierarchy = new NodeHierarchy(true);
+    for (Node node : nodeList) {
+      hierarchy.add(node);
+      summary.add(node);
+    }
+    return nodeList;
+  }
+
+  /**
+   * Parse the input and send each node to the consumer as soon as it is complete, without retaining it.
+   * The parent of a node is set before it is sent, but nodes are not added to the children of their parent.
+   * <p>
+   * Whatever the tokenizer of this lexer, the input is tokenized by the {@link StateMachineTokenizer}, which reads it
+   * in a sliding window, as the channels buffer the whole input. Both produce the same nodes.
+   */
+  public void parse(Reader reader, Consumer<Node> consumer) {
+    NodeHierarchy hierarchy = new NodeHierarchy(false);
+    new StateMachineTokenizer(reader, node -> {
+      hierarchy.add(node);
+      consumer.accept(node);
+    }).tokenize();
+  }
 
+  private static void tokenize(CodeReader codeReader, List<Node> nodeList) {
     // ChannelDispatcher manages the tokenizers
     ChannelDispatcher<List<Node>> channelDispatcher = ChannelDispatcher.builder().addChannels((Channel[]) tokenizers.toArray(new Channel[tokenizers.size()])).build();
     channelDispatcher.consume(codeReader, nodeList);
+  }
 
-    createNodeHierarchy(nodeList);
-
-    return nodeList;
+  /**
+   * Reads the input into an array which is not trimmed, the source text only covers its characters.
+   */
+  private static SourceText read(Reader reader) {
+    try {
+      char[] buffer = new char[8192];
+      int length = 0;
+      int read;
+      while ((read = reader.read(buffer, length, buffer.length - length)) != -1) {
+        length += read;
+        if (length == buffer.length) {
+          buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+      }
+      return new SourceText(buffer, length);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read the page", e);
+    }
   }
 
   /**
-   * Scan the nodes and build the hierarchy of parent and child nodes.
+   * Builds the hierarchy of parent and child nodes, one node at a time.
+   * <p>
+   * The names of the open elements are counted, so that a mismatched end tag does not look through the whole stack
+   * of open elements for a matching one.
    */
-  private static void createNodeHierarchy(List<Node> nodeList) {
-    Deque<TagNode> openElementStack = new ArrayDeque<>();
-    for (Node node : nodeList) {
+  private static final class NodeHierarchy {
+
+    private final Deque<TagNode> openElementStack = new ArrayDeque<>();
+    private final Map<String, Integer> openElementNames = new HashMap<>();
+    private final boolean addToChildren;
+
+    private NodeHierarchy(boolean addToChildren) {
+      this.addToChildren = addToChildren;
+    }
+
+    private void add(Node node) {
       if (node.getNodeType() != NodeType.TAG) {
-        continue;
+        return;
       }
       TagNode element = (TagNode) node;
 
@@ -147,28 +246,62 @@ public class PageLexer {
         TagNode parent = openElementStack.peek();
         while (parent != null
           && (shouldCloseParent(nodeName(element), nodeName(parent)) || isVoidElement(parent))) {
-          openElementStack.pop();
+          pop();
           parent = openElementStack.peek();
         }
-        element.setParent(parent);
-        openElementStack.push(element);
+        element.setParent(parent, addToChildren);
+        push(element);
       }
 
       // end element
       if (isEndElement(element) && !openElementStack.isEmpty()) {
         TagNode openElement = openElementStack.peek();
         if (openElement.equalsElementName(element.getNodeName())) {
-          openElementStack.pop();
+          pop();
         } else {
           // non-well formed, close HTML elements if there is matching open element
-          if (openElementStack.stream().anyMatch(tag -> tag.equalsElementName(element.getNodeName()))) {
+          if (isOpen(element.getNodeName())) {
             while (!openElement.equalsElementName(element.getNodeName()) && isHtmlElement(openElement)) {
-              openElement = openElementStack.pop();
+              openElement = pop();
             }
           }
         }
       }
     }
+
+    private void push(TagNode element) {
+      openElementStack.push(element);
+      count(element, 1);
+    }
+
+    private TagNode pop() {
+      TagNode element = openElementStack.pop();
+      count(element, -1);
+      return element;
+    }
+
+    /**
+     * An element is counted under its name and under its local name, as {@link TagNode#equalsElementName(String)}
+     * matches both.
+     */
+    private void count(TagNode element, int delta) {
+      String nodeName = element.getLowerCaseName();
+      String localName = DocumentSummary.foldCase(element.getLocalName());
+      openElementNames.merge(nodeName, delta, PageLexer::sumOrRemove);
+      if (!localName.equals(nodeName)) {
+        openElementNames.merge(localName, delta, PageLexer::sumOrRemove);
+      }
+    }
+
+    private boolean isOpen(@Nullable String name) {
+      return name != null && openElementNames.containsKey(DocumentSummary.foldCase(name));
+    }
+  }
+
+  @CheckForNull
+  private static Integer sumOrRemove(Integer count, Integer delta) {
+    int sum = count + delta;
+    return sum == 0 ? null : sum;
   }
 
   private static boolean isVoidElement(TagNode parent) {
@@ -219,6 +352,6 @@ public class PageLexer {
   }
 
   private static String nodeName(TagNode node) {
-    return node.getNodeName().toLowerCase(Locale.ROOT);
+    return node.getLowerCaseName();
   }
 }
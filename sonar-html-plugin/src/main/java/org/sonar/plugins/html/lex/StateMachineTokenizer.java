@@ -0,0 +1,640 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.lex;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import org.sonar.plugins.html.node.Attribute;
+import org.sonar.plugins.html.node.CommentNode;
+import org.sonar.plugins.html.node.DirectiveNode;
+import org.sonar.plugins.html.node.ExpressionNode;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.NodeType;
+import org.sonar.plugins.html.node.SourceText;
+import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.node.TextNode;
+
+/**
+ * Single pass tokenizer for web pages.
+ * <p>
+ * Instead of offering every position to a chain of channels, the kind of token is selected by dispatching on the
+ * characters at the current position, and tags are split into name and attributes directly in the input buffer.
+ * Nodes refer to the input by offsets, their code and positions are only computed when requested.
+ * The produced nodes are identical to the ones produced by the channels used by {@link PageLexer}, including for
+ * malformed input: the rules of {@link AbstractTokenizer}, {@link ElementTokenizer} and {@link TextTokenizer} are
+ * reproduced here and must be kept in sync with them.
+ * <p>
+ * A streamed input is read in a sliding window, so that only the longest token, rather than the whole input, is held
+ * in memory.
+ */
+final class StateMachineTokenizer {
+
+  private static final char EOF = (char) -1;
+  private static final String END_SCRIPT = "</script>";
+
+  private enum TokenType {
+    HTML_COMMENT("<!--", "-->"),
+    JSP_COMMENT("<%--", "--%>"),
+    DOCTYPE("<!DOCTYPE", ">"),
+    XML_DIRECTIVE("<?", "?>"),
+    JSP_DIRECTIVE("<%@", "%>"),
+    EXPRESSION("<%", "%>"),
+    CDATA("<![CDATA[", "]]>"),
+    ELEMENT("<", ">"),
+    TEXT("", "");
+
+    private final char[] startChars;
+    private final char[] endChars;
+
+    TokenType(String startChars, String endChars) {
+      this.startChars = startChars.toCharArray();
+      this.endChars = endChars.toCharArray();
+    }
+
+    private boolean isComment() {
+      return this == HTML_COMMENT || this == JSP_COMMENT;
+    }
+  }
+
+  private enum ParseMode {
+    BEFORE_ATTRIBUTE_NAME, BEFORE_ATTRIBUTE_VALUE, BEFORE_NODE_NAME
+  }
+
+  /**
+   * Initial size of the window in which a streamed input is read. It grows to hold the longest token.
+   */
+  private static final int WINDOW_SIZE = 1 << 16;
+
+  /**
+   * Characters which must be read past the end of a token before it is produced from a streamed input, so that all the
+   * characters on which its type, its end and its positions depend are in the window. The longest start characters,
+   * those of {@code <!DOCTYPE} and {@code <![CDATA[}, have 9 characters.
+   */
+  private static final int LOOKAHEAD = 16;
+
+  @Nullable
+  private final SourceText source;
+  @Nullable
+  private final Reader reader;
+  private final Consumer<Node> nodes;
+
+  private char[] input;
+  private int length;
+  private boolean endOfInput;
+  private int offset;
+  @Nullable
+  private Node lastNode;
+
+  // position of the offset in a streamed input
+  private int line = 1;
+  private int column;
+
+  /**
+   * @param source characters of the page, which are read in place and to which the nodes refer
+   */
+  StateMachineTokenizer(SourceText source, Consumer<Node> nodes) {
+    this.source = source;
+    this.reader = null;
+    this.nodes = nodes;
+    this.input = source.array();
+    this.length = source.length();
+    this.endOfInput = true;
+  }
+
+  /**
+   * @param reader input which is read in a window: only the characters of the current token and a few following ones
+   *               are held in memory, and the code and the positions of each node are set when it is produced
+   */
+  StateMachineTokenizer(Reader reader, Consumer<Node> nodes) {
+    this(reader, WINDOW_SIZE, nodes);
+  }
+
+  StateMachineTokenizer(Reader reader, int windowSize, Consumer<Node> nodes) {
+    this.source = null;
+    this.reader = reader;
+    this.nodes = nodes;
+    this.input = new char[windowSize];
+  }
+
+  void tokenize() {
+    try {
+      while (true) {
+        if (!endOfInput && length - offset < LOOKAHEAD) {
+          read();
+        }
+        if (offset >= length) {
+          return;
+        }
+        TokenType type = tokenTypeAt(input, offset, length);
+        int end = type == TokenType.TEXT ? endOfText() : (endOfToken(type, input, offset, length) + type.endChars.length);
+        if (!endOfInput && end + LOOKAHEAD > length) {
+          // the token may end past the window, so it is tokenized again once more characters are read
+          read();
+        } else if (type == TokenType.TEXT) {
+          text(end);
+        } else {
+          token(type, end);
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read the page", e);
+    }
+  }
+
+  /**
+   * Moves the current token to the start of the window, enlarges the window when the token fills most of it, and reads
+   * the input until the window is full.
+   */
+  private void read() throws IOException {
+    int kept = length - offset;
+    if (kept > input.length / 2) {
+      char[] window = new char[input.length * 2];
+      System.arraycopy(input, offset, window, 0, kept);
+      input = window;
+    } else {
+      System.arraycopy(input, offset, input, 0, kept);
+    }
+    offset = 0;
+    length = kept;
+    while (length < input.length) {
+      int read = reader.read(input, length, input.length - length);
+      if (read < 0) {
+        endOfInput = true;
+        return;
+      }
+      length += read;
+    }
+  }
+
+  private int endOfText() {
+    return inScript() ? endOfScript(offset) : endOfText(input, offset, length);
+  }
+
+  private void text(int end) {
+    TextNode node = new TextNode();
+    setSource(node, offset, end);
+    offset = end;
+    add(node);
+  }
+
+  private void token(TokenType type, int codeEnd) {
+    Node node = createNode(type);
+    int start = offset;
+    offset = Math.min(codeEnd, length);
+    setSource(node, start, offset);
+    if (codeEnd > length) {
+      node.setCode(code(input, start, codeEnd, length));
+    }
+
+    if (type == TokenType.DOCTYPE) {
+      DoctypeTokenizer.parseToken((DirectiveNode) node);
+    } else if (type == TokenType.ELEMENT || type == TokenType.XML_DIRECTIVE || type == TokenType.JSP_DIRECTIVE) {
+      if (codeEnd <= length) {
+        new ElementParser(input, start, codeEnd, (TagNode) node).parse();
+      } else {
+        // unterminated tag at the end of the input: its code is padded and must be parsed as such
+        char[] code = node.getCode().toCharArray();
+        new ElementParser(code, 0, code.length, (TagNode) node).parse();
+      }
+    }
+    add(node);
+  }
+
+  /**
+   * Attaches the node to the page, or sets its code and its positions when the input is streamed, as the window is then
+   * overwritten by the following characters.
+   */
+  private void setSource(Node node, int start, int end) {
+    if (source != null) {
+      node.setSource(source, start, end);
+      return;
+    }
+    node.setCode(new String(input, start, end - start));
+    node.setStartLinePosition(line);
+    node.setStartColumnPosition(column);
+    for (int i = start; i < end; i++) {
+      if (isLineBreak(input, i, length)) {
+        line++;
+        column = 0;
+      } else {
+        column++;
+      }
+    }
+    node.setEndLinePosition(line);
+    node.setEndColumnPosition(column);
+  }
+
+  private void add(Node node) {
+    lastNode = node;
+    nodes.accept(node);
+  }
+
+  private static Node createNode(TokenType type) {
+    switch (type) {
+      case HTML_COMMENT, JSP_COMMENT:
+        CommentNode comment = new CommentNode();
+        comment.setHtml(type == TokenType.HTML_COMMENT);
+        return comment;
+      case DOCTYPE, XML_DIRECTIVE, JSP_DIRECTIVE:
+        return new DirectiveNode();
+      case EXPRESSION:
+        return new ExpressionNode();
+      case CDATA:
+        TagNode cdata = new TagNode();
+        cdata.setNodeName("![CDATA[");
+        return cdata;
+      default:
+        return new TagNode();
+    }
+  }
+
+  private boolean inScript() {
+    if (lastNode != null && lastNode.getNodeType() == NodeType.TAG) {
+      TagNode tag = (TagNode) lastNode;
+      return !tag.isEndElement() && "script".equalsIgnoreCase(tag.getNodeName());
+    }
+    return false;
+  }
+
+  private int endOfScript(int start) {
+    for (int i = start + 1; i < length; i++) {
+      char ch = input[i];
+      if (ch == EOF || (ch == '<' && regionMatchesIgnoreCase(input, i, length, END_SCRIPT))) {
+        return i;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Selects the token starting at the given position, in the order the channels of {@link PageLexer} are tried.
+   */
+  private static TokenType tokenTypeAt(char[] buffer, int start, int limit) {
+    if (buffer[start] != '<') {
+      return TokenType.TEXT;
+    }
+    char next = charAt(buffer, start + 1, limit);
+    switch (next) {
+      case '!':
+        if (startsWith(buffer, start, limit, TokenType.HTML_COMMENT)) {
+          return TokenType.HTML_COMMENT;
+        }
+        if (startsWith(buffer, start, limit, TokenType.DOCTYPE)) {
+          return TokenType.DOCTYPE;
+        }
+        if (startsWith(buffer, start, limit, TokenType.CDATA)) {
+          return TokenType.CDATA;
+        }
+        break;
+      case '%':
+        if (startsWith(buffer, start, limit, TokenType.JSP_COMMENT)) {
+          return TokenType.JSP_COMMENT;
+        }
+        return startsWith(buffer, start, limit, TokenType.JSP_DIRECTIVE) ? TokenType.JSP_DIRECTIVE : TokenType.EXPRESSION;
+      case '?':
+        return TokenType.XML_DIRECTIVE;
+      default:
+        break;
+    }
+    int nameStart = next == '/' || next == '!' ? (start + 2) : (start + 1);
+    char nameStartChar = charAt(buffer, nameStart, limit);
+    if (NormalElementTokenizer.isValidSingleCharCodeNameStartChar(nameStartChar)
+      || NormalElementTokenizer.isValidSurrogatePairNameStartChar(nameStartChar, charAt(buffer, nameStart + 1, limit))) {
+      return TokenType.ELEMENT;
+    }
+    return TokenType.TEXT;
+  }
+
+  /**
+   * Returns the position of the end characters of the token, or the limit when the token is not terminated.
+   * Comments end at the first end characters, other tokens skip double quoted strings and nested tokens.
+   */
+  private static int endOfToken(TokenType type, char[] buffer, int start, int limit) {
+    if (type.isComment()) {
+      for (int i = start + 1; i < limit; i++) {
+        if (regionMatches(buffer, i, limit, type.endChars)) {
+          return i;
+        }
+      }
+      return limit;
+    }
+    boolean quoting = false;
+    int nesting = 0;
+    for (int i = start + 1; i < limit; i++) {
+      if (buffer[i] == '"') {
+        quoting = !quoting;
+      }
+      if (!quoting) {
+        if (startsWith(buffer, i, limit, type)) {
+          nesting++;
+        } else if (regionMatches(buffer, i, limit, type.endChars)) {
+          nesting--;
+          if (nesting < 0) {
+            return i;
+          }
+        }
+      }
+    }
+    return limit;
+  }
+
+  private static int endOfText(char[] buffer, int start, int limit) {
+    for (int i = start + 1; i < limit; i++) {
+      if (buffer[i] == '<') {
+        return i;
+      }
+    }
+    return limit;
+  }
+
+  /**
+   * The end characters of a token which is not terminated are read past the limit, as {@link AbstractTokenizer} does.
+   */
+  private static String code(char[] buffer, int start, int end, int limit) {
+    if (end <= limit) {
+      return new String(buffer, start, end - start);
+    }
+    StringBuilder sb = new StringBuilder(end - start);
+    sb.append(buffer, start, limit - start);
+    for (int i = limit; i < end; i++) {
+      sb.append(EOF);
+    }
+    return sb.toString();
+  }
+
+  private static char charAt(char[] buffer, int index, int limit) {
+    return index < limit ? buffer[index] : EOF;
+  }
+
+  private static boolean isLineBreak(char[] buffer, int index, int limit) {
+    char ch = buffer[index];
+    return ch == '\n' || (ch == '\r' && (index + 1 >= limit || buffer[index + 1] != '\n'));
+  }
+
+  private static boolean startsWith(char[] buffer, int start, int limit, TokenType type) {
+    char[] chars = type.startChars;
+    if (start + chars.length > limit) {
+      return false;
+    }
+    for (int i = 0; i < chars.length; i++) {
+      if (Character.toLowerCase(buffer[start + i]) != Character.toLowerCase(chars[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean regionMatches(char[] buffer, int start, int limit, char[] chars) {
+    if (start + chars.length > limit) {
+      return false;
+    }
+    for (int i = 0; i < chars.length; i++) {
+      if (buffer[start + i] != chars[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Same comparison as {@link String#equalsIgnoreCase(String)}.
+   */
+  private static boolean regionMatchesIgnoreCase(char[] buffer, int start, int limit, String string) {
+    if (start + string.length() > limit) {
+      return false;
+    }
+    for (int i = 0; i < string.length(); i++) {
+      char c1 = buffer[start + i];
+      char c2 = string.charAt(i);
+      if (c1 != c2) {
+        char u1 = Character.toUpperCase(c1);
+        char u2 = Character.toUpperCase(c2);
+        if (u1 != u2 && Character.toLowerCase(u1) != Character.toLowerCase(u2)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Splits the code of a tag, held in {@code buffer} between {@code start} and {@code end}, into node name and
+   * attributes.
+   */
+  private static final class ElementParser {
+
+    private final char[] buffer;
+    private final int end;
+    private final TagNode element;
+    private final List<Attribute> attributes;
+
+    private int position;
+    private int lineScanPosition;
+    private int line = 1;
+
+    private ElementParser(char[] buffer, int start, int end, TagNode element) {
+      this.buffer = buffer;
+      this.position = start;
+      this.lineScanPosition = start;
+      this.end = end;
+      this.element = element;
+      this.attributes = element.getAttributes();
+    }
+
+    private void parse() {
+      ParseMode mode = ParseMode.BEFORE_NODE_NAME;
+      while (position < end) {
+        char ch = buffer[position];
+        if (Character.isWhitespace(ch)) {
+          position++;
+          continue;
+        }
+        switch (ch) {
+          case '=':
+            mode = ParseMode.BEFORE_ATTRIBUTE_VALUE;
+            position++;
+            continue;
+          case '<':
+            if (mode == ParseMode.BEFORE_ATTRIBUTE_NAME) {
+              nestedToken();
+            } else {
+              position++;
+            }
+            continue;
+          case '>', '/', '%', '@':
+            position++;
+            continue;
+          default:
+            break;
+        }
+        if (mode == ParseMode.BEFORE_NODE_NAME) {
+          nodeName();
+        } else if (mode == ParseMode.BEFORE_ATTRIBUTE_NAME) {
+          attributeName();
+        } else {
+          attributeValue(ch);
+        }
+        mode = ParseMode.BEFORE_ATTRIBUTE_NAME;
+      }
+    }
+
+    private void nodeName() {
+      int nameEnd = position + 1;
+      while (nameEnd < end && buffer[nameEnd] != '>' && buffer[nameEnd] != '/' && !Character.isWhitespace(buffer[nameEnd])) {
+        nameEnd++;
+      }
+      element.setNodeName(SymbolTable.name(buffer, position, nameEnd));
+      position = nameEnd;
+    }
+
+    private void attributeName() {
+      int nameEnd = position + 1;
+      while (nameEnd < end && buffer[nameEnd] != '=' && buffer[nameEnd] != '>' && !Character.isWhitespace(buffer[nameEnd])) {
+        nameEnd++;
+      }
+      int nameStart = trimStart(position, nameEnd);
+      Attribute attribute = new Attribute(SymbolTable.name(buffer, nameStart, trimEnd(nameStart, nameEnd)));
+      position = nameEnd;
+      attribute.setLine(lineAt(position) + element.getStartLinePosition() - 1);
+      attributes.add(attribute);
+    }
+
+    private void attributeValue(char ch) {
+      if (attributes.isEmpty()) {
+        return;
+      }
+      Attribute attribute = attributes.get(attributes.size() - 1);
+      if (ch == '\'' || ch == '"') {
+        position++;
+        if (peek() != ch) {
+          int valueStart = position;
+          QuoteMatcher quoteMatcher = new QuoteMatcher(ch);
+          quoteMatcher.match(peek());
+          if (position < end) {
+            int next;
+            do {
+              position++;
+              next = peek();
+            } while (!quoteMatcher.match(next) && next != -1);
+          }
+          attribute.setValue(quotedValue(valueStart, position, ch));
+        }
+        if (position < end) {
+          position++;
+        }
+        attribute.setQuoteChar(ch);
+      } else {
+        int valueEnd = position + 1;
+        while (valueEnd < end && !isEndOfUnquotedValue(buffer[valueEnd])) {
+          valueEnd++;
+        }
+        int valueStart = trimStart(position, valueEnd);
+        attribute.setValue(SymbolTable.value(buffer, valueStart, trimEnd(valueStart, valueEnd)));
+        position = valueEnd;
+      }
+    }
+
+    private String quotedValue(int valueStart, int valueEnd, char quote) {
+      for (int i = valueStart; i < valueEnd; i++) {
+        if (buffer[i] == '\\') {
+          return new String(buffer, valueStart, valueEnd - valueStart).replace("\\" + quote, Character.toString(quote));
+        }
+      }
+      return SymbolTable.value(buffer, valueStart, valueEnd);
+    }
+
+    /**
+     * Same start as {@link String#trim()} of the characters between {@code start} and {@code end}.
+     */
+    private int trimStart(int start, int end) {
+      while (start < end && buffer[start] <= ' ') {
+        start++;
+      }
+      return start;
+    }
+
+    private int trimEnd(int start, int end) {
+      while (end > start && buffer[end - 1] <= ' ') {
+        end--;
+      }
+      return end;
+    }
+
+    /**
+     * A token nested in the attributes of a tag is added as an attribute named after its code.
+     */
+    private void nestedToken() {
+      TokenType type = tokenTypeAt(buffer, position, end);
+      int codeEnd;
+      if (type == TokenType.TEXT) {
+        codeEnd = endOfText(buffer, position, end);
+      } else {
+        codeEnd = endOfToken(type, buffer, position, end) + type.endChars.length;
+      }
+      attributes.add(new Attribute(code(buffer, position, codeEnd, end)));
+      position = Math.min(codeEnd, end);
+    }
+
+    private int peek() {
+      return position < end ? buffer[position] : -1;
+    }
+
+    private int lineAt(int index) {
+      for (; lineScanPosition < index; lineScanPosition++) {
+        if (isLineBreak(buffer, lineScanPosition, end)) {
+          line++;
+        }
+      }
+      return line;
+    }
+
+    private static boolean isEndOfUnquotedValue(char ch) {
+      return Character.isWhitespace(ch) || ch == '"' || ch == '\'' || ch == '=' || ch == '<' || ch == '>' || ch == '`';
+    }
+  }
+
+  /**
+   * Finds the end of a quoted attribute value, keeping track of the quotes nested in the value.
+   */
+  private static final class QuoteMatcher {
+
+    private final StringBuilder openQuotes = new StringBuilder();
+    private int previousChar;
+
+    private QuoteMatcher(char quote) {
+      openQuotes.append(quote);
+    }
+
+    private boolean match(int character) {
+      boolean result = false;
+      if ((character == '\'' || character == '"') && previousChar != '\\') {
+        int last = openQuotes.length() - 1;
+        if (openQuotes.charAt(last) == character) {
+          openQuotes.setLength(last);
+        } else {
+          openQuotes.append((char) character);
+        }
+        result = openQuotes.length() == 0;
+      }
+      previousChar = character;
+      return result;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.lex;
+
+/**
+ * Canonical instances of the tag names, attribute names and short attribute values produced by the tokenizers, so that
+ * the thousands of "div", "class" or "text/javascript" of a project share a single string.
+ * <p>
+ * The table is a cache of fixed size, shared by all the analysis threads: each name is looked up in two slots, and a
+ * name replaces the least recently added one of its slots. Slots are read and written without locking, which is safe
+ * because strings are immutable; a race only leads to a duplicate instance. As a result, equal names are usually, but
+ * not always, the same instance: names are still compared with {@link String#equals(Object)}, whose identity check
+ * then succeeds immediately.
+ */
+final class SymbolTable {
+
+  static final int MAX_NAME_LENGTH = 32;
+  static final int MAX_VALUE_LENGTH = 16;
+
+  private static final int SIZE = 1 << 13;
+  private static final String[] SYMBOLS = new String[SIZE];
+
+  private SymbolTable() {
+  }
+
+  static String name(char[] chars, int start, int end) {
+    return intern(chars, start, end, MAX_NAME_LENGTH);
+  }
+
+  static String name(String name) {
+    return intern(name, MAX_NAME_LENGTH);
+  }
+
+  static String value(char[] chars, int start, int end) {
+    return intern(chars, start, end, MAX_VALUE_LENGTH);
+  }
+
+  static String value(String value) {
+    return intern(value, MAX_VALUE_LENGTH);
+  }
+
+  /**
+   * Canonical instance of the characters between {@code start} and {@code end}. No string is created when the
+   * characters are found in the table.
+   */
+  private static String intern(char[] chars, int start, int end, int maxLength) {
+    int length = end - start;
+    if (length > maxLength) {
+      return new String(chars, start, length);
+    }
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + chars[i];
+    }
+    int slot = slot(hash);
+    String symbol = SYMBOLS[slot];
+    if (symbol != null && equals(symbol, chars, start, length)) {
+      return symbol;
+    }
+    String other = SYMBOLS[slot ^ 1];
+    if (other != null && equals(other, chars, start, length)) {
+      return other;
+    }
+    return add(slot, new String(chars, start, length));
+  }
+
+  private static String intern(String string, int maxLength) {
+    if (string.length() > maxLength) {
+      return string;
+    }
+    int slot = slot(string.hashCode());
+    String symbol = SYMBOLS[slot];
+    if (string.equals(symbol)) {
+      return symbol;
+    }
+    String other = SYMBOLS[slot ^ 1];
+    if (string.equals(other)) {
+      return other;
+    }
+    return add(slot, string);
+  }
+
+  private static String add(int slot, String symbol) {
+    SYMBOLS[slot ^ 1] = SYMBOLS[slot];
+    SYMBOLS[slot] = symbol;
+    return symbol;
+  }
+
+  private static int slot(int hash) {
+    return (hash ^ (hash >>> 16)) & (SIZE - 2);
+  }
+
+  private static boolean equals(String symbol, char[] chars, int start, int length) {
+    if (symbol.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (symbol.charAt(i) != chars[start + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -20,9 +20,12 @@ import java.io.Reader;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 
+import org.sonar.plugins.html.node.DocumentSummary;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.NodeType;
+import org.sonar.plugins.html.node.SourceText;
 import org.sonar.plugins.html.node.TagNode;
 
 /**
@@ -33,13 +36,62 @@ public class VueLexer extends PageLexer {
   private static final Object TEMPLATE_LEVEL = new Object();
   private static final String TEMPLATE = "template";
 
+  public VueLexer() {
+    this(false);
+  }
+
+  public VueLexer(boolean stateMachine) {
+    super(stateMachine);
+  }
+
+  @Override
+  public List<Node> parse(Reader reader, DocumentSummary summary) {
+    return template(super.parse(reader, summary));
+  }
+
   @Override
-  public List<Node> parse(Reader reader) {
-    List<Node> nodes = super.parse(reader);
-    boolean firstTemplateTag = true;
+  public List<Node> parse(SourceText source, DocumentSummary summary) {
+    return template(super.parse(source, summary));
+  }
+
+  private static List<Node> template(List<Node> nodes) {
     List<Node> templateNodes = new LinkedList<>();
-    Deque<Object> templateLevels = new LinkedList<>();
+    TemplateFilter templateFilter = new TemplateFilter(templateNodes::add);
     for (Node node : nodes) {
+      if (!templateFilter.accept(node)) {
+        break;
+      }
+    }
+    return templateNodes;
+  }
+
+  @Override
+  public void parse(Reader reader, Consumer<Node> consumer) {
+    TemplateFilter templateFilter = new TemplateFilter(consumer);
+    super.parse(reader, templateFilter::accept);
+  }
+
+  /**
+   * Sends the nodes inside the first template element, excluding the template tags, to the consumer.
+   */
+  private static final class TemplateFilter {
+
+    private final Consumer<Node> consumer;
+    private final Deque<Object> templateLevels = new LinkedList<>();
+    private boolean firstTemplateTag = true;
+    private boolean templateEnded;
+
+    private TemplateFilter(Consumer<Node> consumer) {
+      this.consumer = consumer;
+    }
+
+    /**
+     * @return false once the end of the template has been reached
+     */
+    private boolean accept(Node node) {
+      if (templateEnded) {
+        return false;
+      }
       if (node.getNodeType() == NodeType.TAG) {
         TagNode tagNode = (TagNode) node;
         if (tagNode.equalsElementName(TEMPLATE)) {
@@ -47,7 +99,8 @@ public class VueLexer extends PageLexer {
             if (!templateLevels.isEmpty()) {
               templateLevels.pop();
               if (templateLevels.isEmpty()) {
-                break;
+                templateEnded = true;
+                return false;
               }
             }
           } else if (!tagNode.hasEnd()) {
@@ -59,10 +112,10 @@ public class VueLexer extends PageLexer {
         if (firstTemplateTag) {
           firstTemplateTag = false;
         } else {
-          templateNodes.add(node);
+          consumer.accept(node);
         }
       }
+      return true;
     }
-    return templateNodes;
   }
 }
@@ -28,11 +28,11 @@ public class DirectiveNode extends TagNode {
   }
 
   public boolean isHtml() {
-    return getCode().startsWith("<!");
+    return codeStartsWith("<!");
   }
 
   public boolean isJsp() {
-    return getCode().startsWith("<%");
+    return codeStartsWith("<%");
   }
 
 }
@@ -0,0 +1,103 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.node;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Types of the nodes, and names of the elements and attributes, which appear in a document. It is filled while the
+ * document is lexed, so that the visitors which cannot report anything on a document can be skipped before it is
+ * visited.
+ * <p>
+ * Names are compared ignoring case. An element name is present when it matches the qualified or the local name of an
+ * element, like {@link TagNode#equalsElementName(String)}. An attribute name is present when it matches the name of an
+ * attribute, or one of the angular and vue.js property bindings of {@link TagNode#getProperty(String)}.
+ */
+public final class DocumentSummary {
+
+  private final Set<NodeType> nodeTypes = EnumSet.noneOf(NodeType.class);
+  private final Set<String> elementNames = new HashSet<>();
+  private final Set<String> attributeNames = new HashSet<>();
+
+  public void add(Node node) {
+    nodeTypes.add(node.getNodeType());
+    if (node instanceof TagNode) {
+      TagNode element = (TagNode) node;
+      elementNames.add(element.getLowerCaseName());
+      elementNames.add(foldCase(element.getLocalName()));
+      for (Attribute attribute : element.getAttributes()) {
+        if (attribute.getName() != null) {
+          PropertyBinding.forEachProperty(foldCase(attribute.getName()), (property, binding) -> attributeNames.add(property));
+        }
+      }
+    }
+  }
+
+  public boolean contains(NodeType nodeType) {
+    return nodeTypes.contains(nodeType);
+  }
+
+  public boolean containsElement(String name) {
+    return elementNames.contains(foldCase(name));
+  }
+
+  public boolean containsAnyElement(Collection<String> names) {
+    return names.stream().anyMatch(this::containsElement);
+  }
+
+  public boolean containsAttribute(String name) {
+    return attributeNames.contains(foldCase(name));
+  }
+
+  /**
+   * Folds the case of a name, so that two names are folded to the same string if and only if they are equal according
+   * to {@link String#equalsIgnoreCase(String)}.
+   */
+  public static String foldCase(String name) {
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (c != Character.toLowerCase(Character.toUpperCase(c))) {
+        return fold(name, i);
+      }
+    }
+    return name;
+  }
+
+  private static String fold(String name, int start) {
+    StringBuilder sb = new StringBuilder(name.length()).append(name, 0, start);
+    for (int i = start; i < name.length(); i++) {
+      sb.append(Character.toLowerCase(Character.toUpperCase(name.charAt(i))));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Same result as {@link TagNode#getLocalName()}, for names which are not held by a node.
+   */
+  public static String localName(String nodeName) {
+    int end = nodeName.length();
+    while (end > 0 && nodeName.charAt(end - 1) == ':') {
+      end--;
+    }
+    int start = nodeName.lastIndexOf(':', end - 1) + 1;
+    return start == end ? nodeName : nodeName.substring(start, end);
+  }
+
+}
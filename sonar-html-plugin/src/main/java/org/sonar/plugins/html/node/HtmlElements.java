@@ -0,0 +1,93 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.node;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Integer identifiers of the known HTML elements, so that elements are compared by identifier rather than by repeated
+ * case-insensitive comparisons of their names.
+ * <p>
+ * Identifiers start at 1, so that {@link #UNKNOWN} is never set in the {@link BitSet} returned by {@link #ids}.
+ */
+public final class HtmlElements {
+
+  public static final int UNKNOWN = 0;
+
+  private static final String[] NAMES = {
+    null,
+    "a", "abbr", "acronym", "address", "applet", "area", "article", "aside", "audio", "b", "base", "basefont", "bdi",
+    "bdo", "bgsound", "big", "blink", "blockquote", "body", "br", "button", "canvas", "caption", "center", "cite",
+    "code", "col", "colgroup", "content", "data", "datalist", "dd", "del", "details", "dfn", "dialog", "dir", "div",
+    "dl", "dt", "em", "embed", "fieldset", "figcaption", "figure", "font", "footer", "form", "frame", "frameset",
+    "h1", "h2", "h3", "h4", "h5", "h6", "head", "header", "hgroup", "hr", "html", "i", "iframe", "image", "img",
+    "input", "ins", "isindex", "kbd", "keygen", "label", "legend", "li", "link", "listing", "main", "map", "mark",
+    "marquee", "menu", "menuitem", "meta", "meter", "nav", "nobr", "noembed", "noframes", "noscript", "object", "ol",
+    "optgroup", "option", "output", "p", "param", "picture", "plaintext", "pre", "progress", "q", "rb", "rp", "rt",
+    "rtc", "ruby", "s", "samp", "script", "search", "section", "select", "shadow", "slot", "small", "source",
+    "spacer", "span", "strike", "strong", "style", "sub", "summary", "sup", "svg", "table", "tbody", "td", "template",
+    "textarea", "tfoot", "th", "thead", "time", "title", "tr", "track", "tt", "u", "ul", "var", "video", "wbr", "xmp"
+  };
+
+  private static final Map<String, Integer> IDS = new HashMap<>();
+
+  static {
+    for (int id = 1; id < NAMES.length; id++) {
+      IDS.put(NAMES[id], id);
+    }
+  }
+
+  private HtmlElements() {
+  }
+
+  /**
+   * Identifier of the element with the given name, ignoring case, or {@link #UNKNOWN} when the element is not a known
+   * HTML element. Names with a namespace prefix are not known elements.
+   */
+  public static int id(String name) {
+    return IDS.getOrDefault(DocumentSummary.foldCase(name), UNKNOWN);
+  }
+
+  /**
+   * Lower case name of the element with the given identifier.
+   */
+  public static String name(int id) {
+    if (id <= UNKNOWN || id >= NAMES.length) {
+      throw new IllegalArgumentException("Unknown HTML element identifier: " + id);
+    }
+    return NAMES[id];
+  }
+
+  /**
+   * Identifiers of the given elements, to be tested with {@link TagNode#getElementId()}.
+   */
+  public static BitSet ids(Collection<String> names) {
+    BitSet ids = new BitSet(NAMES.length);
+    for (String name : names) {
+      int id = id(name);
+      if (id == UNKNOWN) {
+        throw new IllegalArgumentException("Unknown HTML element: " + name);
+      }
+      ids.set(id);
+    }
+    return ids;
+  }
+
+}
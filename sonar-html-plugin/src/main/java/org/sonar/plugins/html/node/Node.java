@@ -23,26 +23,75 @@ package org.sonar.plugins.html.node;
  */
 public abstract class Node {
 
+  private static final int UNRESOLVED = -1;
+
   private String code;
   private int endColumnPosition;
   private int endLinePosition;
   private final NodeType nodeType;
   private int startColumnPosition;
   private int startLinePosition;
+  private SourceText source;
+  private int startOffset;
+  private int endOffset;
 
   protected Node(NodeType nodeType) {
     this.nodeType = nodeType;
   }
 
+  /**
+   * Attaches the node to the characters of its page between the given offsets. Code and positions are then only
+   * computed from the page when requested, unless they are explicitly set.
+   */
+  public void setSource(SourceText source, int startOffset, int endOffset) {
+    this.source = source;
+    this.startOffset = startOffset;
+    this.endOffset = endOffset;
+    this.startLinePosition = UNRESOLVED;
+    this.startColumnPosition = UNRESOLVED;
+    this.endLinePosition = UNRESOLVED;
+    this.endColumnPosition = UNRESOLVED;
+  }
+
   public String getCode() {
+    if (code == null && source != null) {
+      code = source.substring(startOffset, endOffset);
+    }
     return code == null ? "" : code;
   }
 
+  boolean codeStartsWith(String prefix) {
+    if (code == null && source != null) {
+      return prefix.length() <= endOffset - startOffset && source.regionMatches(startOffset, prefix);
+    }
+    return getCode().startsWith(prefix);
+  }
+
+  boolean codeEndsWith(String suffix) {
+    if (code == null && source != null) {
+      return suffix.length() <= endOffset - startOffset && source.regionMatches(endOffset - suffix.length(), suffix);
+    }
+    return getCode().endsWith(suffix);
+  }
+
+  boolean isCodeBlank() {
+    if (code == null && source != null) {
+      return source.isBlank(startOffset, endOffset);
+    }
+    return getCode().isBlank();
+  }
+
   public int getEndColumnPosition() {
+    if (endColumnPosition == UNRESOLVED) {
+      endColumnPosition = source.column(endOffset);
+    }
     return endColumnPosition;
   }
 
   public int getEndLinePosition() {
+    if (endLinePosition == UNRESOLVED) {
+      endLinePosition = source.line(endOffset);
+    }
     return endLinePosition;
   }
 
@@ -51,10 +100,16 @@ public abstract class Node {
   }
 
   public int getStartColumnPosition() {
+    if (startColumnPosition == UNRESOLVED) {
+      startColumnPosition = source.column(startOffset);
+    }
     return startColumnPosition;
   }
 
   public int getStartLinePosition() {
+    if (startLinePosition == UNRESOLVED) {
+      startLinePosition = source.line(startOffset);
+    }
     return startLinePosition;
   }
 
@@ -0,0 +1,84 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.node;
+
+import java.util.function.BiConsumer;
+import javax.annotation.CheckForNull;
+
+/**
+ * How an attribute sets a property: as a plain attribute, or with the property binding syntax of angular or vue.js.
+ * See SONARHTML-92, SONARHTML-113, SONARHTML-118, SONARHTML-158
+ */
+public enum PropertyBinding {
+  PLAIN,
+  ANGULAR,
+  VUE;
+
+  private static final Syntax[] SYNTAXES = {
+    new Syntax("[", "]", ANGULAR),
+    new Syntax("[attr.", "]", ANGULAR),
+    new Syntax("attr.", "", ANGULAR),
+    new Syntax("v-bind:", "", VUE),
+    new Syntax(":", "", VUE),
+    new Syntax(":[", "]", VUE)
+  };
+
+  /**
+   * Binding with which the attribute sets the property, ignoring case, or null when it does not set it. Names are
+   * compared in place, without building the bound names of the property.
+   */
+  @CheckForNull
+  static PropertyBinding of(String attributeName, String propertyName) {
+    if (attributeName.equalsIgnoreCase(propertyName)) {
+      return PLAIN;
+    }
+    for (Syntax syntax : SYNTAXES) {
+      if (syntax.binds(attributeName, propertyName)) {
+        return syntax.binding;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Gives the properties set by an attribute, the attribute name itself first.
+   */
+  static void forEachProperty(String attributeName, BiConsumer<String, PropertyBinding> action) {
+    action.accept(attributeName, PLAIN);
+    for (Syntax syntax : SYNTAXES) {
+      if (syntax.matches(attributeName)) {
+        action.accept(attributeName.substring(syntax.prefix.length(), attributeName.length() - syntax.suffix.length()), syntax.binding);
+      }
+    }
+  }
+
+  private record Syntax(String prefix, String suffix, PropertyBinding binding) {
+
+    boolean matches(String attributeName) {
+      return attributeName.length() >= prefix.length() + suffix.length()
+        && attributeName.regionMatches(true, 0, prefix, 0, prefix.length())
+        && attributeName.regionMatches(true, attributeName.length() - suffix.length(), suffix, 0, suffix.length());
+    }
+
+    boolean binds(String attributeName, String propertyName) {
+      return attributeName.length() == prefix.length() + propertyName.length() + suffix.length()
+        && matches(attributeName)
+        && attributeName.regionMatches(true, prefix.length(), propertyName, 0, propertyName.length());
+    }
+  }
+
+}
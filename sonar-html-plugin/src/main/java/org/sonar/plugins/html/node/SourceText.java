@@ -0,0 +1,199 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.node;
+
+import java.util.Arrays;
+
+/**
+ * Characters of a page, shared by the nodes lexed from it.
+ * <p>
+ * The characters are decoded once per file into a single array, which is read in place by the lexer, the nodes and the
+ * line-based visitors, so that the content of a file is not held in several copies.
+ * <p>
+ * Lines and columns follow the conventions of the channel lexer: lines start at 1 and columns at 0, a line ends
+ * with a line feed or with a carriage return which is not followed by a line feed. The offsets at which lines start are
+ * indexed on first use, so that the line of an offset is found by a binary search.
+ */
+public final class SourceText implements CharSequence {
+
+  private final char[] text;
+  private final int length;
+  private int[] lineStarts;
+
+  /**
+   * @param text characters of the page, which are not copied and must not be modified afterwards
+   */
+  public SourceText(char[] text) {
+    this(text, text.length);
+  }
+
+  /**
+   * @param text array whose first {@code length} characters are the page, which are not copied and must not be
+   *             modified afterwards
+   */
+  public SourceText(char[] text, int length) {
+    this.text = text;
+    this.length = length;
+  }
+
+  public SourceText(String text) {
+    this(text.toCharArray());
+  }
+
+  /**
+   * Array holding the characters of the page, from index 0 to {@link #length()}. It is shared, not copied, so that the
+   * lexer reads the characters in place, and must not be modified.
+   */
+  public char[] array() {
+    return text;
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public char charAt(int offset) {
+    if (offset >= length) {
+      throw new StringIndexOutOfBoundsException(offset);
+    }
+    return text[offset];
+  }
+
+  @Override
+  public CharSequence subSequence(int startOffset, int endOffset) {
+    return substring(startOffset, endOffset);
+  }
+
+  public String substring(int startOffset, int endOffset) {
+    if (endOffset > length || startOffset > endOffset) {
+      throw new StringIndexOutOfBoundsException("begin " + startOffset + ", end " + endOffset + ", length " + length);
+    }
+    return new String(text, startOffset, endOffset - startOffset);
+  }
+
+  public boolean regionMatches(int offset, String string) {
+    if (offset < 0 || offset + string.length() > length) {
+      return false;
+    }
+    for (int i = 0; i < string.length(); i++) {
+      if (text[offset + i] != string.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Offset of the first occurrence of the character, or -1 when the page does not contain it.
+   */
+  public int indexOf(char ch) {
+    for (int i = 0; i < length; i++) {
+      if (text[i] == ch) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public boolean isBlank(int startOffset, int endOffset) {
+    for (int i = startOffset; i < endOffset; i++) {
+      if (!Character.isWhitespace(text[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int line(int offset) {
+    return lineIndex(offset) + 1;
+  }
+
+  public int column(int offset) {
+    return offset - lineStarts()[lineIndex(offset)];
+  }
+
+  /**
+   * Number of lines, the last one being empty when the text ends with a line terminator.
+   */
+  public int lineCount() {
+    return lineStarts().length;
+  }
+
+  public int lineStartOffset(int line) {
+    return lineStarts()[line - 1];
+  }
+
+  /**
+   * Offset of the end of the line, before its line terminator.
+   */
+  public int lineEndOffset(int line) {
+    int[] starts = lineStarts();
+    if (line == starts.length) {
+      return length;
+    }
+    int end = starts[line];
+    if (text[end - 1] == '\n') {
+      end--;
+    }
+    if (end > starts[line - 1] && text[end - 1] == '\r') {
+      end--;
+    }
+    return end;
+  }
+
+  /**
+   * Number of characters of the line, without its line terminator.
+   */
+  public int lineLength(int line) {
+    return lineEndOffset(line) - lineStartOffset(line);
+  }
+
+  public boolean isBlankLine(int line) {
+    return isBlank(lineStartOffset(line), lineEndOffset(line));
+  }
+
+  private int lineIndex(int offset) {
+    int index = Arrays.binarySearch(lineStarts(), offset);
+    // when the offset is not a line start, the search gives the start of the next line
+    return index >= 0 ? index : (-index - 2);
+  }
+
+  private int[] lineStarts() {
+    if (lineStarts == null) {
+      int[] starts = new int[16];
+      int count = 1;
+      for (int i = 0; i < length; i++) {
+        char ch = text[i];
+        if (ch == '\n' || (ch == '\r' && (i + 1 == length || text[i + 1] != '\n'))) {
+          if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+          }
+          starts[count++] = i + 1;
+        }
+      }
+      lineStarts = Arrays.copyOf(starts, count);
+    }
+    return lineStarts;
+  }
+
+  @Override
+  public String toString() {
+    return new String(text, 0, length);
+  }
+}
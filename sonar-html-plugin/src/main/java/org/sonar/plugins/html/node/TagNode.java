@@ -17,7 +17,9 @@
 package org.sonar.plugins.html.node;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
@@ -28,9 +30,24 @@ import javax.annotation.Nullable;
  */
 public class TagNode extends Node {
 
-  private final List<Attribute> attributes = new ArrayList<>();
+  /**
+   * Below this number of attributes, attributes are looked up by comparing their names in place, which allocates
+   * nothing and is as fast as a hash lookup. Above, they are looked up in an index built on first use.
+   */
+  private static final int INDEXED_ATTRIBUTES = 8;
+
+  private final AttributeList attributes = new AttributeList();
+  @Nullable
+  private Map<String, IndexedAttribute> attributeIndex;
+  private int indexedModifications;
   private final List<TagNode> children = new ArrayList<>();
   private String nodeName;
+  private String lowerCaseName = "";
+  private String localName = "";
+  @Nullable
+  private String prefix;
+  private int elementId = HtmlElements.UNKNOWN;
+  private int localElementId = HtmlElements.UNKNOWN;
   private TagNode parent;
 
   public TagNode() {
@@ -42,32 +59,55 @@ public class TagNode extends Node {
   }
 
   public boolean equalsElementName(String elementName) {
-    return getLocalName().equalsIgnoreCase(elementName) || getNodeName().equalsIgnoreCase(elementName);
+    return localName.equalsIgnoreCase(elementName) || getNodeName().equalsIgnoreCase(elementName);
+  }
+
+  /**
+   * Same as {@link #equalsElementName(String)} with the name of the element of the given {@link HtmlElements}
+   * identifier, without comparing names.
+   */
+  public boolean isElement(int elementId) {
+    return elementId != HtmlElements.UNKNOWN && (this.elementId == elementId || localElementId == elementId);
   }
 
   /**
-   *  This method takes into account the property binding mechanism of angular and vue.js. See SONARHTML-92, SONARHTML-113, SONARHTML-118, SONARHTML-158
+   *  This method takes into account the property binding mechanism of angular and vue.js, see {@link PropertyBinding}.
    */
   @Nullable
   public Attribute getProperty(String propertyName) {
-    String angularProperty = "[" + propertyName + "]";
-    String angularAttrProperty = "[attr." + propertyName + "]";
-    String shortAngularAttrProperty = "attr." + propertyName;
-    String vueProperty = "v-bind:" + propertyName;
-    String vueShorthandProperty = ":" + propertyName;
-    String vueSquaredShorthandProperty = ":[" + propertyName + "]";
+    if (attributes.size() > INDEXED_ATTRIBUTES) {
+      IndexedAttribute indexed = attributeIndex().get(DocumentSummary.foldCase(propertyName));
+      return indexed == null ? null : indexed.property;
+    }
     for (Attribute a : attributes) {
       String attributeName = a.getName();
-      if (propertyName.equalsIgnoreCase(attributeName)
-          || angularProperty.equalsIgnoreCase(attributeName) || angularAttrProperty.equalsIgnoreCase(attributeName) || shortAngularAttrProperty.equalsIgnoreCase(attributeName)
-          || vueProperty.equalsIgnoreCase(attributeName) || vueShorthandProperty.equalsIgnoreCase(attributeName)
-          || vueSquaredShorthandProperty.equalsIgnoreCase(attributeName)) {
+      if (attributeName != null && PropertyBinding.of(attributeName, propertyName) != null) {
         return a;
       }
     }
     return null;
   }
 
+  /**
+   * Binding with which the attribute returned by {@link #getProperty(String)} sets the property, or null when no
+   * attribute sets it.
+   */
+  @CheckForNull
+  public PropertyBinding getPropertyBinding(String propertyName) {
+    if (attributes.size() > INDEXED_ATTRIBUTES) {
+      IndexedAttribute indexed = attributeIndex().get(DocumentSummary.foldCase(propertyName));
+      return indexed == null ? null : indexed.binding;
+    }
+    for (Attribute a : attributes) {
+      String attributeName = a.getName();
+      PropertyBinding binding = attributeName == null ? null : PropertyBinding.of(attributeName, propertyName);
+      if (binding != null) {
+        return binding;
+      }
+    }
+    return null;
+  }
+
   @Nullable
   public String getPropertyValue(String propertyName) {
     Attribute property = getProperty(propertyName);
@@ -83,6 +123,10 @@ public class TagNode extends Node {
 
   @CheckForNull
   public String getAttribute(String attributeName) {
+    if (attributes.size() > INDEXED_ATTRIBUTES) {
+      IndexedAttribute indexed = attributeIndex().get(DocumentSummary.foldCase(attributeName));
+      return indexed == null || indexed.attribute == null ? null : indexed.attribute.getValue();
+    }
     for (Attribute a : attributes) {
       if (attributeName.equalsIgnoreCase(a.getName())) {
         return a.getValue();
@@ -99,18 +143,57 @@ public class TagNode extends Node {
     return getAttribute(attributeName) != null;
   }
 
+  /**
+   * Index of the attributes by the case folded name of the properties they set. The index is rebuilt when attributes
+   * are added or removed, but not when an attribute is renamed.
+   */
+  private Map<String, IndexedAttribute> attributeIndex() {
+    if (attributeIndex == null || indexedModifications != attributes.modifications()) {
+      Map<String, IndexedAttribute> index = new HashMap<>();
+      for (Attribute attribute : attributes) {
+        if (attribute.getName() != null) {
+          PropertyBinding.forEachProperty(DocumentSummary.foldCase(attribute.getName()),
+            (property, binding) -> index.computeIfAbsent(property, p -> new IndexedAttribute()).add(attribute, binding));
+        }
+      }
+      attributeIndex = index;
+      indexedModifications = attributes.modifications();
+    }
+    return attributeIndex;
+  }
+
   public List<TagNode> getChildren() {
     return children;
   }
 
+  /**
+   * Name without its namespace prefix, or the whole name when it has no prefix.
+   */
   public String getLocalName() {
-    String[] parts = getNodeName().split(":");
-    String localPart = parts[parts.length - 1];
-    if (localPart.isEmpty()) {
-      return getNodeName();
-    } else {
-      return localPart;
-    }
+    return localName;
+  }
+
+  /**
+   * Namespace prefix of the name, such as {@code "h"} for {@code <h:form>}, or null when the name has no prefix.
+   */
+  @CheckForNull
+  public String getPrefix() {
+    return prefix;
+  }
+
+  /**
+   * Name in lower case, so that names equal ignoring case have the same lower case name.
+   */
+  public String getLowerCaseName() {
+    return lowerCaseName;
+  }
+
+  /**
+   * {@link HtmlElements} identifier of the name, or {@link HtmlElements#UNKNOWN} when it is not a known HTML element.
+   * Prefixed names are not known elements.
+   */
+  public int getElementId() {
+    return elementId;
   }
 
   public String getNodeName() {
@@ -123,21 +206,71 @@ public class TagNode extends Node {
   }
 
   public boolean hasEnd() {
-    return getCode().endsWith("/>");
+    return codeEndsWith("/>");
   }
 
   public boolean isEndElement() {
-    return getCode().startsWith("</");
+    return codeStartsWith("</");
   }
 
+  /**
+   * The canonical forms of the name are resolved here, once, instead of by every visitor comparing names.
+   */
   public void setNodeName(String nodeName) {
     this.nodeName = nodeName;
+    String name = getNodeName();
+    int end = name.length();
+    while (end > 0 && name.charAt(end - 1) == ':') {
+      end--;
+    }
+    int colon = name.lastIndexOf(':', end - 1);
+    lowerCaseName = DocumentSummary.foldCase(name);
+    localName = colon + 1 == end ? name : name.substring(colon + 1, end);
+    prefix = colon > 0 ? name.substring(0, colon) : null;
+    elementId = HtmlElements.id(lowerCaseName);
+    localElementId = localName.equals(name) ? elementId : HtmlElements.id(localName);
   }
 
   public void setParent(@Nullable TagNode parent) {
+    setParent(parent, true);
+  }
+
+  /**
+   * @param addToChildren whether this node is added to the children of its parent. Children are not recorded when
+   *                      nodes are streamed, so that a parent does not retain the rest of the document.
+   */
+  public void setParent(@Nullable TagNode parent, boolean addToChildren) {
     this.parent = parent;
-    if (parent != null) {
+    if (parent != null && addToChildren) {
       parent.getChildren().add(this);
     }
   }
+
+  /**
+   * First attribute setting a property, and first attribute with the name of the property.
+   */
+  private static final class IndexedAttribute {
+
+    private Attribute property;
+    private PropertyBinding binding;
+    @Nullable
+    private Attribute attribute;
+
+    private void add(Attribute attribute, PropertyBinding binding) {
+      if (property == null) {
+        this.property = attribute;
+        this.binding = binding;
+      }
+      if (this.attribute == null && binding == PropertyBinding.PLAIN) {
+        this.attribute = attribute;
+      }
+    }
+  }
+
+  private static final class AttributeList extends ArrayList<Attribute> {
+
+    private int modifications() {
+      return modCount;
+    }
+  }
 }
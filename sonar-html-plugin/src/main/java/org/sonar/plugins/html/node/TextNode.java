@@ -28,6 +28,6 @@ public class TextNode extends Node {
   }
 
   public boolean isBlank() {
-    return getCode().isBlank();
+    return isCodeBlank();
   }
 }
@@ -16,10 +16,13 @@
  */
 package org.sonar.plugins.html.visitor;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.sonar.plugins.html.node.CommentNode;
 import org.sonar.plugins.html.node.DirectiveNode;
+import org.sonar.plugins.html.node.DocumentSummary;
 import org.sonar.plugins.html.node.ExpressionNode;
 import org.sonar.plugins.html.node.Node;
 import org.sonar.plugins.html.node.TagNode;
@@ -30,6 +33,14 @@ import org.sonar.plugins.html.node.TextNode;
  */
 public abstract class DefaultNodeVisitor {
 
+  private static final ClassValue<Set<String>> ELEMENT_NAMES = new ClassValue<>() {
+    @Override
+    protected Set<String> computeValue(Class<?> type) {
+      ElementNames names = type.getAnnotation(ElementNames.class);
+      return names == null ? Collections.emptySet() : Set.of(names.value());
+    }
+  };
+
   private HtmlSourceCode htmlSourceCode;
 
   public void init() {
@@ -64,7 +75,46 @@ public abstract class DefaultNodeVisitor {
   public void startDocument(List<Node> nodes) {
   }
 
+  /**
+   * Whether the visitor navigates the children of elements. Such a visitor needs the whole document to be parsed
+   * before it is visited, so it is not run on documents which are analyzed in streaming mode.
+   */
+  public boolean requiresDocumentTree() {
+    return false;
+  }
+
+  /**
+   * Whether the visitor reads the content or the lines of the file from its source code. The content of a document
+   * analyzed in streaming mode is never held in memory at once, so such a visitor is not run on it.
+   */
+  public boolean requiresContents() {
+    return false;
+  }
+
   public void startElement(TagNode node) {
   }
 
+  /**
+   * Whether the visitor may report something on a document with the given summary. A visitor which is not triggered
+   * by a document is not run on it at all. By default, a visitor with {@link #elementNames()} is run on the documents
+   * which contain one of these elements, and other visitors are run on all documents.
+   */
+  public boolean isTriggeredBy(DocumentSummary summary) {
+    Set<String> names = elementNames();
+    return names.isEmpty() || summary.containsAnyElement(names);
+  }
+
+  /**
+   * Names of the elements the visitor is interested in: {@link #startElement(TagNode)} and {@link #endElement(TagNode)}
+   * are only called for the elements which match one of them according to {@link TagNode#equalsElementName(String)}.
+   * The visitor is called for all elements when the set is empty. The names are read once, after {@link #init()}, and
+   * then for each document by {@link #isTriggeredBy(DocumentSummary)}, so they should not be built on each call.
+   * <p>
+   * By default, they are the names of the {@link ElementNames} annotation of the class of the visitor. Only visitors
+   * whose names depend on their parameters override this method.
+   */
+  public Set<String> elementNames() {
+    return ELEMENT_NAMES.get(getClass());
+  }
+
 }
@@ -0,0 +1,338 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.sonar.plugins.html.node.CommentNode;
+import org.sonar.plugins.html.node.DirectiveNode;
+import org.sonar.plugins.html.node.DocumentSummary;
+import org.sonar.plugins.html.node.ExpressionNode;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.node.TextNode;
+
+/**
+ * Sends the events of a node only to the visitors interested in them.
+ * <p>
+ * A visitor is interested in an event when it overrides the corresponding method of {@link DefaultNodeVisitor}, and,
+ * for element events, when the element matches one of its {@link DefaultNodeVisitor#elementNames()}. The visitors
+ * receiving an event are called in the order in which they were given to the table.
+ * <p>
+ * Tables are built for every set of checks triggered by a document and by every analysis thread, so the callbacks
+ * overridden by a visitor class are only looked up once per class and shared by all the tables.
+ * <p>
+ * When a {@link VisitorProfiler} is given, each call to a visitor is measured. Calls are dispatched by separate loops
+ * in that case, so that the table is not slowed down when profiling is off.
+ */
+final class DispatchTable {
+
+  private static final DefaultNodeVisitor[] NO_VISITORS = new DefaultNodeVisitor[0];
+
+  private static final ClassValue<Set<Callback>> OVERRIDDEN_CALLBACKS = new ClassValue<>() {
+    @Override
+    protected Set<Callback> computeValue(Class<?> type) {
+      Set<Callback> callbacks = EnumSet.noneOf(Callback.class);
+      for (Callback callback : Callback.values()) {
+        if (callback.isOverriddenBy(type)) {
+          callbacks.add(callback);
+        }
+      }
+      return callbacks;
+    }
+  };
+
+  private final List<DefaultNodeVisitor> visitors;
+  @Nullable
+  private final VisitorProfiler profiler;
+  private final Map<DefaultNodeVisitor, Integer> order = new IdentityHashMap<>();
+  private final DefaultNodeVisitor[] characters;
+  private final DefaultNodeVisitor[] comment;
+  private final DefaultNodeVisitor[] directive;
+  private final DefaultNodeVisitor[] expression;
+  private final ElementTable startElement;
+  private final ElementTable endElement;
+
+  DispatchTable(List<DefaultNodeVisitor> visitors) {
+    this(visitors, null);
+  }
+
+  DispatchTable(List<DefaultNodeVisitor> visitors, @Nullable VisitorProfiler profiler) {
+    this.visitors = visitors;
+    this.profiler = profiler;
+    for (DefaultNodeVisitor visitor : visitors) {
+      order.putIfAbsent(visitor, order.size());
+    }
+    characters = interested(visitors, Callback.CHARACTERS);
+    comment = interested(visitors, Callback.COMMENT);
+    directive = interested(visitors, Callback.DIRECTIVE);
+    expression = interested(visitors, Callback.EXPRESSION);
+    startElement = new ElementTable(interested(visitors, Callback.START_ELEMENT));
+    endElement = new ElementTable(interested(visitors, Callback.END_ELEMENT));
+  }
+
+  /**
+   * Prepares the visitors for a new document and notifies them of its start.
+   */
+  void startDocument(HtmlSourceCode htmlSourceCode, List<Node> nodes) {
+    for (DefaultNodeVisitor visitor : visitors) {
+      visitor.setSourceCode(htmlSourceCode);
+    }
+    if (profiler != null) {
+      profiler.startFile(htmlSourceCode);
+      for (DefaultNodeVisitor visitor : visitors) {
+        profiler.start();
+        visitor.startDocument(nodes);
+        profiler.stop(visitor);
+      }
+      return;
+    }
+    for (DefaultNodeVisitor visitor : visitors) {
+      visitor.startDocument(nodes);
+    }
+  }
+
+  void endDocument() {
+    for (DefaultNodeVisitor visitor : visitors) {
+      if (profiler != null) {
+        profiler.start();
+        visitor.endDocument();
+        profiler.stop(visitor);
+      } else {
+        visitor.endDocument();
+      }
+    }
+  }
+
+  void dispatch(Node node) {
+    if (profiler != null) {
+      dispatchProfiled(node, profiler);
+      return;
+    }
+    switch (node.getNodeType()) {
+      case TAG:
+        dispatchTag((TagNode) node);
+        break;
+      case TEXT:
+        for (DefaultNodeVisitor visitor : characters) {
+          visitor.characters((TextNode) node);
+        }
+        break;
+      case COMMENT:
+        for (DefaultNodeVisitor visitor : comment) {
+          visitor.comment((CommentNode) node);
+        }
+        break;
+      case EXPRESSION:
+        for (DefaultNodeVisitor visitor : expression) {
+          visitor.expression((ExpressionNode) node);
+        }
+        break;
+      case DIRECTIVE:
+        for (DefaultNodeVisitor visitor : directive) {
+          visitor.directive((DirectiveNode) node);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void dispatchTag(TagNode node) {
+    boolean endElementNode = node.isEndElement();
+    if (!endElementNode) {
+      for (DefaultNodeVisitor visitor : startElement.visitorsFor(node)) {
+        visitor.startElement(node);
+      }
+    }
+    if (endElementNode || node.hasEnd()) {
+      for (DefaultNodeVisitor visitor : endElement.visitorsFor(node)) {
+        visitor.endElement(node);
+      }
+    }
+  }
+
+  private void dispatchProfiled(Node node, VisitorProfiler profiler) {
+    switch (node.getNodeType()) {
+      case TAG:
+        TagNode tagNode = (TagNode) node;
+        if (!tagNode.isEndElement()) {
+          for (DefaultNodeVisitor visitor : startElement.visitorsFor(tagNode)) {
+            profiler.start();
+            visitor.startElement(tagNode);
+            profiler.stop(visitor);
+          }
+        }
+        if (tagNode.isEndElement() || tagNode.hasEnd()) {
+          for (DefaultNodeVisitor visitor : endElement.visitorsFor(tagNode)) {
+            profiler.start();
+            visitor.endElement(tagNode);
+            profiler.stop(visitor);
+          }
+        }
+        break;
+      case TEXT:
+        for (DefaultNodeVisitor visitor : characters) {
+          profiler.start();
+          visitor.characters((TextNode) node);
+          profiler.stop(visitor);
+        }
+        break;
+      case COMMENT:
+        for (DefaultNodeVisitor visitor : comment) {
+          profiler.start();
+          visitor.comment((CommentNode) node);
+          profiler.stop(visitor);
+        }
+        break;
+      case EXPRESSION:
+        for (DefaultNodeVisitor visitor : expression) {
+          profiler.start();
+          visitor.expression((ExpressionNode) node);
+          profiler.stop(visitor);
+        }
+        break;
+      case DIRECTIVE:
+        for (DefaultNodeVisitor visitor : directive) {
+          profiler.start();
+          visitor.directive((DirectiveNode) node);
+          profiler.stop(visitor);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static DefaultNodeVisitor[] interested(List<DefaultNodeVisitor> visitors, Callback callback) {
+    List<DefaultNodeVisitor> result = new ArrayList<>();
+    for (DefaultNodeVisitor visitor : visitors) {
+      if (OVERRIDDEN_CALLBACKS.get(visitor.getClass()).contains(callback)) {
+        result.add(visitor);
+      }
+    }
+    return result.toArray(NO_VISITORS);
+  }
+
+  /**
+   * Node callbacks of {@link DefaultNodeVisitor}.
+   */
+  private enum Callback {
+    CHARACTERS("characters", TextNode.class),
+    COMMENT("comment", CommentNode.class),
+    DIRECTIVE("directive", DirectiveNode.class),
+    EXPRESSION("expression", ExpressionNode.class),
+    START_ELEMENT("startElement", TagNode.class),
+    END_ELEMENT("endElement", TagNode.class);
+
+    private final String methodName;
+    private final Class<? extends Node> nodeType;
+
+    Callback(String methodName, Class<? extends Node> nodeType) {
+      this.methodName = methodName;
+      this.nodeType = nodeType;
+    }
+
+    boolean isOverriddenBy(Class<?> type) {
+      try {
+        return type.getMethod(methodName, nodeType).getDeclaringClass() != DefaultNodeVisitor.class;
+      } catch (NoSuchMethodException e) {
+        throw new IllegalStateException("Cannot find " + methodName + " on " + type, e);
+      }
+    }
+  }
+
+  /**
+   * Visitors of an element event, indexed by the element names they are interested in.
+   */
+  private final class ElementTable {
+
+    private final DefaultNodeVisitor[] anyElement;
+    private final Map<String, DefaultNodeVisitor[]> byName = new HashMap<>();
+
+    ElementTable(DefaultNodeVisitor[] visitors) {
+      List<Set<String>> foldedNames = new ArrayList<>(visitors.length);
+      Set<String> allNames = new LinkedHashSet<>();
+      for (DefaultNodeVisitor visitor : visitors) {
+        Set<String> names = new HashSet<>();
+        for (String name : visitor.elementNames()) {
+          names.add(DocumentSummary.foldCase(name));
+        }
+        foldedNames.add(names);
+        allNames.addAll(names);
+      }
+      anyElement = select(visitors, foldedNames, null);
+      for (String name : allNames) {
+        byName.put(name, select(visitors, foldedNames, name));
+      }
+    }
+
+    private DefaultNodeVisitor[] select(DefaultNodeVisitor[] visitors, List<Set<String>> foldedNames, @Nullable String name) {
+      List<DefaultNodeVisitor> result = new ArrayList<>();
+      for (int i = 0; i < visitors.length; i++) {
+        Set<String> names = foldedNames.get(i);
+        if (names.isEmpty() || names.contains(name)) {
+          result.add(visitors[i]);
+        }
+      }
+      return result.toArray(NO_VISITORS);
+    }
+
+    DefaultNodeVisitor[] visitorsFor(TagNode node) {
+      if (byName.isEmpty()) {
+        return anyElement;
+      }
+      DefaultNodeVisitor[] byNodeName = byName.getOrDefault(node.getLowerCaseName(), anyElement);
+      if (node.getNodeName().indexOf(':') < 0) {
+        return byNodeName;
+      }
+      DefaultNodeVisitor[] byLocalName = byName.getOrDefault(DocumentSummary.foldCase(node.getLocalName()), anyElement);
+      if (byLocalName == anyElement || byLocalName == byNodeName) {
+        return byNodeName;
+      } else if (byNodeName == anyElement) {
+        return byLocalName;
+      }
+      return merge(byNodeName, byLocalName);
+    }
+
+    private DefaultNodeVisitor[] merge(DefaultNodeVisitor[] first, DefaultNodeVisitor[] second) {
+      List<DefaultNodeVisitor> result = new ArrayList<>(first.length + second.length);
+      int i = 0;
+      int j = 0;
+      while (i < first.length || j < second.length) {
+        if (j == second.length || (i < first.length && order.get(first[i]) < order.get(second[j]))) {
+          result.add(first[i++]);
+        } else {
+          if (i < first.length && first[i] == second[j]) {
+            i++;
+          }
+          result.add(second[j++]);
+        }
+      }
+      return result.toArray(NO_VISITORS);
+    }
+  }
+
+}
@@ -17,23 +17,41 @@
 package org.sonar.plugins.html.visitor;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import org.sonar.plugins.html.node.CommentNode;
-import org.sonar.plugins.html.node.DirectiveNode;
-import org.sonar.plugins.html.node.ExpressionNode;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+import org.sonar.plugins.html.node.DocumentSummary;
 import org.sonar.plugins.html.node.Node;
-import org.sonar.plugins.html.node.TagNode;
-import org.sonar.plugins.html.node.TextNode;
 
 /**
- * Scans the nodes of a page and send events to the visitors.
- *
-
+ * Scans the nodes of a page and send events to the visitors. Each node is only sent to the visitors interested in it,
+ * see {@link DispatchTable}.
+ * <p>
+ * Metric and check visitors are visited in a single pass over the nodes. Each event is sent to the metric visitors
+ * before the check visitors, so that the measures of a document, which metric visitors save at the end of the
+ * document, are available to the checks when they are notified of the end of the document.
+ * <p>
+ * The dispatch tables of the sets of checks triggered by the documents are cached for the most recently used sets, so
+ * that the memory of the cache does not grow with the number of distinct documents of large projects. The more checks
+ * are active, the more distinct sets are triggered, so the number of cached tables is proportional to the number of
+ * checks, with at least {@value #MIN_CACHED_TABLES} tables.
  */
 public class HtmlAstScanner {
 
+  static final int MIN_CACHED_TABLES = 32;
+  private static final int CACHED_TABLES_PER_CHECK = 4;
+
   private final List<DefaultNodeVisitor> metricVisitors;
   private final List<DefaultNodeVisitor> checkVisitors = new ArrayList<>();
+  private final Map<BitSet, DispatchTable> tables = tableCache();
+  private final Map<BitSet, DispatchTable> checkTables = tableCache();
+  @Nullable
+  private VisitorProfiler profiler;
 
   public HtmlAstScanner(List<DefaultNodeVisitor> metricVisitors) {
     this.metricVisitors = metricVisitors;
@@ -45,72 +63,131 @@ public class HtmlAstScanner {
   public void addVisitor(DefaultNodeVisitor visitor) {
     checkVisitors.add(visitor);
     visitor.init();
+    tables.clear();
+    checkTables.clear();
+  }
+
+  /**
+   * Measures the calls to the visitors with the given profiler, or stops measuring them when it is null.
+   */
+  public void setProfiler(@Nullable VisitorProfiler profiler) {
+    this.profiler = profiler;
+    tables.clear();
+    checkTables.clear();
   }
 
   /**
    * Scan a list of Nodes and send events to the visitors.
    */
   public void scan(List<Node> nodeList, HtmlSourceCode htmlSourceCode) {
-    scan(nodeList, htmlSourceCode, metricVisitors);
-    scan(nodeList, htmlSourceCode, checkVisitors);
+    scan(nodeList, htmlSourceCode, checks(visitor -> true));
   }
 
-  private static void scan(List<Node> nodeList, HtmlSourceCode htmlSourceCode, List<DefaultNodeVisitor> visitors) {
-    // prepare the visitors
-    for (DefaultNodeVisitor visitor : visitors) {
-      visitor.setSourceCode(htmlSourceCode);
-    }
+  /**
+   * Scan a list of Nodes and send events to the visitors. The check visitors which are not triggered by the summary of
+   * the document are not run.
+   */
+  public void scan(List<Node> nodeList, HtmlSourceCode htmlSourceCode, DocumentSummary summary) {
+    scan(nodeList, htmlSourceCode, checks(visitor -> visitor.isTriggeredBy(summary)));
+  }
 
-    // notify visitors for a new document
-    for (DefaultNodeVisitor visitor : visitors) {
-      visitor.startDocument(nodeList);
-    }
+  /**
+   * Scan a list of Nodes and send events to the given check visitors only, for a document whose measures are already
+   * set on the source code. The check visitors which are not triggered by the summary of the document are not run.
+   */
+  public void scan(List<Node> nodeList, HtmlSourceCode htmlSourceCode, DocumentSummary summary, Predicate<DefaultNodeVisitor> checks) {
+    scan(nodeList, htmlSourceCode, checkTable(checks(visitor -> checks.test(visitor) && visitor.isTriggeredBy(summary))));
+  }
+
+  private void scan(List<Node> nodeList, HtmlSourceCode htmlSourceCode, BitSet checks) {
+    scan(nodeList, htmlSourceCode, table(checks));
+  }
+
+  private static void scan(List<Node> nodeList, HtmlSourceCode htmlSourceCode, DispatchTable table) {
+    // prepare the visitors and notify them for a new document
+    table.startDocument(htmlSourceCode, nodeList);
 
-    // notify the visitors for start and end of element
+    // notify the visitors interested in each node
     for (Node node : nodeList) {
-      for (DefaultNodeVisitor visitor : visitors) {
-        scanElement(visitor, node);
-      }
+      table.dispatch(node);
     }
 
     // notify visitors for end of document
-    for (DefaultNodeVisitor visitor : visitors) {
-      visitor.endDocument();
-    }
+    table.endDocument();
   }
 
   /**
-   * Scan a single element and send appropriate event: start element, end element, characters, comment, expression or directive.
+   * Scan the nodes sent by a streaming parser, see {@link org.sonar.plugins.html.lex.PageLexer#parse(java.io.Reader, Consumer)}.
+   * Visitors are given an empty list of nodes at the start of the document, and visitors which require the document
+   * tree or the content of the file are not run. As the summary of the document is only known at its end, all other
+   * visitors are run.
    */
-  private static void scanElement(DefaultNodeVisitor visitor, Node node) {
-    switch (node.getNodeType()) {
-      case TAG:
-        scanElementTag(visitor, (TagNode) node);
-        break;
-      case TEXT:
-        visitor.characters((TextNode) node);
-        break;
-      case COMMENT:
-        visitor.comment((CommentNode) node);
-        break;
-      case EXPRESSION:
-        visitor.expression((ExpressionNode) node);
-        break;
-      case DIRECTIVE:
-        visitor.directive((DirectiveNode) node);
-        break;
-      default:
-        break;
-    }
+  public void scanStreaming(Consumer<Consumer<Node>> parser, HtmlSourceCode htmlSourceCode) {
+    scanStreaming(parser, htmlSourceCode, table(checks(HtmlAstScanner::isStreamable)));
   }
 
-  private static void scanElementTag(DefaultNodeVisitor visitor, TagNode node) {
-    if (!node.isEndElement()) {
-      visitor.startElement(node);
-    }
-    if (node.isEndElement() || node.hasEnd()) {
-      visitor.endElement(node);
+  /**
+   * Scan the nodes sent by a streaming parser and send events to the given check visitors only, for a document whose
+   * measures are already set on the source code.
+   */
+  public void scanStreaming(Consumer<Consumer<Node>> parser, HtmlSourceCode htmlSourceCode, Predicate<DefaultNodeVisitor> checks) {
+    scanStreaming(parser, htmlSourceCode, checkTable(checks(visitor -> checks.test(visitor) && isStreamable(visitor))));
+  }
+
+  private static boolean isStreamable(DefaultNodeVisitor visitor) {
+    return !visitor.requiresDocumentTree() && !visitor.requiresContents();
+  }
+
+  private static void scanStreaming(Consumer<Consumer<Node>> parser, HtmlSourceCode htmlSourceCode, DispatchTable table) {
+    table.startDocument(htmlSourceCode, Collections.emptyList());
+    parser.accept(table::dispatch);
+    table.endDocument();
+  }
+
+  private BitSet checks(Predicate<DefaultNodeVisitor> predicate) {
+    BitSet checks = new BitSet();
+    for (int i = 0; i < checkVisitors.size(); i++) {
+      if (predicate.test(checkVisitors.get(i))) {
+        checks.set(i);
+      }
     }
+    return checks;
+  }
+
+  /**
+   * The same checks are usually run on many documents, so the table sending events to the metric visitors and to
+   * these checks is reused.
+   */
+  private DispatchTable table(BitSet checks) {
+    return tables.computeIfAbsent(checks, c -> {
+      List<DefaultNodeVisitor> visitors = new ArrayList<>(metricVisitors);
+      c.stream().mapToObj(checkVisitors::get).forEach(visitors::add);
+      return new DispatchTable(visitors, profiler);
+    });
+  }
+
+  private DispatchTable checkTable(BitSet checks) {
+    return checkTables.computeIfAbsent(checks, c -> new DispatchTable(c.stream().mapToObj(checkVisitors::get).toList(), profiler));
+  }
+
+  int cachedTables() {
+    return tables.size() + checkTables.size();
+  }
+
+  int maxCachedTables() {
+    return Math.max(MIN_CACHED_TABLES, CACHED_TABLES_PER_CHECK * checkVisitors.size());
+  }
+
+  /**
+   * Least recently used tables are evicted, a table evicted and needed again is only built again.
+   */
+  private Map<BitSet, DispatchTable> tableCache() {
+    return new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<BitSet, DispatchTable> eldest) {
+        return size() > maxCachedTables();
+      }
+    };
   }
 
 }
@@ -16,23 +16,36 @@
  */
 package org.sonar.plugins.html.visitor;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.measures.Metric;
 import org.sonar.plugins.html.api.HtmlConstants;
 import org.sonar.plugins.html.checks.HtmlIssue;
+import org.sonar.plugins.html.node.SourceText;
 
 public class HtmlSourceCode {
 
   private final InputFile inputFile;
   private final Map<Metric<Integer>, Integer> measures = new HashMap<>();
   private final List<HtmlIssue> issues = new ArrayList<>();
-  private Set<Integer> detailedLinesOfCode = new HashSet<>();
+  private LineSet detailedLinesOfCode = new LineSet();
+  private LineSet noSonarLines = new LineSet();
+  private List<Highlighting> highlightings;
+  private List<CpdToken> cpdTokens;
+  private SourceText sourceText;
+  private boolean streamed;
 
   public HtmlSourceCode(InputFile inputFile) {
     this.inputFile = inputFile;
@@ -42,6 +55,78 @@ public class HtmlSourceCode {
     return inputFile;
   }
 
+  /**
+   * Content of the file as a string. It is a copy of the shared {@link #getSourceText()}, made on each call, so
+   * visitors should rather read the source text.
+   */
+  public String getContents() {
+    return getSourceText().toString();
+  }
+
+  /**
+   * Reads the content of the file, unless it has more characters than the given threshold: only this many characters
+   * are read to know it, and the file is then streamed, see {@link #openStream()}, so that its whole content is never
+   * held in memory.
+   */
+  public void readContents(int streamingThreshold) throws IOException {
+    if (sourceText != null) {
+      streamed = sourceText.length() > streamingThreshold;
+      return;
+    }
+    int maxLength = (int) Math.min(streamingThreshold + 1L, Integer.MAX_VALUE - 8);
+    char[] buffer = new char[Math.min(8192, maxLength)];
+    int length = 0;
+    try (Reader reader = openStream()) {
+      int read = 0;
+      while (read != -1 && length < maxLength) {
+        if (length == buffer.length) {
+          buffer = Arrays.copyOf(buffer, (int) Math.min(buffer.length * 2L, maxLength));
+        }
+        read = reader.read(buffer, length, buffer.length - length);
+        if (read > 0) {
+          length += read;
+        }
+      }
+    }
+    if (length <= streamingThreshold) {
+      sourceText = new SourceText(buffer, length);
+    } else {
+      streamed = true;
+    }
+  }
+
+  /**
+   * Opens the content of the file from its start, to stream it.
+   */
+  public Reader openStream() throws IOException {
+    return new InputStreamReader(inputFile.inputStream(), inputFile.charset());
+  }
+
+  /**
+   * Whether the file is analyzed in streaming mode, see {@link #readContents(int)}. Its content and its lines are then
+   * not available to the visitors.
+   */
+  public boolean isStreamed() {
+    return streamed;
+  }
+
+  /**
+   * Content of the file with the index of its lines. It is read and decoded on first call, then shared by the lexer and
+   * all the visitors, which do not have to split the content into lines themselves.
+   */
+  public SourceText getSourceText() {
+    if (sourceText == null) {
+      try (InputStream inputStream = inputFile.inputStream()) {
+        byte[] bytes = inputStream.readAllBytes();
+        CharBuffer chars = inputFile.charset().decode(ByteBuffer.wrap(bytes));
+        sourceText = new SourceText(chars.array(), chars.remaining());
+      } catch (IOException e) {
+        throw new IllegalStateException("Cannot read " + inputFile, e);
+      }
+    }
+    return sourceText;
+  }
+
   public void addMeasure(Metric<Integer> metric, int value) {
     if (shouldComputeMetric()) {
       measures.put(metric, value);
@@ -69,18 +154,59 @@ public class HtmlSourceCode {
     return inputFile().toString();
   }
 
-  public Set<Integer> getDetailedLinesOfCode() {
+  public LineSet getDetailedLinesOfCode() {
     return detailedLinesOfCode;
   }
 
-  public void setDetailedLinesOfCode(Set<Integer> detailedLinesOfCode) {
+  public void setDetailedLinesOfCode(LineSet detailedLinesOfCode) {
     this.detailedLinesOfCode = detailedLinesOfCode;
   }
 
+  /**
+   * Lines marked with a NOSONAR comment.
+   */
+  public LineSet getNoSonarLines() {
+    return noSonarLines;
+  }
+
+  public void setNoSonarLines(LineSet noSonarLines) {
+    this.noSonarLines = noSonarLines;
+  }
+
+  /**
+   * Highlighting computed for this file, or null when highlighting was not computed.
+   */
+  @CheckForNull
+  public List<Highlighting> getHighlightings() {
+    return highlightings;
+  }
+
+  public void setHighlightings(List<Highlighting> highlightings) {
+    this.highlightings = highlightings;
+  }
+
+  /**
+   * Duplication tokens computed for this file, or null when they were not computed.
+   */
+  @CheckForNull
+  public List<CpdToken> getCpdTokens() {
+    return cpdTokens;
+  }
+
+  public void setCpdTokens(List<CpdToken> cpdTokens) {
+    this.cpdTokens = cpdTokens;
+  }
+
   public boolean shouldComputeMetric() {
     // if input file has a language other than web, then we should not compute metrics for this file as we assume they will be computed by another plugin
     String language = inputFile.language();
     return language == null || HtmlConstants.LANGUAGE_KEY.equals(language) || HtmlConstants.JSP_LANGUAGE_KEY.equals(language);
   }
 
+  public record Highlighting(int startLine, int startColumn, int endLine, int endColumn, TypeOfText typeOfText) {
+  }
+
+  public record CpdToken(int startLine, int startColumn, int endLine, int endColumn, String image) {
+  }
+
 }
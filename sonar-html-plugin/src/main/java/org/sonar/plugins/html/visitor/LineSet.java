@@ -0,0 +1,136 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of line numbers, stored as the bits of a {@link BitSet} rather than as boxed integers.
+ * <p>
+ * The primitive methods should be preferred when recording and reading the lines of a file. The {@link java.util.Set}
+ * methods are meant for the APIs which take a set of lines, such as the NOSONAR filter; they iterate over the lines in
+ * ascending order.
+ */
+public final class LineSet extends AbstractSet<Integer> {
+
+  private final BitSet lines = new BitSet();
+
+  public boolean add(int line) {
+    if (lines.get(line)) {
+      return false;
+    }
+    lines.set(line);
+    return true;
+  }
+
+  @Override
+  public boolean add(Integer line) {
+    return add(line.intValue());
+  }
+
+  /**
+   * Adds the lines from {@code firstLine} to {@code lastLine}, both included.
+   */
+  public void addRange(int firstLine, int lastLine) {
+    if (firstLine <= lastLine) {
+      lines.set(firstLine, lastLine + 1);
+    }
+  }
+
+  public boolean contains(int line) {
+    return line >= 0 && lines.get(line);
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof Integer line && contains(line.intValue());
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    if (!contains(o)) {
+      return false;
+    }
+    lines.clear((Integer) o);
+    return true;
+  }
+
+  /**
+   * First line of the set greater than or equal to {@code fromLine}, or -1 when there is none.
+   */
+  public int nextLine(int fromLine) {
+    return lines.nextSetBit(fromLine);
+  }
+
+  public void forEachLine(IntConsumer action) {
+    for (int line = lines.nextSetBit(0); line >= 0; line = lines.nextSetBit(line + 1)) {
+      action.accept(line);
+    }
+  }
+
+  @Override
+  public int size() {
+    return lines.cardinality();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return lines.isEmpty();
+  }
+
+  @Override
+  public void clear() {
+    lines.clear();
+  }
+
+  @Override
+  public Iterator<Integer> iterator() {
+    return new Iterator<>() {
+      private int next = lines.nextSetBit(0);
+      private int last = -1;
+
+      @Override
+      public boolean hasNext() {
+        return next >= 0;
+      }
+
+      @Override
+      public Integer next() {
+        if (next < 0) {
+          throw new NoSuchElementException();
+        }
+        last = next;
+        next = lines.nextSetBit(next + 1);
+        return last;
+      }
+
+      @Override
+      public void remove() {
+        if (last < 0) {
+          throw new IllegalStateException();
+        }
+        lines.clear(last);
+        last = -1;
+      }
+    };
+  }
+
+}
@@ -21,9 +21,7 @@ import org.sonar.plugins.html.node.CommentNode;
 import org.sonar.plugins.html.node.ExpressionNode;
 import org.sonar.plugins.html.node.Node;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Scans for //NOSONAR indicator.
@@ -33,7 +31,7 @@ import java.util.Set;
 public class NoSonarScanner extends DefaultNodeVisitor {
 
   private static final String NOSONAR = "//NOSONAR";
-  private Set<Integer> noSonarLines;
+  private LineSet noSonarLines;
   private final NoSonarFilter noSonarFilter;
 
   public NoSonarScanner(NoSonarFilter noSonarFilter) {
@@ -42,7 +40,7 @@ public class NoSonarScanner extends DefaultNodeVisitor {
 
   @Override
   public void startDocument(List<Node> nodes) {
-    noSonarLines = new HashSet<>();
+    noSonarLines = new LineSet();
   }
 
   @Override
@@ -61,6 +59,7 @@ public class NoSonarScanner extends DefaultNodeVisitor {
 
   @Override
   public void endDocument() {
+    getHtmlSourceCode().setNoSonarLines(noSonarLines);
     if (noSonarLines != null && !noSonarLines.isEmpty()) {
       noSonarFilter.noSonarInFile(getHtmlSourceCode().inputFile(), noSonarLines);
     }
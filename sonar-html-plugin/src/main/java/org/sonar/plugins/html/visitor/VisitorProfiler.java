@@ -0,0 +1,172 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Measures the wall time, CPU time and allocated bytes of the calls to each visitor, for each file, and for each visitor
+ * on each file. Only the costliest visitors on a file are kept, so that the memory of the profiler does not grow with
+ * the number of visitors times the number of files.
+ * <p>
+ * A profiler is used by a single thread. Measures are taken with {@link ThreadMXBean} around every call to a visitor,
+ * which slows down the analysis, so profiling is only meant to find the costliest visitors.
+ */
+public final class VisitorProfiler {
+
+  static final int KEPT_VISITOR_FILE_COSTS = 100;
+
+  private static final Comparator<VisitorFileCost> BY_WALL_TIME = Comparator.comparingLong(cost -> cost.cost().wallTime());
+
+  private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+  private final boolean cpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported();
+  private final boolean allocatedBytesSupported = isAllocatedBytesSupported(threadMXBean);
+  private final Map<DefaultNodeVisitor, Cost> costsByVisitor = new IdentityHashMap<>();
+  private final Map<String, Cost> costsByFile = new LinkedHashMap<>();
+  private final Map<DefaultNodeVisitor, Cost> currentFileCostsByVisitor = new IdentityHashMap<>();
+  private final PriorityQueue<VisitorFileCost> costliestVisitorFileCosts = new PriorityQueue<>(BY_WALL_TIME);
+  private Cost currentFile = new Cost();
+  private String currentFileName = "";
+
+  private long startWallTime;
+  private long startCpuTime;
+  private long startAllocatedBytes;
+
+  void startFile(HtmlSourceCode htmlSourceCode) {
+    endFile();
+    currentFileName = htmlSourceCode.toString();
+    currentFile = costsByFile.computeIfAbsent(currentFileName, file -> new Cost());
+  }
+
+  /**
+   * Keeps the costs of the visitors on the current file which are among the costliest ones.
+   */
+  private void endFile() {
+    for (Map.Entry<DefaultNodeVisitor, Cost> entry : currentFileCostsByVisitor.entrySet()) {
+      costliestVisitorFileCosts.add(new VisitorFileCost(entry.getKey(), currentFileName, entry.getValue()));
+      if (costliestVisitorFileCosts.size() > KEPT_VISITOR_FILE_COSTS) {
+        costliestVisitorFileCosts.poll();
+      }
+    }
+    currentFileCostsByVisitor.clear();
+  }
+
+  void start() {
+    startAllocatedBytes = allocatedBytes();
+    startCpuTime = cpuTime();
+    startWallTime = System.nanoTime();
+  }
+
+  void stop(DefaultNodeVisitor visitor) {
+    long wallTime = System.nanoTime() - startWallTime;
+    long cpuTime = cpuTime() - startCpuTime;
+    long allocatedBytes = allocatedBytes() - startAllocatedBytes;
+    costsByVisitor.computeIfAbsent(visitor, v -> new Cost()).add(wallTime, cpuTime, allocatedBytes);
+    currentFile.add(wallTime, cpuTime, allocatedBytes);
+    currentFileCostsByVisitor.computeIfAbsent(visitor, v -> new Cost()).add(wallTime, cpuTime, allocatedBytes);
+  }
+
+  public Map<DefaultNodeVisitor, Cost> costsByVisitor() {
+    return costsByVisitor;
+  }
+
+  /**
+   * Costs of all the visitors for each file, by path of the file.
+   */
+  public Map<String, Cost> costsByFile() {
+    return costsByFile;
+  }
+
+  /**
+   * The {@value #KEPT_VISITOR_FILE_COSTS} costliest visitors on a file, by decreasing wall time.
+   */
+  public List<VisitorFileCost> costliestVisitorFileCosts() {
+    endFile();
+    List<VisitorFileCost> costs = new ArrayList<>(costliestVisitorFileCosts);
+    costs.sort(BY_WALL_TIME.reversed());
+    return costs;
+  }
+
+  private long cpuTime() {
+    return cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : 0;
+  }
+
+  private long allocatedBytes() {
+    return allocatedBytesSupported ? ((com.sun.management.ThreadMXBean) threadMXBean).getCurrentThreadAllocatedBytes() : 0;
+  }
+
+  private static boolean isAllocatedBytesSupported(ThreadMXBean threadMXBean) {
+    return threadMXBean instanceof com.sun.management.ThreadMXBean sunThreadMXBean
+      && sunThreadMXBean.isThreadAllocatedMemorySupported()
+      && sunThreadMXBean.isThreadAllocatedMemoryEnabled();
+  }
+
+  /**
+   * Cost of the calls to a visitor on a file, by path of the file.
+   */
+  public record VisitorFileCost(DefaultNodeVisitor visitor, String file, Cost cost) {
+  }
+
+  /**
+   * Cumulated cost of calls, times are in nanoseconds.
+   */
+  public static final class Cost {
+
+    private long calls;
+    private long wallTime;
+    private long cpuTime;
+    private long allocatedBytes;
+
+    void add(long wallTime, long cpuTime, long allocatedBytes) {
+      calls++;
+      this.wallTime += wallTime;
+      this.cpuTime += cpuTime;
+      this.allocatedBytes += allocatedBytes;
+    }
+
+    public void add(Cost other) {
+      calls += other.calls;
+      wallTime += other.wallTime;
+      cpuTime += other.cpuTime;
+      allocatedBytes += other.allocatedBytes;
+    }
+
+    public long calls() {
+      return calls;
+    }
+
+    public long wallTime() {
+      return wallTime;
+    }
+
+    public long cpuTime() {
+      return cpuTime;
+    }
+
+    public long allocatedBytes() {
+      return allocatedBytes;
+    }
+  }
+}
@@ -55,6 +55,20 @@ public class UnclosedTagCheckTest {
       .next().atLine(15).withMessage("The tag \"li\" has no corresponding closing tag.");
   }
 
+  @Test
+  public void mismatched_end_tags() {
+    UnclosedTagCheck check = new UnclosedTagCheck();
+
+    HtmlSourceCode sourceCode = TestHelper.scan(new File("src/test/resources/checks/UnclosedTagCheck/MismatchedEndTags.html"), check);
+
+    checkMessagesVerifier.verify(sourceCode.getIssues())
+      .next().atLine(1).withMessage("The tag \"div\" has no corresponding closing tag.")
+      .next().atLine(2).withMessage("The tag \"span\" has no corresponding closing tag.")
+      .next().atLine(3).withMessage("The tag \"a\" has no corresponding closing tag.")
+      .next().atLine(13).withMessage("The tag \"u\" has no corresponding closing tag.")
+      .noMore();
+  }
+
   @Test
   public void empty_file() {
     UnclosedTagCheck check = new UnclosedTagCheck();
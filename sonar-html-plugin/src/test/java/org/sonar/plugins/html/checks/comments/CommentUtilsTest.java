@@ -34,6 +34,7 @@ public class CommentUtilsTest {
   public void before() {
     node = new CommentNode();
     node.setStartLinePosition(1);
+    node.setStartColumnPosition(0);
     node.setCode("<!--A\nB\nC-->");
   }
 
@@ -45,6 +46,16 @@ public class CommentUtilsTest {
     assertThat(lineNumber(node, node.getCode().length())).isEqualTo(3);
   }
 
+  @Test
+  public void comment_after_other_code() {
+    node.setStartLinePosition(2);
+    node.setStartColumnPosition(3);
+    node.setCode("<!--A\rB-->");
+
+    assertThat(lineNumber(node, 4)).isEqualTo(2);
+    assertThat(lineNumber(node, 6)).isEqualTo(3);
+  }
+
   @Test
   public void negative_offset() {
     var e = assertThrows(IllegalArgumentException.class, () -> lineNumber(node, -1));
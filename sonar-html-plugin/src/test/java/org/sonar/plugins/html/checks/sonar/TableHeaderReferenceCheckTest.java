@@ -48,4 +48,15 @@ public class TableHeaderReferenceCheckTest {
         .next().atLine(275).withMessage("id \"foo\" in \"headers\" does not reference any <th> header.")
         .next().atLine(281).withMessage("id \"foo\" in \"headers\" does not reference any <th> header.");
   }
+
+  @Test
+  public void spanning_cells() throws Exception {
+    HtmlSourceCode sourceCode = TestHelper.scan(new File("src/test/resources/checks/TableHeaderReferenceCheckSpans.html"), new TableHeaderReferenceCheck());
+
+    checkMessagesVerifier.verify(sourceCode.getIssues())
+        .next().atLine(17).withMessage("id \"oof\" in \"headers\" does not reference any <th> header.")
+        .next().atLine(17).withMessage("id \"rab\" in \"headers\" does not reference any <th> header.")
+        .next().atLine(33).withMessage("id \"foo\" in \"headers\" reference the header of another column/row.")
+        .noMore();
+  }
 }
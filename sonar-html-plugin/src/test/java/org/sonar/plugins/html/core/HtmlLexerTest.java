@@ -62,6 +62,14 @@ public class HtmlLexerTest {
     assertThat("<a src=uri/a />", lexer.lex("<a src=uri/a />"), hasToken("=uri/a", HtmlTokenType.ATTRIBUTE));
   }
 
+  @Test
+  public void lexer_can_be_reused() {
+    Lexer reusedLexer = HtmlLexer.create(StandardCharsets.UTF_8);
+    assertThat(reusedLexer.lex("<!-- c --><a>"), hasComment("<!-- c -->"));
+    assertThat(reusedLexer.lex("<b>"), hasTokens("<b>", "EOF"));
+    assertThat(reusedLexer.lex("<b>"), hasToken("<b>", HtmlTokenType.TAG));
+  }
+
   @Test
   public void bom() {
     assertThat(lexer.lex(Character.toString((char) BomCharacterChannel.BOM_CHAR)), hasTokens("EOF"));
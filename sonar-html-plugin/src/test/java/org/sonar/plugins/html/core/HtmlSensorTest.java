@@ -16,17 +16,30 @@
  */
 package org.sonar.plugins.html.core;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 import org.sonar.api.SonarEdition;
 import org.sonar.api.SonarQubeSide;
@@ -34,14 +47,18 @@ import org.sonar.api.SonarRuntime;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.rule.ActiveRule;
 import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.rule.CheckFactory;
 import org.sonar.api.batch.rule.internal.DefaultActiveRules;
 import org.sonar.api.batch.rule.internal.NewActiveRule;
 import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
 import org.sonar.api.batch.sensor.highlighting.TypeOfText;
 import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonar.api.batch.sensor.issue.internal.DefaultNoSonarFilter;
 import org.sonar.api.internal.SonarRuntimeImpl;
 import org.sonar.api.measures.CoreMetrics;
@@ -51,8 +68,11 @@ import org.sonar.api.rule.RuleKey;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.api.testfixtures.log.LogTesterJUnit5;
 import org.sonar.api.utils.Version;
+import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.plugins.html.api.HtmlConstants;
+import org.sonar.plugins.html.checks.HtmlIssue;
 import org.sonar.plugins.html.rules.HtmlRulesDefinition;
+import org.sonar.plugins.html.visitor.HtmlSourceCode;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -65,6 +85,9 @@ public class HtmlSensorTest {
 
   private HtmlSensor sensor;
   private SensorContextTester tester;
+  private ActiveRules activeRules;
+  private CheckFactory checkFactory;
+  private FileLinesContextFactory fileLinesContextFactory;
 
   @RegisterExtension
   public LogTesterJUnit5 logTester = new LogTesterJUnit5();
@@ -81,10 +104,10 @@ public class HtmlSensorTest {
     for (RulesDefinition.Rule rule : repository.rules()) {
       ar.add(new NewActiveRule.Builder().setRuleKey(RuleKey.of(HtmlRulesDefinition.REPOSITORY_KEY, rule.key())).build());
     }
-    ActiveRules activeRules = new DefaultActiveRules(ar);
+    activeRules = new DefaultActiveRules(ar);
 
-    CheckFactory checkFactory = new CheckFactory(activeRules);
-    FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
+    checkFactory = new CheckFactory(activeRules);
+    fileLinesContextFactory = mock(FileLinesContextFactory.class);
     when(fileLinesContextFactory.createFor(Mockito.any(InputFile.class))).thenReturn(mock(FileLinesContext.class));
     sensor = new HtmlSensor(sonarRuntime, new DefaultNoSonarFilter(), fileLinesContextFactory, checkFactory);
     tester = SensorContextTester.create(TEST_DIR).setRuntime(sonarRuntime);
@@ -238,7 +261,273 @@ public class HtmlSensorTest {
     assertThat(tester.allAnalysisErrors()).isEmpty();
   }
 
-  private DefaultInputFile createInputFile(Path dir, String fileName) throws IOException {
+  @Test
+  public void parallel_analysis_should_give_same_results_as_sequential_analysis() throws Exception {
+    List<String> fileNames = List.of("user-properties.jsp", "versioned-details.jsp", "create-salesorder.xhtml", "select_user.html.erb", "foo.vue", "foo.twig");
+
+    SensorContextTester sequential = analyzeWithThreads(fileNames, 1);
+    SensorContextTester parallel = analyzeWithThreads(fileNames, 4);
+
+    assertThat(parallel.allIssues()).hasSameSizeAs(sequential.allIssues()).isNotEmpty();
+    assertThat(issues(parallel)).isEqualTo(issues(sequential));
+    for (String fileName : fileNames) {
+      String componentKey = "key:" + fileName;
+      assertThat(parallel.measure(componentKey, CoreMetrics.NCLOC).value()).isEqualTo(sequential.measure(componentKey, CoreMetrics.NCLOC).value());
+      assertThat(parallel.cpdTokens(componentKey)).hasSameSizeAs(sequential.cpdTokens(componentKey));
+    }
+    assertThat(parallel.allAnalysisErrors()).isEmpty();
+  }
+
+  @Test
+  public void streaming_analysis_should_only_miss_issues_of_rules_requiring_the_whole_document() throws Exception {
+    List<String> fileNames = List.of("user-properties.jsp", "versioned-details.jsp", "create-salesorder.xhtml", "select_user.html.erb", "foo.vue", "foo.twig");
+    Set<String> wholeDocumentRules = Set.of("ChildElementRequiredCheck", "ChildElementIllegalCheck", "S6827", "TableHeaderHasIdOrScopeCheck", "S5256",
+      "TableWithoutCaptionCheck", "S4084", "HeaderCheck", "IllegalTabCheck", "MaxLineLengthCheck");
+
+    SensorContextTester full = analyzeWithThreads(fileNames, 1);
+    SensorContextTester streamed = analyzeWithThreads(fileNames, 1, context -> context.settings().setProperty(HtmlConstants.STREAMING_THRESHOLD_PROP_KEY, 0));
+
+    List<String> expected = full.allIssues().stream()
+      .filter(issue -> !wholeDocumentRules.contains(issue.ruleKey().rule()))
+      .map(HtmlSensorTest::issueToString)
+      .sorted()
+      .collect(Collectors.toList());
+    assertThat(issues(streamed)).isNotEmpty().isEqualTo(expected);
+    for (String fileName : fileNames) {
+      String componentKey = "key:" + fileName;
+      assertThat(streamed.measure(componentKey, CoreMetrics.NCLOC).value()).isEqualTo(full.measure(componentKey, CoreMetrics.NCLOC).value());
+      assertThat(streamed.measure(componentKey, CoreMetrics.COMMENT_LINES).value()).isEqualTo(full.measure(componentKey, CoreMetrics.COMMENT_LINES).value());
+      assertThat(streamed.cpdTokens(componentKey)).isNull();
+      assertThat(full.cpdTokens(componentKey)).isNotNull();
+    }
+    assertThat(streamed.allAnalysisErrors()).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.INFO))
+      .anyMatch(log -> log.startsWith("user-properties.jsp has more characters than the streaming threshold") && log.contains("neither highlighted nor checked for duplication"));
+  }
+
+  @Test
+  public void identical_files_should_be_analyzed_once() throws Exception {
+    logTester.setLevel(LoggerLevel.DEBUG);
+    String content = new String(Files.readAllBytes(TEST_DIR.resolve("foo.vue")), StandardCharsets.UTF_8);
+    for (String fileName : List.of("copy1.html", "copy2.html", "copy.vue")) {
+      tester.fileSystem().add(new TestInputFileBuilder("key", fileName)
+        .setModuleBaseDir(TEST_DIR)
+        .setLanguage(HtmlConstants.LANGUAGE_KEY)
+        .setType(InputFile.Type.MAIN)
+        .setContents(content)
+        .initMetadata(content)
+        .setCharset(StandardCharsets.UTF_8)
+        .build());
+    }
+
+    sensor.execute(tester);
+
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).containsOnlyOnce("Using results of identical file copy1.html for copy2.html");
+    assertThat(issuesOf(tester, "key:copy2.html")).isNotEmpty().isEqualTo(issuesOf(tester, "key:copy1.html"));
+    assertThat(tester.measure("key:copy2.html", CoreMetrics.NCLOC).value()).isEqualTo(tester.measure("key:copy1.html", CoreMetrics.NCLOC).value());
+    assertThat(tester.cpdTokens("key:copy2.html")).hasSameSizeAs(tester.cpdTokens("key:copy1.html"));
+    assertThat(tester.highlightingTypeAt("key:copy2.html", 1, 1)).isEqualTo(tester.highlightingTypeAt("key:copy1.html", 1, 1));
+    // a .vue file is lexed differently, so it is analyzed separately
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).noneMatch(log -> log.endsWith("for copy.vue"));
+    assertThat(tester.allAnalysisErrors()).isEmpty();
+  }
+
+  private static List<String> issuesOf(SensorContextTester context, String componentKey) {
+    return context.allIssues().stream()
+      .filter(issue -> issue.primaryLocation().inputComponent().key().equals(componentKey))
+      .map(issue -> issue.ruleKey() + " " + issue.primaryLocation().textRange() + " " + issue.primaryLocation().message())
+      .sorted()
+      .collect(Collectors.toList());
+  }
+
+  @Test
+  public void profiling_should_report_the_costliest_rules_and_files(@TempDir Path workDir) throws Exception {
+    tester.fileSystem().setWorkDir(workDir);
+    tester.settings().setProperty(HtmlConstants.PROFILING_PROP_KEY, true);
+    tester.fileSystem().add(createInputFile(TEST_DIR, "user-properties.jsp"));
+
+    sensor.execute(tester);
+
+    assertThat(logTester.logs(LoggerLevel.INFO)).anyMatch(log -> log.startsWith("Costliest HTML rules:") && log.contains("Web:MaxLineLengthCheck"));
+    assertThat(logTester.logs(LoggerLevel.INFO)).anyMatch(log -> log.startsWith("Costliest HTML files:") && log.contains("user-properties.jsp"));
+    String report = Files.readString(workDir.resolve(ProfilingReport.FILE_NAME));
+    assertThat(report)
+      .contains("{\"name\": \"Web:MaxLineLengthCheck\", \"calls\": ")
+      .contains("{\"name\": \"PageCountLines\", \"calls\": ")
+      .contains("{\"name\": \"user-properties.jsp\", \"calls\": ")
+      .containsPattern("\\{\"rule\": \"Web:\\w+\", \"file\": \"user-properties.jsp\", \"calls\": ");
+  }
+
+  @Test
+  public void flight_recorder_events_should_be_emitted_for_each_phase(@TempDir Path tempDir) throws Exception {
+    tester.fileSystem().add(createInputFile(TEST_DIR, "user-properties.jsp"));
+    Path dump = tempDir.resolve("analysis.jfr");
+
+    try (Recording recording = new Recording()) {
+      recording.start();
+      sensor.execute(tester);
+      recording.stop();
+      recording.dump(dump);
+    }
+
+    Map<String, RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+      .filter(event -> event.getEventType().getName().startsWith("org.sonarsource.html."))
+      .collect(Collectors.toMap(event -> event.getEventType().getName(), event -> event));
+    assertThat(events).containsOnlyKeys("org.sonarsource.html.Read", "org.sonarsource.html.Lex", "org.sonarsource.html.Scan",
+      "org.sonarsource.html.Tokens", "org.sonarsource.html.Save");
+    RecordedEvent scan = events.get("org.sonarsource.html.Scan");
+    assertThat(scan.getString("file")).isEqualTo("user-properties.jsp");
+    assertThat(scan.getLong("size")).isPositive();
+    assertThat(scan.getInt("nodes")).isPositive();
+    assertThat(scan.getInt("issues")).isEqualTo(106);
+    assertThat(events.get("org.sonarsource.html.Save").getInt("issues")).isEqualTo(106);
+  }
+
+  @Test
+  public void unchanged_files_should_have_their_results_replayed_from_the_analysis_cache() throws Exception {
+    List<String> fileNames = List.of("user-properties.jsp", "foo.vue");
+    InMemoryCache firstCache = new InMemoryCache(new InMemoryCache(null));
+    SensorContextTester first = analyzeWithCache(fileNames, cachingSensor(checkFactory), activeRules, firstCache);
+    assertThat(firstCache.entries).hasSize(2);
+
+    // no check is instantiated by the second sensor, so issues can only come from the cache
+    InMemoryCache secondCache = new InMemoryCache(firstCache);
+    SensorContextTester second = analyzeWithCache(fileNames, cachingSensor(new CheckFactory(new DefaultActiveRules(List.of()))), activeRules, secondCache);
+
+    assertThat(issues(second)).isNotEmpty().isEqualTo(issues(first));
+    for (String fileName : fileNames) {
+      String componentKey = "key:" + fileName;
+      assertThat(second.measure(componentKey, CoreMetrics.NCLOC).value()).isEqualTo(first.measure(componentKey, CoreMetrics.NCLOC).value());
+      assertThat(second.measure(componentKey, CoreMetrics.COMPLEXITY).value()).isEqualTo(first.measure(componentKey, CoreMetrics.COMPLEXITY).value());
+      assertThat(second.cpdTokens(componentKey)).hasSameSizeAs(first.cpdTokens(componentKey));
+      assertThat(second.highlightingTypeAt(componentKey, 1, 0)).isEqualTo(first.highlightingTypeAt(componentKey, 1, 0));
+    }
+    assertThat(secondCache.entries.keySet()).isEqualTo(firstCache.entries.keySet());
+  }
+
+  @Test
+  public void changing_active_rules_should_only_run_the_changed_rules() throws Exception {
+    List<String> fileNames = List.of("user-properties.jsp", "foo.vue");
+    InMemoryCache firstCache = new InMemoryCache(new InMemoryCache(null));
+    analyzeWithCache(fileNames, cachingSensor(checkFactory), activeRules, firstCache);
+
+    RuleKey maxLineLength = RuleKey.of(HtmlRulesDefinition.REPOSITORY_KEY, "MaxLineLengthCheck");
+    List<NewActiveRule> rules = new ArrayList<>();
+    for (ActiveRule rule : activeRules.findAll()) {
+      NewActiveRule.Builder builder = new NewActiveRule.Builder().setRuleKey(rule.ruleKey());
+      if (rule.ruleKey().equals(maxLineLength)) {
+        builder.setParam("maxLength", "100");
+      }
+      rules.add(builder.build());
+    }
+    ActiveRules changedRules = new DefaultActiveRules(rules);
+    SensorContextTester expected = analyzeWithCache(fileNames, cachingSensor(new CheckFactory(changedRules)), changedRules, new InMemoryCache(new InMemoryCache(null)));
+
+    // only the changed rule is instantiated by the second sensor, the issues of the other rules can only come from the cache
+    ActiveRules onlyChangedRule = new DefaultActiveRules(List.of(new NewActiveRule.Builder().setRuleKey(maxLineLength).setParam("maxLength", "100").build()));
+    InMemoryCache secondCache = new InMemoryCache(firstCache);
+    SensorContextTester second = analyzeWithCache(fileNames, cachingSensor(new CheckFactory(onlyChangedRule)), changedRules, secondCache);
+
+    assertThat(issues(second)).isEqualTo(issues(expected));
+    assertThat(second.allIssues()).anyMatch(issue -> issue.ruleKey().equals(maxLineLength));
+    assertThat(second.allIssues()).anyMatch(issue -> !issue.ruleKey().equals(maxLineLength));
+    assertThat(second.measure("key:user-properties.jsp", CoreMetrics.NCLOC).value()).isEqualTo(224);
+  }
+
+  @Test
+  public void issue_costs_should_be_replayed_from_the_analysis_cache() throws Exception {
+    DefaultInputFile inputFile = createInputFile(TEST_DIR, "foo.vue");
+    RuleKey complexity = RuleKey.of(HtmlRulesDefinition.REPOSITORY_KEY, "ComplexityCheck");
+    RuleKey imgWithoutAlt = RuleKey.of(HtmlRulesDefinition.REPOSITORY_KEY, "ImgWithoutAltCheck");
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+    sourceCode.addIssue(new HtmlIssue(complexity, null, "complexity", 2.5));
+    sourceCode.addIssue(new HtmlIssue(imgWithoutAlt, 3, "no alt"));
+
+    InMemoryCache firstCache = new InMemoryCache(new InMemoryCache(null));
+    new AnalysisCache(cacheContext(firstCache), true).write(sourceCode);
+    AnalysisCache.CachedResults cached = new AnalysisCache(cacheContext(new InMemoryCache(firstCache)), true).read(inputFile);
+
+    assertThat(cached).isNotNull();
+    Map<RuleKey, Double> costs = new HashMap<>();
+    for (HtmlIssue issue : cached.sourceCode().getIssues()) {
+      costs.put(issue.ruleKey(), issue.cost());
+    }
+    assertThat(costs).hasSize(2).containsEntry(complexity, 2.5).containsEntry(imgWithoutAlt, null);
+  }
+
+  @Test
+  public void cached_results_should_not_be_replayed_when_the_tokenizer_or_the_encoding_changes() {
+    DefaultInputFile inputFile = createInputFile(TEST_DIR, "foo.vue");
+    InMemoryCache firstCache = new InMemoryCache(new InMemoryCache(null));
+    new AnalysisCache(cacheContext(firstCache), true).write(new HtmlSourceCode(inputFile));
+
+    assertThat(new AnalysisCache(cacheContext(new InMemoryCache(firstCache)), true).read(inputFile)).isNotNull();
+
+    SensorContextTester stateMachine = cacheContext(new InMemoryCache(firstCache));
+    stateMachine.settings().setProperty(HtmlConstants.STATE_MACHINE_TOKENIZER_PROP_KEY, true);
+    assertThat(new AnalysisCache(stateMachine, true).read(inputFile)).isNull();
+
+    SensorContextTester encoding = cacheContext(new InMemoryCache(firstCache));
+    encoding.fileSystem().setEncoding(StandardCharsets.ISO_8859_1);
+    assertThat(new AnalysisCache(encoding, true).read(inputFile)).isNull();
+  }
+
+  private SensorContextTester cacheContext(InMemoryCache cache) {
+    SensorContextTester context = SensorContextTester.create(TEST_DIR);
+    context.setActiveRules(activeRules);
+    context.setCacheEnabled(true);
+    context.setPreviousCache(cache.previous);
+    context.setNextCache(cache);
+    return context;
+  }
+
+  private HtmlSensor cachingSensor(CheckFactory checkFactory) {
+    SonarRuntime sonarRuntime = SonarRuntimeImpl.forSonarQube(Version.create(9, 4), SonarQubeSide.SCANNER, SonarEdition.COMMUNITY);
+    return new HtmlSensor(sonarRuntime, new DefaultNoSonarFilter(), fileLinesContextFactory, checkFactory);
+  }
+
+  private static SensorContextTester analyzeWithCache(List<String> fileNames, HtmlSensor sensor, ActiveRules activeRules, InMemoryCache cache) throws IOException {
+    SensorContextTester context = SensorContextTester.create(TEST_DIR)
+      .setRuntime(SonarRuntimeImpl.forSonarQube(Version.create(9, 4), SonarQubeSide.SCANNER, SonarEdition.COMMUNITY));
+    context.setActiveRules(activeRules);
+    context.setCacheEnabled(true);
+    context.setPreviousCache(cache.previous);
+    context.setNextCache(cache);
+    for (String fileName : fileNames) {
+      context.fileSystem().add(createInputFile(TEST_DIR, fileName));
+    }
+    sensor.execute(context);
+    return context;
+  }
+
+  private SensorContextTester analyzeWithThreads(List<String> fileNames, int threads) throws IOException {
+    return analyzeWithThreads(fileNames, threads, context -> {
+    });
+  }
+
+  private SensorContextTester analyzeWithThreads(List<String> fileNames, int threads, Consumer<SensorContextTester> configuration) throws IOException {
+    SensorContextTester context = SensorContextTester.create(TEST_DIR).setRuntime(tester.runtime());
+    context.settings().setProperty(HtmlConstants.ANALYSIS_THREADS_PROP_KEY, threads);
+    configuration.accept(context);
+    for (String fileName : fileNames) {
+      context.fileSystem().add(createInputFile(TEST_DIR, fileName));
+    }
+    sensor.execute(context);
+    return context;
+  }
+
+  private static List<String> issues(SensorContextTester context) {
+    return context.allIssues().stream()
+      .map(HtmlSensorTest::issueToString)
+      .sorted()
+      .collect(Collectors.toList());
+  }
+
+  private static String issueToString(Issue issue) {
+    return issue.ruleKey() + " " + issue.primaryLocation().inputComponent().key() + " " + issue.primaryLocation().textRange() + " " + issue.primaryLocation().message();
+  }
+
+  private static DefaultInputFile createInputFile(Path dir, String fileName) throws IOException {
     return new TestInputFileBuilder("key", fileName)
       .setModuleBaseDir(dir)
       .setLanguage(HtmlConstants.LANGUAGE_KEY)
@@ -247,4 +536,43 @@ public class HtmlSensorTest {
       .setCharset(StandardCharsets.UTF_8)
       .build();
   }
+
+  private static class InMemoryCache implements ReadCache, WriteCache {
+
+    private final Map<String, byte[]> entries = new HashMap<>();
+    private final InMemoryCache previous;
+
+    InMemoryCache(@Nullable InMemoryCache previous) {
+      this.previous = previous;
+    }
+
+    @Override
+    public InputStream read(String key) {
+      return new ByteArrayInputStream(entries.get(key));
+    }
+
+    @Override
+    public boolean contains(String key) {
+      return entries.containsKey(key);
+    }
+
+    @Override
+    public void write(String key, InputStream data) {
+      try {
+        write(key, data.readAllBytes());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void write(String key, byte[] data) {
+      entries.put(key, data);
+    }
+
+    @Override
+    public void copyFromPrevious(String key) {
+      write(key, previous.entries.get(key));
+    }
+  }
 }
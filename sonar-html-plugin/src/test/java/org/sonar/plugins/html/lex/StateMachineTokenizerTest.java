@@ -0,0 +1,206 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.lex;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.sonar.plugins.html.node.Attribute;
+import org.sonar.plugins.html.node.CommentNode;
+import org.sonar.plugins.html.node.DocumentSummary;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.SourceText;
+import org.sonar.plugins.html.node.TagNode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StateMachineTokenizerTest {
+
+  @Test
+  void same_nodes_as_channels_on_test_files() throws IOException {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(Paths.get("src/test/resources"))) {
+      files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+    }
+    assertThat(files).hasSizeGreaterThan(100);
+    for (Path file : files) {
+      String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      boolean vue = file.toString().endsWith(".vue");
+      assertThat(describe(parse(content, vue, true)))
+        .as(file.toString())
+        .isEqualTo(describe(parse(content, vue, false)));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "",
+    "text only",
+    "<",
+    "a < b",
+    "<1>",
+    "<a",
+    "<a href=\"x",
+    "<a href='x' title=\"it's\" data-x=\"a\\\"b\" >",
+    "<a b=c d= e f =\"\" g=''>",
+    "<a =b>",
+    "<a\r\nb=\"1\"\rc=\"2\"\n d='3'>",
+    "<td id=\"x\"<c:if test='${a == \"b\"}'>",
+    "<a <!-- comment --> b=\"<%= x %>\">",
+    "<!-- unterminated comment",
+    "<!--> <!---> -->",
+    "<%-- jsp comment --%><%@ page import=\"a\" %><%= expr %><% code %>",
+    "<?xml version=\"1.0\"?>",
+    "<!doctype html PUBLIC \"-//W3C//DTD XHTML 1.0\" \"http://www.w3.org\">",
+    "<![CDATA[ <a> ]]>",
+    "<script>if (a<b) {}</SCRIPT ><script>",
+    "<script>x = \"</script>\";",
+    "<p>one<p>two<div></div></p>",
+    "<ul><li>a<li>b</ul>",
+    "<a:b x:y=\"z\"/><\uD800\uDC00/>",
+    "<template><div v-if=\"a\">{{ b }}</div></template>"
+  })
+  void same_nodes_as_channels(String content) {
+    assertThat(describe(parse(content, false, true))).isEqualTo(describe(parse(content, false, false)));
+    assertThat(describe(parse(content, true, true))).isEqualTo(describe(parse(content, true, false)));
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void same_nodes_from_source_text_as_from_reader(boolean stateMachine) {
+    String content = "<div>\r\n  <a href=\"x\">text</a><!-- c -->\n</div>";
+    // the array is larger than the source text, as when it is decoded from a file
+    char[] chars = Arrays.copyOf(content.toCharArray(), content.length() + 10);
+    List<Node> nodes = new PageLexer(stateMachine).parse(new SourceText(chars, content.length()), new DocumentSummary());
+
+    assertThat(describe(nodes)).isEqualTo(describe(parse(content, false, stateMachine)));
+  }
+
+  @Test
+  void same_nodes_when_streamed_as_channels_on_test_files() throws IOException {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(Paths.get("src/test/resources"))) {
+      files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+    }
+    for (Path file : files) {
+      String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      boolean vue = file.toString().endsWith(".vue");
+      PageLexer lexer = vue ? new VueLexer(false) : new PageLexer(false);
+      List<Node> streamed = new ArrayList<>();
+      lexer.parse(new StringReader(content), streamed::add);
+
+      // streamed nodes are not added to the children of their parent
+      assertThat(describe(streamed, false))
+        .as(file.toString())
+        .isEqualTo(describe(parse(content, vue, false), false));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "<div>\r\n  <a href=\"x\">text</a><!-- c -->\r\n</div>\r",
+    "<a <!-- comment --> b=\"<%= x %>\">\n<![CDATA[ <a> ]]><!doctype html>",
+    "<script>if (a<b) {}</SCRIPT ><script>x = \"</script>\";",
+    "<a href='x' title=\"it's\" data-x=\"a\\\"b\" >\r\r\n\n<%-- c --%><%@ page import=\"a\" %>",
+    "<a href=\"x"
+  })
+  void same_nodes_with_a_small_window(String content) {
+    // tokens span several refills of the window, which grows to hold the longest one
+    String page = content.repeat(20) + "<!--" + "-".repeat(500) + content;
+
+    List<Node> nodes = new ArrayList<>();
+    new StateMachineTokenizer(new SourceText(page), nodes::add).tokenize();
+
+    assertThat(describe(tokenize(page, 32), false)).isEqualTo(describe(nodes, false));
+  }
+
+  @Test
+  void tag_positions_and_attributes() {
+    List<Node> nodes = parse("<div>\n  <a href=\"x\"\n     title='y'>", false, true);
+
+    assertThat(nodes).hasSize(3);
+    TagNode a = (TagNode) nodes.get(2);
+    assertThat(a.getNodeName()).isEqualTo("a");
+    assertThat(a.getStartLinePosition()).isEqualTo(2);
+    assertThat(a.getStartColumnPosition()).isEqualTo(2);
+    assertThat(a.getEndLinePosition()).isEqualTo(3);
+    assertThat(a.getEndColumnPosition()).isEqualTo(15);
+    assertThat(a.getAttributes()).extracting(Attribute::getName).containsExactly("href", "title");
+    assertThat(a.getAttributes()).extracting(Attribute::getLine).containsExactly(2, 3);
+    assertThat(a.getAttribute("title")).isEqualTo("y");
+    assertThat(a.getParent()).isSameAs(nodes.get(0));
+  }
+
+  private static List<Node> parse(String content, boolean vue, boolean stateMachine) {
+    PageLexer lexer = vue ? new VueLexer(stateMachine) : new PageLexer(stateMachine);
+    return lexer.parse(new StringReader(content));
+  }
+
+  private static List<Node> tokenize(String content, int windowSize) {
+    List<Node> nodes = new ArrayList<>();
+    new StateMachineTokenizer(new StringReader(content), windowSize, nodes::add).tokenize();
+    return nodes;
+  }
+
+  private static String describe(List<Node> nodes) {
+    return describe(nodes, true);
+  }
+
+  private static String describe(List<Node> nodes, boolean children) {
+    Map<Node, Integer> indexes = new IdentityHashMap<>();
+    for (int i = 0; i < nodes.size(); i++) {
+      indexes.put(nodes.get(i), i);
+    }
+    StringBuilder sb = new StringBuilder();
+    for (Node node : nodes) {
+      sb.append(node.getClass().getSimpleName())
+        .append(' ').append(node.getCode())
+        .append(' ').append(node.getStartLinePosition()).append(':').append(node.getStartColumnPosition())
+        .append('-').append(node.getEndLinePosition()).append(':').append(node.getEndColumnPosition());
+      if (node instanceof CommentNode) {
+        sb.append(" html=").append(((CommentNode) node).isHtml());
+      }
+      if (node instanceof TagNode) {
+        TagNode tag = (TagNode) node;
+        sb.append(" name=").append(tag.getNodeName())
+          .append(" parent=").append(tag.getParent() == null ? null : indexes.get(tag.getParent()))
+          .append(" children=").append(children ? tag.getChildren().stream().map(indexes::get).collect(Collectors.toList()) : "");
+        for (Attribute attribute : tag.getAttributes()) {
+          sb.append("\n  ").append(attribute.getName()).append('=').append(attribute.getValue())
+            .append(" double=").append(attribute.isDoubleQuoted())
+            .append(" single=").append(attribute.isSingleQuoted())
+            .append(" line=").append(attribute.getLine());
+        }
+      }
+      sb.append('\n');
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.lex;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.TagNode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymbolTableTest {
+
+  @Test
+  void names_and_short_values_are_shared() {
+    char[] chars = " class=\"text/javascript\" ".toCharArray();
+
+    String name = SymbolTable.name(chars, 1, 6);
+    assertThat(name).isEqualTo("class");
+    assertThat(SymbolTable.name(chars, 1, 6)).isSameAs(name);
+    assertThat(SymbolTable.name(new String("class"))).isSameAs(name);
+
+    String value = SymbolTable.value(chars, 8, 23);
+    assertThat(value).isEqualTo("text/javascript");
+    assertThat(SymbolTable.value(new String("text/javascript"))).isSameAs(value);
+    assertThat(SymbolTable.value(chars, 0, 0)).isEmpty();
+  }
+
+  @Test
+  void long_strings_are_not_shared() {
+    String longName = "a".repeat(SymbolTable.MAX_NAME_LENGTH + 1);
+    assertThat(SymbolTable.name(longName.toCharArray(), 0, longName.length()))
+      .isEqualTo(longName)
+      .isNotSameAs(SymbolTable.name(longName.toCharArray(), 0, longName.length()));
+
+    String longValue = "b".repeat(SymbolTable.MAX_VALUE_LENGTH + 1);
+    assertThat(SymbolTable.value(longValue)).isSameAs(longValue);
+    assertThat(SymbolTable.name(longValue)).isSameAs(SymbolTable.name(new String(longValue)));
+  }
+
+  @Test
+  void lexers_share_names() {
+    for (boolean stateMachine : new boolean[] {false, true}) {
+      List<Node> nodes = new PageLexer(stateMachine).parse(new StringReader("<div class=\"a\"></div><div class='a'/>"));
+      TagNode first = (TagNode) nodes.get(0);
+      TagNode last = (TagNode) nodes.get(2);
+      assertThat(first.getNodeName()).isSameAs(last.getNodeName());
+      assertThat(first.getAttributes().get(0).getName()).isSameAs(last.getAttributes().get(0).getName());
+      assertThat(first.getAttributes().get(0).getValue()).isSameAs(last.getAttributes().get(0).getValue());
+    }
+  }
+
+  @Test
+  void concurrent_lookups_return_equal_strings() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int thread = 0; thread < 4; thread++) {
+        results.add(executor.submit(() -> {
+          for (int i = 0; i < 100_000; i++) {
+            String name = "name" + (i % 5_000);
+            if (!SymbolTable.name(name.toCharArray(), 0, name.length()).equals(name)) {
+              return false;
+            }
+          }
+          return true;
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        assertThat(result.get()).isTrue();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
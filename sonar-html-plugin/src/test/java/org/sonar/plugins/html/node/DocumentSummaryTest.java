@@ -0,0 +1,95 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.node;
+
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.sonar.plugins.html.lex.PageLexer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentSummaryTest {
+
+  @Test
+  void node_types() {
+    DocumentSummary summary = summarize("<p>text<!-- comment --></p>");
+
+    assertThat(summary.contains(NodeType.TAG)).isTrue();
+    assertThat(summary.contains(NodeType.TEXT)).isTrue();
+    assertThat(summary.contains(NodeType.COMMENT)).isTrue();
+    assertThat(summary.contains(NodeType.EXPRESSION)).isFalse();
+    assertThat(summary.contains(NodeType.DIRECTIVE)).isFalse();
+  }
+
+  @Test
+  void element_names() {
+    DocumentSummary summary = summarize("<TABLE><h:outputText/></TABLE>");
+
+    assertThat(summary.containsElement("table")).isTrue();
+    assertThat(summary.containsElement("H:OUTPUTTEXT")).isTrue();
+    assertThat(summary.containsElement("outputText")).isTrue();
+    assertThat(summary.containsElement("h")).isFalse();
+    assertThat(summary.containsElement("tr")).isFalse();
+    assertThat(summary.containsAnyElement(List.of("tr", "Table"))).isTrue();
+    assertThat(summary.containsAnyElement(List.of())).isFalse();
+  }
+
+  @Test
+  void attribute_names_and_property_bindings() {
+    DocumentSummary summary = summarize("<a Href='x' [title]='y' v-bind:role='z' :[tabindex]='0' attr.lang='en'>");
+
+    assertThat(summary.containsAttribute("href")).isTrue();
+    assertThat(summary.containsAttribute("TITLE")).isTrue();
+    assertThat(summary.containsAttribute("role")).isTrue();
+    assertThat(summary.containsAttribute("tabIndex")).isTrue();
+    assertThat(summary.containsAttribute("lang")).isTrue();
+    assertThat(summary.containsAttribute("style")).isFalse();
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "table, TABLE",
+    "Table, tAbLe",
+    "\u0131, I",
+    "\u212A, k",
+    "h:form, H:FORM"
+  })
+  void fold_case_is_consistent_with_equals_ignore_case(String first, String second) {
+    assertThat(first).isEqualToIgnoringCase(second);
+    assertThat(DocumentSummary.foldCase(first)).isEqualTo(DocumentSummary.foldCase(second));
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "div, div",
+    "h:form, form",
+    "a:b:, b",
+    "::, ::"
+  })
+  void local_name(String nodeName, String localName) {
+    assertThat(DocumentSummary.localName(nodeName)).isEqualTo(localName);
+  }
+
+  private static DocumentSummary summarize(String code) {
+    DocumentSummary summary = new DocumentSummary();
+    new PageLexer().parse(new StringReader(code), summary);
+    return summary;
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.node;
+
+import java.util.BitSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HtmlElementsTest {
+
+  @Test
+  void ids_of_known_elements() {
+    int div = HtmlElements.id("div");
+    assertThat(div).isNotEqualTo(HtmlElements.UNKNOWN);
+    assertThat(HtmlElements.id("DiV")).isEqualTo(div);
+    assertThat(HtmlElements.name(div)).isEqualTo("div");
+    assertThat(HtmlElements.id("svg")).isNotEqualTo(HtmlElements.UNKNOWN).isNotEqualTo(div);
+
+    assertThat(HtmlElements.id("h:form")).isEqualTo(HtmlElements.UNKNOWN);
+    assertThat(HtmlElements.id("my-element")).isEqualTo(HtmlElements.UNKNOWN);
+    assertThatThrownBy(() -> HtmlElements.name(HtmlElements.UNKNOWN)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void sets_of_ids() {
+    BitSet ids = HtmlElements.ids(List.of("input", "SELECT"));
+    assertThat(ids.get(HtmlElements.id("select"))).isTrue();
+    assertThat(ids.get(HtmlElements.id("div"))).isFalse();
+    assertThat(ids.get(HtmlElements.UNKNOWN)).isFalse();
+
+    List<String> unknown = List.of("my-element");
+    assertThatThrownBy(() -> HtmlElements.ids(unknown))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Unknown HTML element: my-element");
+  }
+
+}
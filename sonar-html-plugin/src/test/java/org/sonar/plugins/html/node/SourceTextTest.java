@@ -0,0 +1,119 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.node;
+
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SourceTextTest {
+
+  @Test
+  public void lines_and_columns() {
+    SourceText source = new SourceText("ab\ncd\r\nef\rg\n".toCharArray());
+
+    assertThat(source.line(0)).isEqualTo(1);
+    assertThat(source.column(0)).isZero();
+    assertThat(source.line(2)).isEqualTo(1);
+    assertThat(source.column(2)).isEqualTo(2);
+    assertThat(source.line(3)).isEqualTo(2);
+    assertThat(source.column(3)).isZero();
+    // carriage return followed by a line feed
+    assertThat(source.line(6)).isEqualTo(2);
+    assertThat(source.column(6)).isEqualTo(3);
+    assertThat(source.line(7)).isEqualTo(3);
+    // single carriage return
+    assertThat(source.line(10)).isEqualTo(4);
+    assertThat(source.column(11)).isEqualTo(1);
+    assertThat(source.line(12)).isEqualTo(5);
+    assertThat(source.column(12)).isZero();
+  }
+
+  @Test
+  public void lines() {
+    SourceText source = new SourceText("ab\ncd\r\n \t\r\rg\n");
+
+    assertThat(source.lineCount()).isEqualTo(6);
+    assertThat(source.lineStartOffset(1)).isZero();
+    assertThat(source.lineEndOffset(1)).isEqualTo(2);
+    assertThat(source.lineStartOffset(2)).isEqualTo(3);
+    assertThat(source.lineEndOffset(2)).isEqualTo(5);
+    assertThat(source.lineLength(2)).isEqualTo(2);
+    assertThat(source.lineLength(3)).isEqualTo(2);
+    assertThat(source.isBlankLine(3)).isTrue();
+    assertThat(source.lineLength(4)).isZero();
+    assertThat(source.isBlankLine(4)).isTrue();
+    assertThat(source.lineLength(5)).isEqualTo(1);
+    assertThat(source.isBlankLine(5)).isFalse();
+    // the text ends with a line terminator
+    assertThat(source.lineStartOffset(6)).isEqualTo(source.length());
+    assertThat(source.lineLength(6)).isZero();
+
+    assertThat(new SourceText("").lineCount()).isEqualTo(1);
+    assertThat(new SourceText("").lineLength(1)).isZero();
+  }
+
+  @Test
+  public void shared_characters() {
+    char[] chars = "a\tb\ncd".toCharArray();
+    SourceText source = new SourceText(chars, 4);
+
+    assertThat(source.array()).isSameAs(chars);
+    assertThat(source.length()).isEqualTo(4);
+    assertThat(source).hasToString("a\tb\n");
+    assertThat(source.subSequence(1, 3)).hasToString("\tb");
+    assertThat(source.indexOf('\t')).isEqualTo(1);
+    assertThat(source.indexOf('c')).isEqualTo(-1);
+    assertThat(source.regionMatches(2, "b\nc")).isFalse();
+    assertThat(source.lineCount()).isEqualTo(2);
+    assertThat(Pattern.compile("a\\s").matcher(source).lookingAt()).isTrue();
+  }
+
+  @Test
+  public void node_attached_to_source() {
+    SourceText source = new SourceText("<p>\n  </p>".toCharArray());
+    TagNode node = new TagNode();
+    node.setSource(source, 6, 10);
+
+    assertThat(node.isEndElement()).isTrue();
+    assertThat(node.hasEnd()).isFalse();
+    assertThat(node.getStartLinePosition()).isEqualTo(2);
+    assertThat(node.getStartColumnPosition()).isEqualTo(2);
+    assertThat(node.getEndLinePosition()).isEqualTo(2);
+    assertThat(node.getEndColumnPosition()).isEqualTo(6);
+    assertThat(node.getCode()).isEqualTo("</p>");
+
+    node.setCode("<p/>");
+    node.setStartLinePosition(1);
+    assertThat(node.hasEnd()).isTrue();
+    assertThat(node.getCode()).isEqualTo("<p/>");
+    assertThat(node.getStartLinePosition()).isEqualTo(1);
+  }
+
+  @Test
+  public void blank_text_attached_to_source() {
+    SourceText source = new SourceText("<p>\n\t </p>".toCharArray());
+    TextNode blank = new TextNode();
+    blank.setSource(source, 3, 6);
+    TextNode notBlank = new TextNode();
+    notBlank.setSource(source, 3, 7);
+
+    assertThat(blank.isBlank()).isTrue();
+    assertThat(notBlank.isBlank()).isFalse();
+  }
+}
@@ -55,12 +55,82 @@ public class TagNodeTest {
     assertThat(node.hasProperty("name3")).isTrue();
   }
 
+  @Test
+  public void property_binding() {
+    TagNode node = createNode();
+    node.getAttributes().add(new Attribute("v-bind:name5", "value5"));
+    node.getAttributes().add(new Attribute(":[name6]", "value6"));
+
+    assertThat(node.getPropertyBinding("NAME1")).isEqualTo(PropertyBinding.PLAIN);
+    assertThat(node.getPropertyBinding("name2")).isEqualTo(PropertyBinding.ANGULAR);
+    assertThat(node.getPropertyBinding("[name2]")).isEqualTo(PropertyBinding.PLAIN);
+    assertThat(node.getPropertyBinding("name5")).isEqualTo(PropertyBinding.VUE);
+    assertThat(node.getPropertyBinding("name6")).isEqualTo(PropertyBinding.VUE);
+    assertThat(node.getPropertyBinding("name7")).isNull();
+  }
+
+  @Test
+  public void property_of_many_attributes() {
+    TagNode node = createNode();
+    for (int i = 0; i < 10; i++) {
+      node.getAttributes().add(new Attribute("data-" + i, "data" + i));
+    }
+    node.getAttributes().add(new Attribute("NAME2", "plain2"));
+
+    assertThat(node.getPropertyValue("name1")).isEqualTo("value1");
+    assertThat(node.getPropertyValue("Name2")).isEqualTo("value2");
+    assertThat(node.getPropertyBinding("name2")).isEqualTo(PropertyBinding.ANGULAR);
+    assertThat(node.getAttribute("name2")).isEqualTo("plain2");
+    assertThat(node.getPropertyValue("name3")).isEqualTo("value3");
+    assertThat(node.getAttribute("name3")).isNull();
+    assertThat(node.getAttribute("DATA-9")).isEqualTo("data9");
+    assertThat(node.hasProperty("name5")).isFalse();
+
+    node.getAttributes().add(new Attribute(":name5", "value5"));
+    assertThat(node.getPropertyValue("name5")).isEqualTo("value5");
+    node.getAttributes().remove(1);
+    assertThat(node.getPropertyValue("name2")).isEqualTo("plain2");
+    assertThat(node.getPropertyBinding("name2")).isEqualTo(PropertyBinding.PLAIN);
+  }
+
   @Test
   public void emptyTagNode() {
     TagNode tagNode = new TagNode();
     assertThat(tagNode.getNodeName()).isNotNull();
     assertThat(tagNode.getLocalName()).isNotNull();
     assertThat(tagNode.getCode()).isNotNull();
+    assertThat(tagNode.getLowerCaseName()).isEmpty();
+    assertThat(tagNode.getPrefix()).isNull();
+    assertThat(tagNode.getElementId()).isEqualTo(HtmlElements.UNKNOWN);
+  }
+
+  @Test
+  public void canonical_names() {
+    TagNode tagNode = new TagNode();
+    tagNode.setNodeName("DIV");
+    assertThat(tagNode.getLowerCaseName()).isEqualTo("div");
+    assertThat(tagNode.getLocalName()).isEqualTo("DIV");
+    assertThat(tagNode.getPrefix()).isNull();
+    assertThat(tagNode.getElementId()).isEqualTo(HtmlElements.id("div"));
+    assertThat(tagNode.isElement(HtmlElements.id("div"))).isTrue();
+    assertThat(tagNode.isElement(HtmlElements.id("span"))).isFalse();
+
+    tagNode.setNodeName("h:Form");
+    assertThat(tagNode.getLowerCaseName()).isEqualTo("h:form");
+    assertThat(tagNode.getLocalName()).isEqualTo("Form");
+    assertThat(tagNode.getPrefix()).isEqualTo("h");
+    assertThat(tagNode.getElementId()).isEqualTo(HtmlElements.UNKNOWN);
+    assertThat(tagNode.isElement(HtmlElements.id("form"))).isTrue();
+    assertThat(tagNode.equalsElementName("FORM")).isTrue();
+    assertThat(tagNode.isElement(HtmlElements.UNKNOWN)).isFalse();
+
+    tagNode.setNodeName("a:b:c::");
+    assertThat(tagNode.getLocalName()).isEqualTo("c");
+    assertThat(tagNode.getPrefix()).isEqualTo("a:b");
+
+    tagNode.setNodeName("::");
+    assertThat(tagNode.getLocalName()).isEqualTo("::");
+    assertThat(tagNode.getPrefix()).isNull();
   }
 
   private TagNode createNode() {
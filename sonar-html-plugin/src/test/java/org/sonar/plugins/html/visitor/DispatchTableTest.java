@@ -0,0 +1,124 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.sonar.plugins.html.lex.PageLexer;
+import org.sonar.plugins.html.node.CommentNode;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.TagNode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DispatchTableTest {
+
+  private final List<String> events = new ArrayList<>();
+
+  @Test
+  void element_events_are_sent_to_interested_visitors() {
+    DispatchTable table = new DispatchTable(List.of(
+      new RecordingVisitor("tables", Set.of("table")),
+      new RecordingVisitor("all", Set.of())));
+
+    dispatch(table, "<TABLE><tr></tr></table><br/>");
+
+    assertThat(events).containsExactly(
+      "tables start TABLE", "all start TABLE",
+      "all start tr",
+      "all end tr",
+      "tables end table", "all end table",
+      "all start br", "all end br");
+  }
+
+  @Test
+  void element_names_match_local_names() {
+    DispatchTable table = new DispatchTable(List.of(
+      new RecordingVisitor("qualified", Set.of("h:form")),
+      new RecordingVisitor("local", Set.of("FORM")),
+      new RecordingVisitor("other", Set.of("div"))));
+
+    dispatch(table, "<h:form/><f:form/><form/>");
+
+    assertThat(events).containsExactly(
+      "qualified start h:form", "local start h:form",
+      "qualified end h:form", "local end h:form",
+      "local start f:form", "local end f:form",
+      "local start form", "local end form");
+  }
+
+  @Test
+  void other_events_are_sent_to_visitors_overriding_them() {
+    DispatchTable table = new DispatchTable(List.of(
+      new RecordingVisitor("elements", Set.of()),
+      new DefaultNodeVisitor() {
+        @Override
+        public void comment(CommentNode node) {
+          events.add("comment " + node.getCode());
+        }
+      }));
+
+    dispatch(table, "<p><!-- c --></p>");
+
+    assertThat(events).containsExactly("elements start p", "comment <!-- c -->", "elements end p");
+  }
+
+  @Test
+  void callbacks_overridden_by_a_superclass_are_dispatched() {
+    DispatchTable table = new DispatchTable(List.of(new RecordingVisitor("parent", Set.of("p")) {
+    }));
+
+    dispatch(table, "<p></p><!-- c -->");
+
+    assertThat(events).containsExactly("parent start p", "parent end p");
+  }
+
+  private void dispatch(DispatchTable table, String code) {
+    for (Node node : new PageLexer().parse(new StringReader(code))) {
+      table.dispatch(node);
+    }
+  }
+
+  private class RecordingVisitor extends DefaultNodeVisitor {
+
+    private final String name;
+    private final Set<String> elementNames;
+
+    RecordingVisitor(String name, Set<String> elementNames) {
+      this.name = name;
+      this.elementNames = elementNames;
+    }
+
+    @Override
+    public Set<String> elementNames() {
+      return elementNames;
+    }
+
+    @Override
+    public void startElement(TagNode node) {
+      events.add(name + " start " + node.getNodeName());
+    }
+
+    @Override
+    public void endElement(TagNode node) {
+      events.add(name + " end " + node.getNodeName());
+    }
+  }
+}
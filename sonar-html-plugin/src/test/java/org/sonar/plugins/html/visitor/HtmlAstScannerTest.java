@@ -0,0 +1,238 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.plugins.html.lex.PageLexer;
+import org.sonar.plugins.html.node.DocumentSummary;
+import org.sonar.plugins.html.node.Node;
+import org.sonar.plugins.html.node.TagNode;
+import org.sonar.plugins.html.node.TextNode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HtmlAstScannerTest {
+
+  private final List<String> events = new ArrayList<>();
+
+  @Test
+  void checks_not_triggered_by_the_document_are_not_run() {
+    HtmlAstScanner scanner = new HtmlAstScanner(List.of());
+    scanner.addVisitor(new TableVisitor());
+
+    scan(scanner, "<div></div>");
+    assertThat(events).isEmpty();
+
+    scan(scanner, "<table></table>");
+    assertThat(events).containsExactly("start document", "start table", "end table", "end document");
+  }
+
+  @Test
+  void checks_are_triggered_by_their_element_names_by_default() {
+    HtmlAstScanner scanner = new HtmlAstScanner(List.of());
+    scanner.addVisitor(new TableElementVisitor());
+    scanner.addVisitor(new RecordingVisitor("all"));
+
+    scan(scanner, "<div></div>");
+    assertThat(events).containsExactly("all start document", "all start div", "all end div", "all end document");
+
+    events.clear();
+    scan(scanner, "<table></table>");
+    assertThat(events).containsExactly(
+      "table start document", "all start document",
+      "table start table", "all start table",
+      "table end table", "all end table",
+      "table end document", "all end document");
+  }
+
+  @Test
+  void cached_dispatch_tables_are_bounded() {
+    HtmlAstScanner scanner = new HtmlAstScanner(List.of());
+    int checks = 10;
+    for (int i = 0; i < checks; i++) {
+      String element = "e" + i;
+      scanner.addVisitor(new RecordingVisitor(element) {
+        @Override
+        public Set<String> elementNames() {
+          return Set.of(element);
+        }
+      });
+    }
+
+    // each document triggers another set of checks
+    for (int triggered = 0; triggered < 1 << checks; triggered++) {
+      StringBuilder code = new StringBuilder();
+      List<String> expected = new ArrayList<>();
+      for (int i = 0; i < checks; i++) {
+        if ((triggered & (1 << i)) != 0) {
+          code.append("<e").append(i).append("/>");
+          expected.add("e" + i + " start document");
+        }
+      }
+      events.clear();
+      scan(scanner, code.toString());
+      assertThat(events).filteredOn(event -> event.endsWith(" start document")).containsExactlyElementsOf(expected);
+      assertThat(scanner.cachedTables()).isLessThanOrEqualTo(scanner.maxCachedTables());
+    }
+    // the bound grows with the number of checks
+    assertThat(scanner.maxCachedTables()).isGreaterThan(HtmlAstScanner.MIN_CACHED_TABLES);
+    assertThat(scanner.cachedTables()).isEqualTo(scanner.maxCachedTables());
+  }
+
+  @Test
+  void all_checks_are_run_without_summary() {
+    HtmlAstScanner scanner = new HtmlAstScanner(List.of());
+    scanner.addVisitor(new TableVisitor());
+
+    scanner.scan(new PageLexer().parse(new StringReader("<div></div>")), sourceCode());
+
+    assertThat(events).containsExactly("start document", "start div", "end div", "end document");
+  }
+
+  @Test
+  void metric_visitors_are_notified_before_checks_in_a_single_pass() {
+    HtmlAstScanner scanner = new HtmlAstScanner(List.of(new RecordingVisitor("metric")));
+    scanner.addVisitor(new RecordingVisitor("check"));
+
+    scanner.scan(new PageLexer().parse(new StringReader("<p>text</p>")), sourceCode());
+
+    assertThat(events).containsExactly(
+      "metric start document", "check start document",
+      "metric start p", "check start p",
+      "metric characters", "check characters",
+      "metric end p", "check end p",
+      "metric end document", "check end document");
+  }
+
+  @Test
+  void only_selected_checks_are_run_without_metric_visitors() {
+    HtmlAstScanner scanner = new HtmlAstScanner(List.of(new RecordingVisitor("metric")));
+    RecordingVisitor selected = new RecordingVisitor("selected");
+    scanner.addVisitor(selected);
+    scanner.addVisitor(new RecordingVisitor("other"));
+
+    DocumentSummary summary = new DocumentSummary();
+    List<Node> nodes = new PageLexer().parse(new StringReader("<p/>"), summary);
+    scanner.scan(nodes, sourceCode(), summary, visitor -> visitor == selected);
+
+    assertThat(events).containsExactly("selected start document", "selected start p", "selected end p", "selected end document");
+  }
+
+  @Test
+  void calls_to_visitors_are_measured_by_the_profiler() {
+    RecordingVisitor metric = new RecordingVisitor("metric");
+    TableVisitor check = new TableVisitor();
+    HtmlAstScanner scanner = new HtmlAstScanner(List.of(metric));
+    scanner.addVisitor(check);
+    VisitorProfiler profiler = new VisitorProfiler();
+    scanner.setProfiler(profiler);
+
+    scan(scanner, "<table>text</table>");
+
+    // start and end of document, start and end of table, and characters for the metric visitor
+    assertThat(profiler.costsByVisitor().get(metric).calls()).isEqualTo(5);
+    assertThat(profiler.costsByVisitor().get(check).calls()).isEqualTo(4);
+    assertThat(profiler.costsByFile()).containsOnlyKeys("foo.html");
+    assertThat(profiler.costsByFile().get("foo.html").calls()).isEqualTo(9);
+    assertThat(profiler.costsByFile().get("foo.html").wallTime()).isPositive();
+  }
+
+  private static void scan(HtmlAstScanner scanner, String code) {
+    DocumentSummary summary = new DocumentSummary();
+    List<Node> nodes = new PageLexer().parse(new StringReader(code), summary);
+    scanner.scan(nodes, sourceCode(), summary);
+  }
+
+  private static HtmlSourceCode sourceCode() {
+    return new HtmlSourceCode(new TestInputFileBuilder("key", "foo.html").build());
+  }
+
+  private class TableVisitor extends DefaultNodeVisitor {
+
+    @Override
+    public boolean isTriggeredBy(DocumentSummary summary) {
+      return summary.containsElement("table");
+    }
+
+    @Override
+    public void startDocument(List<Node> nodes) {
+      events.add("start document");
+    }
+
+    @Override
+    public void startElement(TagNode node) {
+      events.add("start " + node.getNodeName());
+    }
+
+    @Override
+    public void endElement(TagNode node) {
+      events.add("end " + node.getNodeName());
+    }
+
+    @Override
+    public void endDocument() {
+      events.add("end document");
+    }
+  }
+
+  @ElementNames("TABLE")
+  private class TableElementVisitor extends RecordingVisitor {
+
+    TableElementVisitor() {
+      super("table");
+    }
+  }
+
+  private class RecordingVisitor extends DefaultNodeVisitor {
+
+    private final String name;
+
+    RecordingVisitor(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void startDocument(List<Node> nodes) {
+      events.add(name + " start document");
+    }
+
+    @Override
+    public void startElement(TagNode node) {
+      events.add(name + " start " + node.getNodeName());
+    }
+
+    @Override
+    public void characters(TextNode textNode) {
+      events.add(name + " characters");
+    }
+
+    @Override
+    public void endElement(TagNode node) {
+      events.add(name + " end " + node.getNodeName());
+    }
+
+    @Override
+    public void endDocument() {
+      events.add(name + " end document");
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.plugins.html.node.SourceText;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HtmlSourceCodeTest {
+
+  @Test
+  void contents_are_read_once() throws IOException {
+    InputFile inputFile = new TestInputFileBuilder("key", "foo.html")
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents("<p>café</p>")
+      .build();
+    InputFile spiedFile = spy(inputFile);
+    HtmlSourceCode sourceCode = new HtmlSourceCode(spiedFile);
+
+    SourceText text = sourceCode.getSourceText();
+
+    assertThat(sourceCode.getContents()).isEqualTo("<p>café</p>");
+    assertThat(sourceCode.getSourceText()).isSameAs(text);
+    verify(spiedFile, times(1)).inputStream();
+  }
+
+  @Test
+  void source_text_is_shared() {
+    InputFile inputFile = new TestInputFileBuilder("key", "foo.html")
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents("<p>\ncafé</p>\n")
+      .build();
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+
+    SourceText text = sourceCode.getSourceText();
+
+    assertThat(text.length()).isEqualTo(sourceCode.getContents().length());
+    assertThat(text.lineCount()).isEqualTo(3);
+    assertThat(text.lineLength(2)).isEqualTo(8);
+    assertThat(sourceCode.getSourceText()).isSameAs(text);
+  }
+
+  @Test
+  void small_file_is_not_streamed() throws IOException {
+    InputFile inputFile = spy(new TestInputFileBuilder("key", "foo.html")
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents("<p>café</p>")
+      .build());
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+
+    sourceCode.readContents(11);
+
+    assertThat(sourceCode.isStreamed()).isFalse();
+    assertThat(sourceCode.getSourceText()).hasToString("<p>café</p>");
+    verify(inputFile, times(1)).inputStream();
+  }
+
+  @Test
+  void large_file_is_streamed() throws IOException {
+    String contents = "<p>café</p>\n".repeat(2000);
+    InputFile inputFile = spy(new TestInputFileBuilder("key", "foo.html")
+      .setCharset(StandardCharsets.UTF_8)
+      .setContents(contents)
+      .build());
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+
+    sourceCode.readContents(10_000);
+    assertThat(sourceCode.isStreamed()).isTrue();
+
+    try (Reader reader = sourceCode.openStream()) {
+      assertThat(read(reader)).isEqualTo(contents);
+    }
+    // the content is read again from the start rather than kept
+    verify(inputFile, times(2)).inputStream();
+  }
+
+  @Test
+  void read_failure() throws IOException {
+    InputFile inputFile = mock(InputFile.class);
+    InputStream inputStream = mock(InputStream.class);
+    when(inputFile.inputStream()).thenReturn(inputStream);
+    when(inputStream.readAllBytes()).thenThrow(new IOException("boom"));
+
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+
+    assertThatThrownBy(sourceCode::getContents)
+      .isInstanceOf(IllegalStateException.class)
+      .hasCauseInstanceOf(IOException.class);
+  }
+
+  private static String read(Reader reader) throws IOException {
+    StringWriter writer = new StringWriter();
+    reader.transferTo(writer);
+    return writer.toString();
+  }
+}
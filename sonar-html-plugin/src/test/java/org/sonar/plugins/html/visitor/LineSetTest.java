@@ -0,0 +1,77 @@
+/*
+ * SonarQube HTML
+ * Copyright (C) 2010-2024 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.html.visitor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineSetTest {
+
+  @Test
+  void add_lines_and_ranges() {
+    LineSet lines = new LineSet();
+
+    assertThat(lines.add(3)).isTrue();
+    assertThat(lines.add(3)).isFalse();
+    lines.addRange(5, 7);
+    lines.addRange(9, 8);
+
+    assertThat(lines).containsExactly(3, 5, 6, 7);
+    assertThat(lines.size()).isEqualTo(4);
+    assertThat(lines.contains(6)).isTrue();
+    assertThat(lines.contains(8)).isFalse();
+    assertThat(lines.contains(-1)).isFalse();
+    assertThat(lines.contains("6")).isFalse();
+    assertThat(lines.nextLine(4)).isEqualTo(5);
+    assertThat(lines.nextLine(8)).isEqualTo(-1);
+  }
+
+  @Test
+  void same_as_other_sets_of_lines() {
+    LineSet lines = new LineSet();
+    lines.addRange(1, 3);
+
+    assertThat(lines).isEqualTo(Set.of(1, 2, 3)).hasSameHashCodeAs(Set.of(1, 2, 3));
+    assertThat(Set.of(1, 2, 3)).isEqualTo(lines);
+
+    List<Integer> visited = new ArrayList<>();
+    lines.forEachLine(visited::add);
+    assertThat(visited).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  void remove_lines() {
+    LineSet lines = new LineSet();
+    lines.addRange(1, 4);
+
+    assertThat(lines.remove(2)).isTrue();
+    assertThat(lines.remove(2)).isFalse();
+    Iterator<Integer> iterator = lines.iterator();
+    iterator.next();
+    iterator.remove();
+    assertThat(lines).containsExactly(3, 4);
+
+    lines.clear();
+    assertThat(lines).isEmpty();
+  }
+
+}
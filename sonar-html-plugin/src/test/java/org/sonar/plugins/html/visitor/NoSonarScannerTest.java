@@ -31,6 +31,7 @@ import org.sonar.api.issue.NoSonarFilter;
 import org.sonar.plugins.html.lex.PageLexer;
 import org.sonar.plugins.html.node.Node;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.spy;
@@ -55,9 +56,11 @@ public class NoSonarScannerTest {
     HtmlAstScanner pageScanner = new HtmlAstScanner(Collections.emptyList());
     pageScanner.addVisitor(new NoSonarScanner(noSonarFilter));
 
-    pageScanner.scan(nodeList, new HtmlSourceCode(inputFile));
+    HtmlSourceCode sourceCode = new HtmlSourceCode(inputFile);
+    pageScanner.scan(nodeList, sourceCode);
 
     verify(noSonarFilter, times(1)).noSonarInFile(eq(inputFile), argThat(new IsOnlyIgnoringLine2()));
+    assertThat(sourceCode.getNoSonarLines()).containsExactly(2);
   }
 
   private static class IsOnlyIgnoringLine2 implements ArgumentMatcher<Set<Integer>> {